@@ -0,0 +1,25 @@
+package io.github.athingx.athing.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试启动器
+ * <p>
+ * 在命令行参数基础上固定挂载GC分析器，输出分配速率（{@code gc.alloc.rate.norm}）。
+ * 吞吐量与采样延迟（含p0.99）由各基准的{@code Throughput}和{@code SampleTime}模式给出。
+ * </p>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String... args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()
+        ).run();
+    }
+
+}
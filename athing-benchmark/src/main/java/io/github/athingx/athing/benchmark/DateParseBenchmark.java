@@ -0,0 +1,39 @@
+package io.github.athingx.athing.benchmark;
+
+import io.github.athingx.athing.common.util.DateUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日期解析基准：设备状态消息中的UTC时间解析，对比每次新建{@link SimpleDateFormat}与快速路径
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class DateParseBenchmark {
+
+    // 非final的状态字段，避免被JIT当作常量折叠
+    @Param({"2018-08-31T07:32:28.205Z"})
+    public String utcTime;
+
+    @Benchmark
+    public long simpleDateFormat() throws ParseException {
+        final SimpleDateFormat utcDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        utcDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return utcDateFormat.parse(utcTime).getTime();
+    }
+
+    @Benchmark
+    public long parseIso8601() {
+        return DateUtils.parseIso8601(utcTime);
+    }
+
+}
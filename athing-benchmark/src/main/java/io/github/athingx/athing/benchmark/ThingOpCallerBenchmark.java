@@ -0,0 +1,101 @@
+package io.github.athingx.athing.benchmark;
+
+import io.github.athingx.athing.benchmark.mock.MockMqttAsyncClient;
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.api.op.*;
+import io.github.athingx.athing.thing.builder.OpCallOption;
+import io.github.athingx.athing.thing.builder.executor.DefaultExecutorServiceFactory;
+import io.github.athingx.athing.thing.impl.op.ThingOpImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 设备操作调用基准：请求编码、投递、应答回环、解码直到令牌关联完成的往返开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ThingOpCallerBenchmark {
+
+    private static final String TOPIC = "/sys/benchmark/thing/config/get";
+    private static final String TOPIC_REPLY = TOPIC + "_reply";
+
+    @Param({"64", "1024", "16384", "65536"})
+    public int size;
+
+    private ExecutorService executor;
+    private ThingOp<byte[], byte[]> op;
+    private OpTopicCaller<Echo, Echo> caller;
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws Exception {
+        final var path = new ThingPath("benchmark", "caller");
+        executor = new DefaultExecutorServiceFactory().make(path);
+        op = new ThingOpImpl<>(
+                path,
+                new MockMqttAsyncClient(path.toURN(), topic -> TOPIC.equals(topic) ? TOPIC_REPLY : null),
+                executor,
+                Codec.none(),
+                new OpCallOption()
+        );
+        caller = op.caller(TOPIC_REPLY, new EchoCodec()).get();
+        payload = new byte[size];
+        ThreadLocalRandom.current().nextBytes(payload);
+    }
+
+    @TearDown
+    public void tearDown() {
+        caller.unbind().join();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Echo call() {
+        return caller.call(TOPIC, new Echo(op.genToken(), payload)).join();
+    }
+
+    /**
+     * 回环数据
+     *
+     * @param token 操作令牌
+     * @param data  数据
+     */
+    public record Echo(String token, byte[] data) implements OpData {
+
+    }
+
+    /**
+     * 回环数据编解码：8字节令牌+数据
+     */
+    private static class EchoCodec implements Codec<byte[], byte[], Echo, Echo> {
+
+        @Override
+        public Encoder<Echo, byte[]> encoder() {
+            return echo -> ByteBuffer.allocate(Long.BYTES + echo.data().length)
+                    .putLong(Long.parseLong(echo.token()))
+                    .put(echo.data())
+                    .array();
+        }
+
+        @Override
+        public Decoder<byte[], Echo> decoder() {
+            return (topic, bytes) -> {
+                final var buffer = ByteBuffer.wrap(bytes);
+                final var token = Long.toString(buffer.getLong());
+                final var data = new byte[buffer.remaining()];
+                buffer.get(data);
+                return new Echo(token, data);
+            };
+        }
+
+    }
+
+}
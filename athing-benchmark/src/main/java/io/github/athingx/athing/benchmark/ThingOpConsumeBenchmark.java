@@ -0,0 +1,66 @@
+package io.github.athingx.athing.benchmark;
+
+import io.github.athingx.athing.benchmark.mock.MockMqttAsyncClient;
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.api.op.Codec;
+import io.github.athingx.athing.thing.api.op.OpBinder;
+import io.github.athingx.athing.thing.builder.OpCallOption;
+import io.github.athingx.athing.thing.builder.executor.DefaultExecutorServiceFactory;
+import io.github.athingx.athing.thing.impl.op.ThingOpImpl;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 设备操作消费基准：消息到达后经线程池派发、解码直到消费函数被调用的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ThingOpConsumeBenchmark {
+
+    private static final String TOPIC = "/sys/benchmark/thing/service/property/set";
+
+    @Param({"64", "1024", "16384", "65536"})
+    public int size;
+
+    private ExecutorService executor;
+    private MockMqttAsyncClient client;
+    private OpBinder binder;
+    private MqttMessage message;
+    private volatile CompletableFuture<byte[]> pending;
+
+    @Setup
+    public void setup() throws Exception {
+        final var path = new ThingPath("benchmark", "consume");
+        executor = new DefaultExecutorServiceFactory().make(path);
+        client = new MockMqttAsyncClient(path.toURN());
+        binder = new ThingOpImpl<>(path, client, executor, Codec.<byte[], byte[]>none(), new OpCallOption())
+                .consumer(TOPIC, (topic, data) -> pending.complete(data))
+                .get();
+        final var payload = new byte[size];
+        ThreadLocalRandom.current().nextBytes(payload);
+        message = new MqttMessage(payload);
+    }
+
+    @TearDown
+    public void tearDown() {
+        binder.unbind().join();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public byte[] consume() throws Exception {
+        final var future = pending = new CompletableFuture<>();
+        client.arrive(TOPIC, message);
+        return future.join();
+    }
+
+}
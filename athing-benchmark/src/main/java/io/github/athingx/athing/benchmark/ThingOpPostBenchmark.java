@@ -0,0 +1,55 @@
+package io.github.athingx.athing.benchmark;
+
+import io.github.athingx.athing.benchmark.mock.MockMqttAsyncClient;
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.api.op.Codec;
+import io.github.athingx.athing.thing.api.op.ThingOp;
+import io.github.athingx.athing.thing.builder.OpCallOption;
+import io.github.athingx.athing.thing.builder.executor.DefaultExecutorServiceFactory;
+import io.github.athingx.athing.thing.impl.op.ThingOpImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 设备操作投递基准：{@code ThingOp.post}从编码到PUBACK回调完成的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ThingOpPostBenchmark {
+
+    private static final String TOPIC = "/sys/benchmark/thing/event/property/post";
+
+    @Param({"64", "1024", "16384", "65536"})
+    public int size;
+
+    private ExecutorService executor;
+    private ThingOp<byte[], byte[]> op;
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        final var path = new ThingPath("benchmark", "post");
+        executor = new DefaultExecutorServiceFactory().make(path);
+        op = new ThingOpImpl<>(path, new MockMqttAsyncClient(path.toURN()), executor, Codec.none(), new OpCallOption());
+        payload = new byte[size];
+        ThreadLocalRandom.current().nextBytes(payload);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public Void post() {
+        return op.post(TOPIC, payload).join();
+    }
+
+}
@@ -0,0 +1,32 @@
+package io.github.athingx.athing.benchmark;
+
+import io.github.athingx.athing.thing.impl.util.TokenSequencer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌序列基准：同一设备多线程突发生成令牌的吞吐
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class TokenSequencerBenchmark {
+
+    private final TokenSequencer sequencer = new TokenSequencer();
+
+    @Benchmark
+    public long nextToken() {
+        return sequencer.nextToken();
+    }
+
+    @Benchmark
+    public String next() {
+        return sequencer.next();
+    }
+
+}
@@ -0,0 +1,310 @@
+package io.github.athingx.athing.benchmark.mock;
+
+import org.eclipse.paho.client.mqttv3.*;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * 进程内MQTT客户端替身
+ * <p>
+ * 发布消息立即应答成功，并按照回环规则投递给本地匹配的订阅者，用于在没有Broker的情况下驱动设备操作热点路径。
+ * 所有操作均返回{@code null}令牌，避免替身本身的分配干扰被测路径的分配率统计。
+ * </p>
+ */
+public class MockMqttAsyncClient implements IMqttAsyncClient {
+
+    private final String clientId;
+    private final UnaryOperator<String> loopback;
+    private final Map<String, IMqttMessageListener> listeners = new ConcurrentHashMap<>();
+    private volatile MqttCallback callback;
+
+    /**
+     * 进程内MQTT客户端替身
+     *
+     * @param clientId 客户端ID
+     * @param loopback 回环规则：发布主题映射为投递主题，返回{@code null}则不投递
+     */
+    public MockMqttAsyncClient(String clientId, UnaryOperator<String> loopback) {
+        this.clientId = clientId;
+        this.loopback = loopback;
+    }
+
+    /**
+     * 进程内MQTT客户端替身（不回环）
+     *
+     * @param clientId 客户端ID
+     */
+    public MockMqttAsyncClient(String clientId) {
+        this(clientId, topic -> null);
+    }
+
+    /**
+     * 模拟Broker投递消息
+     *
+     * @param topic   主题
+     * @param message 消息
+     * @throws Exception 投递失败
+     */
+    public void arrive(String topic, MqttMessage message) throws Exception {
+        boolean delivered = false;
+        for (final var entry : listeners.entrySet()) {
+            if (MqttTopic.isMatched(entry.getKey(), topic)) {
+                entry.getValue().messageArrived(topic, message);
+                delivered = true;
+            }
+        }
+        final var callback = this.callback;
+        if (!delivered && null != callback) {
+            callback.messageArrived(topic, message);
+        }
+    }
+
+    private static void success(IMqttActionListener callback) {
+        if (null != callback) {
+            callback.onSuccess(null);
+        }
+    }
+
+    @Override
+    public IMqttToken connect() {
+        return null;
+    }
+
+    @Override
+    public IMqttToken connect(MqttConnectOptions options) {
+        return null;
+    }
+
+    @Override
+    public IMqttToken connect(Object userContext, IMqttActionListener callback) {
+        success(callback);
+        return null;
+    }
+
+    @Override
+    public IMqttToken connect(MqttConnectOptions options, Object userContext, IMqttActionListener callback) {
+        success(callback);
+        return null;
+    }
+
+    @Override
+    public IMqttToken disconnect() {
+        return null;
+    }
+
+    @Override
+    public IMqttToken disconnect(long quiesceTimeout) {
+        return null;
+    }
+
+    @Override
+    public IMqttToken disconnect(Object userContext, IMqttActionListener callback) {
+        success(callback);
+        return null;
+    }
+
+    @Override
+    public IMqttToken disconnect(long quiesceTimeout, Object userContext, IMqttActionListener callback) {
+        success(callback);
+        return null;
+    }
+
+    @Override
+    public void disconnectForcibly() {
+
+    }
+
+    @Override
+    public void disconnectForcibly(long disconnectTimeout) {
+
+    }
+
+    @Override
+    public void disconnectForcibly(long quiesceTimeout, long disconnectTimeout) {
+
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public String getClientId() {
+        return clientId;
+    }
+
+    @Override
+    public String getServerURI() {
+        return "mock://%s".formatted(clientId);
+    }
+
+    @Override
+    public IMqttDeliveryToken publish(String topic, byte[] payload, int qos, boolean retained) throws MqttException {
+        return publish(topic, payload, qos, retained, null, null);
+    }
+
+    @Override
+    public IMqttDeliveryToken publish(String topic, byte[] payload, int qos, boolean retained, Object userContext, IMqttActionListener callback) throws MqttException {
+        final var message = new MqttMessage(payload);
+        message.setQos(qos);
+        message.setRetained(retained);
+        return publish(topic, message, userContext, callback);
+    }
+
+    @Override
+    public IMqttDeliveryToken publish(String topic, MqttMessage message) throws MqttException {
+        return publish(topic, message, null, null);
+    }
+
+    @Override
+    public IMqttDeliveryToken publish(String topic, MqttMessage message, Object userContext, IMqttActionListener callback) throws MqttException {
+        final var target = loopback.apply(topic);
+        if (null != target) {
+            try {
+                arrive(target, message);
+            } catch (Exception cause) {
+                throw new MqttException(cause);
+            }
+        }
+        success(callback);
+        return null;
+    }
+
+    @Override
+    public IMqttToken subscribe(String topicFilter, int qos) {
+        return subscribe(topicFilter, qos, null, null);
+    }
+
+    @Override
+    public IMqttToken subscribe(String topicFilter, int qos, Object userContext, IMqttActionListener callback) {
+        success(callback);
+        return null;
+    }
+
+    @Override
+    public IMqttToken subscribe(String[] topicFilters, int[] qos) {
+        return subscribe(topicFilters, qos, null, null);
+    }
+
+    @Override
+    public IMqttToken subscribe(String[] topicFilters, int[] qos, Object userContext, IMqttActionListener callback) {
+        success(callback);
+        return null;
+    }
+
+    @Override
+    public IMqttToken subscribe(String topicFilter, int qos, Object userContext, IMqttActionListener callback, IMqttMessageListener messageListener) {
+        listeners.put(topicFilter, messageListener);
+        success(callback);
+        return null;
+    }
+
+    @Override
+    public IMqttToken subscribe(String topicFilter, int qos, IMqttMessageListener messageListener) {
+        return subscribe(topicFilter, qos, null, null, messageListener);
+    }
+
+    @Override
+    public IMqttToken subscribe(String[] topicFilters, int[] qos, IMqttMessageListener[] messageListeners) {
+        return subscribe(topicFilters, qos, null, null, messageListeners);
+    }
+
+    @Override
+    public IMqttToken subscribe(String[] topicFilters, int[] qos, Object userContext, IMqttActionListener callback, IMqttMessageListener[] messageListeners) {
+        for (int index = 0; index < topicFilters.length; index++) {
+            listeners.put(topicFilters[index], messageListeners[index]);
+        }
+        success(callback);
+        return null;
+    }
+
+    @Override
+    public IMqttToken unsubscribe(String topicFilter) {
+        return unsubscribe(topicFilter, null, null);
+    }
+
+    @Override
+    public IMqttToken unsubscribe(String[] topicFilters) {
+        return unsubscribe(topicFilters, null, null);
+    }
+
+    @Override
+    public IMqttToken unsubscribe(String topicFilter, Object userContext, IMqttActionListener callback) {
+        listeners.remove(topicFilter);
+        success(callback);
+        return null;
+    }
+
+    @Override
+    public IMqttToken unsubscribe(String[] topicFilters, Object userContext, IMqttActionListener callback) {
+        for (final var topicFilter : topicFilters) {
+            listeners.remove(topicFilter);
+        }
+        success(callback);
+        return null;
+    }
+
+    @Override
+    public boolean removeMessage(IMqttDeliveryToken token) {
+        return false;
+    }
+
+    @Override
+    public void setCallback(MqttCallback callback) {
+        this.callback = callback;
+    }
+
+    @Override
+    public IMqttDeliveryToken[] getPendingDeliveryTokens() {
+        return new IMqttDeliveryToken[0];
+    }
+
+    @Override
+    public void setManualAcks(boolean manualAcks) {
+
+    }
+
+    @Override
+    public void reconnect() {
+
+    }
+
+    @Override
+    public void messageArrivedComplete(int messageId, int qos) {
+
+    }
+
+    @Override
+    public void setBufferOpts(DisconnectedBufferOptions bufferOpts) {
+
+    }
+
+    @Override
+    public int getBufferedMessageCount() {
+        return 0;
+    }
+
+    @Override
+    public MqttMessage getBufferedMessage(int bufferIndex) {
+        return null;
+    }
+
+    @Override
+    public void deleteBufferedMessage(int bufferIndex) {
+
+    }
+
+    @Override
+    public int getInFlightMessageCount() {
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        listeners.clear();
+    }
+
+}
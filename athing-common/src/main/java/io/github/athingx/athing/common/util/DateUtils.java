@@ -0,0 +1,123 @@
+package io.github.athingx.athing.common.util;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 日期工具类
+ */
+public class DateUtils {
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /**
+     * 解析ISO-8601时间为毫秒时间戳
+     * <p>
+     * {@code yyyy-MM-ddTHH:mm:ss[.S...]Z}格式（UTC，小数秒可选，超出毫秒的精度截断）走快速路径，
+     * 直接按位置读取数字计算，无锁、不分配对象；其他带时区偏移的格式回退到{@link OffsetDateTime}解析。
+     * </p>
+     *
+     * @param text ISO-8601时间
+     * @return 毫秒时间戳
+     * @throws IllegalArgumentException 格式非法
+     */
+    public static long parseIso8601(String text) {
+        if (null == text) {
+            throw new IllegalArgumentException("text is required!");
+        }
+        final long millis = parseUtcFast(text);
+        if (millis != Long.MIN_VALUE) {
+            return millis;
+        }
+        try {
+            return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+        } catch (DateTimeParseException cause) {
+            throw new IllegalArgumentException("illegal iso-8601 format: %s".formatted(text), cause);
+        }
+    }
+
+    // 快速路径，格式不符时返回Long.MIN_VALUE
+    private static long parseUtcFast(String text) {
+
+        final int length = text.length();
+        if (length < 20
+                || text.charAt(4) != '-'
+                || text.charAt(7) != '-'
+                || text.charAt(10) != 'T'
+                || text.charAt(13) != ':'
+                || text.charAt(16) != ':'
+                || text.charAt(length - 1) != 'Z') {
+            return Long.MIN_VALUE;
+        }
+
+        final int year = digits(text, 0, 4);
+        final int month = digits(text, 5, 2);
+        final int day = digits(text, 8, 2);
+        final int hour = digits(text, 11, 2);
+        final int minute = digits(text, 14, 2);
+        final int second = digits(text, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+
+        // 小数秒：没有或以'.'开头的1~9位数字，只取前三位
+        int millis = 0;
+        if (length != 20) {
+            final int fraction = length - 21;
+            if (text.charAt(19) != '.' || fraction < 1 || fraction > 9) {
+                return Long.MIN_VALUE;
+            }
+            for (int index = 0; index < fraction; index++) {
+                final int digit = text.charAt(20 + index) - '0';
+                if (digit < 0 || digit > 9) {
+                    return Long.MIN_VALUE;
+                }
+                if (index < 3) {
+                    millis = millis * 10 + digit;
+                }
+            }
+            for (int index = fraction; index < 3; index++) {
+                millis *= 10;
+            }
+        }
+
+        return epochDay(year, month, day) * MILLIS_PER_DAY
+                + hour * 3_600_000L
+                + minute * 60_000L
+                + second * 1_000L
+                + millis;
+    }
+
+    // 读取固定位数的十进制数，含非数字时返回-1
+    private static int digits(String text, int offset, int count) {
+        int value = 0;
+        for (int index = offset; index < offset + count; index++) {
+            final int digit = text.charAt(index) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int daysOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    // 公历日期到1970-01-01的天数
+    private static long epochDay(int year, int month, int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = Math.floorDiv(y, 400);
+        final int yoe = y - era * 400;
+        final int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097L + doe - 719468L;
+    }
+
+}
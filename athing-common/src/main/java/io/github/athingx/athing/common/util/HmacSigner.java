@@ -0,0 +1,95 @@
+package io.github.athingx.athing.common.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * HMAC签名器
+ * <p>
+ * 每个线程缓存已按密钥初始化的{@link Mac}（按最近使用保留{@value #MAX_CACHED_KEYS}个密钥），同一密钥重复签名不再查找算法提供者和初始化密钥；
+ * 缓存满时淘汰最久未用的密钥，并复用其{@link Mac}实例初始化新密钥。
+ * </p>
+ */
+public class HmacSigner {
+
+    private static final int MAX_CACHED_KEYS = 64;
+    private static final HmacSigner HMAC_SHA1 = new HmacSigner("HmacSHA1");
+
+    private final String algorithm;
+    private final ThreadLocal<Map<String, Mac>> macs = ThreadLocal.withInitial(() -> new LinkedHashMap<>(16, 0.75f, true));
+
+    /**
+     * HMAC签名器
+     *
+     * @param algorithm 算法
+     */
+    public HmacSigner(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * 获取HmacSHA1签名器
+     *
+     * @return HmacSHA1签名器
+     */
+    public static HmacSigner hmacSha1() {
+        return HMAC_SHA1;
+    }
+
+    /**
+     * 签名
+     *
+     * @param secret  密钥
+     * @param content 内容
+     * @return 签名
+     */
+    public byte[] sign(String secret, String content) {
+        return mac(secret).doFinal(content.getBytes(UTF_8));
+    }
+
+    /**
+     * 签名并转为16进制字符串
+     *
+     * @param secret  密钥
+     * @param content 内容
+     * @return 16进制签名
+     */
+    public String signAsHex(String secret, String content) {
+        return StringUtils.bytesToHexString(sign(secret, content));
+    }
+
+    // 获取当前线程上按密钥初始化的Mac
+    private Mac mac(String secret) {
+        final var cache = macs.get();
+        final var exist = cache.get(secret);
+        if (null != exist) {
+            return exist;
+        }
+
+        try {
+
+            // 缓存满时复用最久未用的Mac
+            final Mac mac;
+            if (cache.size() >= MAX_CACHED_KEYS) {
+                final Iterator<Mac> eldest = cache.values().iterator();
+                mac = eldest.next();
+                eldest.remove();
+            } else {
+                mac = Mac.getInstance(algorithm);
+            }
+
+            mac.init(new SecretKeySpec(secret.getBytes(UTF_8), algorithm));
+            cache.put(secret, mac);
+            return mac;
+        } catch (GeneralSecurityException cause) {
+            throw new IllegalStateException("init %s failure!".formatted(algorithm), cause);
+        }
+    }
+
+}
@@ -1,21 +1,26 @@
 package io.github.athingx.athing.common.util;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 public class StringUtils {
 
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
     /**
-     * 字节数组转16进制字符串
+     * 字节数组转16进制字符串（大写）
      *
      * @param bArray 目标字节数组
      * @return 16进制字符串
      */
     public static String bytesToHexString(final byte[] bArray) {
-        final StringBuilder sb = new StringBuilder(bArray.length * 2);
-        for (byte b : bArray) {
-            sb.append(String.format("%02X", b));
+        final byte[] hex = new byte[bArray.length * 2];
+        for (int i = 0; i < bArray.length; i++) {
+            final int b = bArray[i] & 0xFF;
+            hex[i * 2] = HEX_DIGITS[b >>> 4];
+            hex[i * 2 + 1] = HEX_DIGITS[b & 0x0F];
         }
-        return sb.toString();
+        return new String(hex, StandardCharsets.US_ASCII);
     }
 
     public static boolean equalsIgnoreCase(String expect, String actual) {
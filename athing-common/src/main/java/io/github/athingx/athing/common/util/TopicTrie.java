@@ -0,0 +1,165 @@
+package io.github.athingx.athing.common.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 主题前缀树
+ * <p>
+ * 按MQTT主题层级（{@code /}分隔）索引订阅表达式，支持单层通配符{@code +}和多层通配符{@code #}，
+ * 匹配一个主题的开销与主题层级深度相关，与登记的表达式数量无关。
+ * </p>
+ * <p>
+ * 写操作（登记、注销）互斥，读操作（匹配）无锁，适合读多写少的消息分发场景。
+ * </p>
+ *
+ * @param <V> 值类型
+ */
+public class TopicTrie<V> {
+
+    private static final String SINGLE = "+";
+    private static final String MULTI = "#";
+
+    private final Node<V> root = new Node<>(null, null);
+
+    /**
+     * 登记表达式
+     *
+     * @param express 订阅表达式
+     * @param value   值
+     */
+    public synchronized void add(String express, V value) {
+        Objects.requireNonNull(value, "value is required!");
+        var node = root;
+        for (final var level : express.split("/", -1)) {
+            final var parent = node;
+            node = parent.children.computeIfAbsent(level, key -> new Node<>(parent, key));
+        }
+        final var values = Arrays.copyOf(node.values, node.values.length + 1);
+        values[values.length - 1] = value;
+        node.values = values;
+    }
+
+    /**
+     * 注销表达式
+     *
+     * @param express 订阅表达式
+     * @param value   值
+     * @return 是否注销成功
+     */
+    public synchronized boolean remove(String express, V value) {
+
+        // 定位节点
+        var node = root;
+        for (final var level : express.split("/", -1)) {
+            node = node.children.get(level);
+            if (null == node) {
+                return false;
+            }
+        }
+
+        // 移除值
+        final var values = node.values;
+        int index = 0;
+        while (index < values.length && values[index] != value) {
+            index++;
+        }
+        if (index == values.length) {
+            return false;
+        }
+        final var removed = new Object[values.length - 1];
+        System.arraycopy(values, 0, removed, 0, index);
+        System.arraycopy(values, index + 1, removed, index, values.length - index - 1);
+        node.values = removed;
+
+        // 剪除空节点
+        while (node != root && node.values.length == 0 && node.children.isEmpty()) {
+            node.parent.children.remove(node.level, node);
+            node = node.parent;
+        }
+        return true;
+    }
+
+    /**
+     * 匹配主题
+     *
+     * @param topic   主题
+     * @param visitor 匹配值访问者，同一个值登记了多个匹配的表达式时会被访问多次
+     */
+    public void match(String topic, Consumer<? super V> visitor) {
+        match(root, topic, 0, !topic.startsWith("$"), visitor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> void visit(Node<V> node, Consumer<? super V> visitor) {
+        for (final var value : node.values) {
+            visitor.accept((V) value);
+        }
+    }
+
+    /**
+     * 递归匹配
+     *
+     * @param node     当前节点
+     * @param topic    主题
+     * @param begin    当前层级的起始位置，{@code -1}表示主题已经匹配完毕
+     * @param wildcard 当前层级是否允许通配（{@code $}开头的主题首层不匹配通配符）
+     * @param visitor  匹配值访问者
+     */
+    private static <V> void match(Node<V> node, String topic, int begin, boolean wildcard, Consumer<? super V> visitor) {
+
+        // 多层通配符匹配当前层级及其所有子层级（包括父层级本身）
+        if (wildcard) {
+            final var multi = node.children.get(MULTI);
+            if (null != multi) {
+                visit(multi, visitor);
+            }
+        }
+
+        // 主题已经匹配完毕
+        if (begin < 0) {
+            visit(node, visitor);
+            return;
+        }
+
+        final int end = topic.indexOf('/', begin);
+        final int next = end < 0 ? -1 : end + 1;
+        final var exact = node.children.get(end < 0 ? topic.substring(begin) : topic.substring(begin, end));
+        if (null != exact) {
+            match(exact, topic, next, true, visitor);
+        }
+        if (wildcard) {
+            final var single = node.children.get(SINGLE);
+            if (null != single) {
+                match(single, topic, next, true, visitor);
+            }
+        }
+    }
+
+    /**
+     * 判断前缀树是否为空
+     *
+     * @return TRUE | FALSE
+     */
+    public boolean isEmpty() {
+        return root.children.isEmpty();
+    }
+
+    private static class Node<V> {
+
+        final Node<V> parent;
+        final String level;
+        final Map<String, Node<V>> children = new ConcurrentHashMap<>();
+        volatile Object[] values = new Object[0];
+
+        Node(Node<V> parent, String level) {
+            this.parent = parent;
+            this.level = level;
+        }
+
+    }
+
+}
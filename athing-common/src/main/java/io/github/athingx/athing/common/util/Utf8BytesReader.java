@@ -0,0 +1,151 @@
+package io.github.athingx.athing.common.util;
+
+import java.io.Reader;
+
+import static java.util.Objects.checkFromIndexSize;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * UTF-8字节数组字符流
+ * <p>
+ * 直接把字节数组按UTF-8解码到调用方的字符缓冲区，不产生中间字符串和字节缓冲区；
+ * 非法的编码序列解码为{@code U+FFFD}。非线程安全。
+ * </p>
+ */
+public class Utf8BytesReader extends Reader {
+
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private final byte[] bytes;
+    private final int limit;
+    private int position;
+
+    /**
+     * 挂起的低代理项，四字节序列解码为代理对时，缓冲区不足以放下低代理项则留到下次读取
+     */
+    private int pendingLowSurrogate = -1;
+
+    /**
+     * UTF-8字节数组字符流
+     *
+     * @param bytes 字节数组
+     */
+    public Utf8BytesReader(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * UTF-8字节数组字符流
+     *
+     * @param bytes  字节数组
+     * @param offset 起始位置
+     * @param length 长度
+     */
+    public Utf8BytesReader(byte[] bytes, int offset, int length) {
+        requireNonNull(bytes, "bytes is required!");
+        checkFromIndexSize(offset, length, bytes.length);
+        this.bytes = bytes;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) {
+        checkFromIndexSize(offset, length, buffer.length);
+        if (length == 0) {
+            return 0;
+        }
+
+        int index = offset;
+        final int end = offset + length;
+
+        if (pendingLowSurrogate >= 0) {
+            buffer[index++] = (char) pendingLowSurrogate;
+            pendingLowSurrogate = -1;
+        }
+
+        while (index < end && position < limit) {
+            final int b0 = bytes[position];
+
+            // ASCII
+            if (b0 >= 0) {
+                buffer[index++] = (char) b0;
+                position++;
+                continue;
+            }
+
+            final int codePoint = decode(b0 & 0xFF);
+            if (codePoint < 0x10000) {
+                buffer[index++] = (char) codePoint;
+            } else {
+                buffer[index++] = Character.highSurrogate(codePoint);
+                final char low = Character.lowSurrogate(codePoint);
+                if (index < end) {
+                    buffer[index++] = low;
+                } else {
+                    pendingLowSurrogate = low;
+                }
+            }
+        }
+
+        return index == offset ? -1 : index - offset;
+    }
+
+    // 解码一个多字节序列，返回码点并推进位置；非法序列按Unicode推荐的最大有效子序列逐段替换
+    private int decode(int b0) {
+
+        // 根据首字节确定序列长度和第二字节的合法范围（排除过长编码、代理项和越界码点）
+        final int size;
+        int lower = 0x80, upper = 0xBF;
+        int codePoint;
+        if (b0 >= 0xC2 && b0 <= 0xDF) {
+            size = 2;
+            codePoint = b0 & 0x1F;
+        } else if (b0 >= 0xE0 && b0 <= 0xEF) {
+            size = 3;
+            codePoint = b0 & 0x0F;
+            if (b0 == 0xE0) {
+                lower = 0xA0;
+            } else if (b0 == 0xED) {
+                upper = 0x9F;
+            }
+        } else if (b0 >= 0xF0 && b0 <= 0xF4) {
+            size = 4;
+            codePoint = b0 & 0x07;
+            if (b0 == 0xF0) {
+                lower = 0x90;
+            } else if (b0 == 0xF4) {
+                upper = 0x8F;
+            }
+        } else {
+            position++;
+            return REPLACEMENT;
+        }
+
+        // 逐个读取后续字节，遇到非法字节时在该字节前截断
+        int cursor = position + 1;
+        for (int i = 1; i < size; i++, cursor++) {
+            final int b = cursor < limit ? bytes[cursor] & 0xFF : -1;
+            if (b < lower || b > upper) {
+                position = cursor;
+                return REPLACEMENT;
+            }
+            codePoint = (codePoint << 6) | (b & 0x3F);
+            lower = 0x80;
+            upper = 0xBF;
+        }
+        position = cursor;
+        return codePoint;
+    }
+
+    @Override
+    public boolean ready() {
+        return position < limit || pendingLowSurrogate >= 0;
+    }
+
+    @Override
+    public void close() {
+
+    }
+
+}
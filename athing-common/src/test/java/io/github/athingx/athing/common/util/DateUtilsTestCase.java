@@ -0,0 +1,70 @@
+package io.github.athingx.athing.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+/**
+ * 日期工具类测试用例
+ */
+public class DateUtilsTestCase {
+
+    private static long expect(String text) {
+        return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void test$iso8601$utc() {
+        for (final var text : new String[]{
+                "1970-01-01T00:00:00Z",
+                "2024-02-29T23:59:59Z",
+                "2023-12-31T08:30:15.1Z",
+                "2023-12-31T08:30:15.12Z",
+                "2023-12-31T08:30:15.123Z",
+                "1969-12-31T23:59:59.999Z",
+                "1900-03-01T00:00:00Z",
+                "2400-02-29T12:00:00Z"
+        }) {
+            Assert.assertEquals(text, expect(text), DateUtils.parseIso8601(text));
+        }
+    }
+
+    @Test
+    public void test$iso8601$truncate() {
+        Assert.assertEquals(
+                Instant.parse("2023-06-01T10:20:30.123Z").toEpochMilli(),
+                DateUtils.parseIso8601("2023-06-01T10:20:30.123456789Z")
+        );
+    }
+
+    @Test
+    public void test$iso8601$offset() {
+        for (final var text : new String[]{
+                "2023-06-01T18:20:30+08:00",
+                "2023-06-01T10:20:30.5-03:30",
+                "2023-06-01T10:20:30.000+00:00"
+        }) {
+            Assert.assertEquals(text, expect(text), DateUtils.parseIso8601(text));
+        }
+    }
+
+    @Test
+    public void test$iso8601$illegal() {
+        for (final var text : new String[]{
+                "",
+                "2023-06-01",
+                "2023-06-01 10:20:30Z",
+                "2023-13-01T10:20:30Z",
+                "2023-02-29T10:20:30Z",
+                "2023-06-01T24:00:00Z",
+                "2023-06-01T10:20:30.1234567890Z",
+                "2023-06-01T10:2a:30Z"
+        }) {
+            Assert.assertThrows(text, IllegalArgumentException.class, () -> DateUtils.parseIso8601(text));
+        }
+        Assert.assertThrows(IllegalArgumentException.class, () -> DateUtils.parseIso8601(null));
+    }
+
+}
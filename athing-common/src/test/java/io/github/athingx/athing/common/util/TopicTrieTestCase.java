@@ -0,0 +1,49 @@
+package io.github.athingx.athing.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 主题前缀树测试用例
+ */
+public class TopicTrieTestCase {
+
+    private static Set<String> match(TopicTrie<String> trie, String topic) {
+        final var matched = new HashSet<String>();
+        trie.match(topic, matched::add);
+        return matched;
+    }
+
+    @Test
+    public void test$topic_trie$match() {
+        final var trie = new TopicTrie<String>();
+        trie.add("/sys/pk/dn/thing/service/property/set", "exact");
+        trie.add("/sys/pk/dn/thing/service/+", "single");
+        trie.add("/sys/pk/dn/#", "multi");
+        trie.add("/sys/+/+/thing/event/+/post_reply", "event");
+
+        Assert.assertEquals(Set.of("exact", "multi"), match(trie, "/sys/pk/dn/thing/service/property/set"));
+        Assert.assertEquals(Set.of("single", "multi"), match(trie, "/sys/pk/dn/thing/service/echo"));
+        Assert.assertEquals(Set.of("multi", "event"), match(trie, "/sys/pk/dn/thing/event/property/post_reply"));
+        Assert.assertEquals(Set.of("multi"), match(trie, "/sys/pk/dn"));
+        Assert.assertEquals(Set.of(), match(trie, "/sys/pk/other/thing/service/echo"));
+    }
+
+    @Test
+    public void test$topic_trie$remove() {
+        final var trie = new TopicTrie<String>();
+        trie.add("/sys/pk/dn/thing/service/+", "a");
+        trie.add("/sys/pk/dn/thing/service/+", "b");
+
+        Assert.assertTrue(trie.remove("/sys/pk/dn/thing/service/+", "a"));
+        Assert.assertFalse(trie.remove("/sys/pk/dn/thing/service/+", "a"));
+        Assert.assertEquals(Set.of("b"), match(trie, "/sys/pk/dn/thing/service/echo"));
+
+        Assert.assertTrue(trie.remove("/sys/pk/dn/thing/service/+", "b"));
+        Assert.assertTrue(trie.isEmpty());
+    }
+
+}
@@ -0,0 +1,43 @@
+package io.github.athingx.athing.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Reader;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * UTF-8字节数组字符流测试用例
+ */
+public class Utf8BytesReaderTestCase {
+
+    private static String read(Reader reader, int bufferSize) throws Exception {
+        final var builder = new StringBuilder();
+        final var buffer = new char[bufferSize];
+        int size;
+        while ((size = reader.read(buffer, 0, buffer.length)) >= 0) {
+            builder.append(buffer, 0, size);
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void test$utf8$decode() throws Exception {
+        final var text = "{\"name\":\"温度\",\"emoji\":\"😀\",\"value\":\"Ω-é\"}";
+        final var bytes = text.getBytes(UTF_8);
+        for (int bufferSize = 1; bufferSize <= 8; bufferSize++) {
+            Assert.assertEquals(text, read(new Utf8BytesReader(bytes), bufferSize));
+        }
+    }
+
+    @Test
+    public void test$utf8$malformed() throws Exception {
+        final var bytes = new byte[]{
+                'a', (byte) 0xE6, (byte) 0xB8, 'b', (byte) 0xC0, (byte) 0x80, (byte) 0xFF,
+                (byte) 0xED, (byte) 0xA0, (byte) 0x80, (byte) 0xF0, (byte) 0x9F, (byte) 0x98
+        };
+        Assert.assertEquals("a\uFFFDb" + "\uFFFD".repeat(7), read(new Utf8BytesReader(bytes), 16));
+    }
+
+}
@@ -1,6 +1,14 @@
 package io.github.athingx.athing.platform.api;
 
+import io.github.athingx.athing.platform.api.fanout.ThingFanoutOperation;
+import io.github.athingx.athing.platform.api.fanout.ThingFanoutOption;
+import io.github.athingx.athing.platform.api.fanout.ThingFanoutResult;
 import io.github.athingx.athing.platform.api.message.decoder.ThingMessageDecoder;
+import io.github.athingx.athing.platform.api.presence.ThingPresence;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * 设备平台
@@ -43,6 +51,37 @@ public interface ThingPlatform {
      */
     <T extends ThingTemplate> void register(Class<T> type, ThingTemplateFactory<T> factory, ThingMessageDecoder<?> decoder);
 
+    /**
+     * 批量下发
+     * <p>
+     * 对同一产品下的一组设备逐个生成设备模板并执行操作，按选项控制并行度并根据流控自适应调整速率，
+     * 每个设备的结果在完成时立即回调（回调可能来自多个线程）。
+     * </p>
+     *
+     * @param type      模板类型
+     * @param productId 产品ID
+     * @param thingIds  设备ID集合
+     * @param option    批量下发选项
+     * @param operation 批量下发操作
+     * @param listener  单设备结果监听器
+     * @param <T>       模板类型
+     * @param <R>       结果类型
+     * @return 批量下发凭证，所有设备结束后完成；取消凭证将停止下发尚未开始的设备
+     */
+    <T extends ThingTemplate, R> CompletableFuture<Void> fanout(Class<T> type,
+                                                                String productId,
+                                                                Collection<String> thingIds,
+                                                                ThingFanoutOption option,
+                                                                ThingFanoutOperation<T, R> operation,
+                                                                Consumer<ThingFanoutResult<R>> listener);
+
+    /**
+     * 获取设备在线状态索引
+     *
+     * @return 设备在线状态索引
+     */
+    ThingPresence presence();
+
     /**
      * 销毁设备平台
      */
@@ -1,12 +1,16 @@
 package io.github.athingx.athing.platform.api;
 
+import static io.github.athingx.athing.common.ThingCodes.REQUEST_ERROR;
+
 /**
  * 设备平台异常
  */
 public class ThingPlatformException extends Exception {
 
+    private final int code;
+
     public ThingPlatformException(Throwable cause) {
-        super(cause);
+        this(REQUEST_ERROR, null == cause ? null : cause.toString(), cause);
     }
 
     /**
@@ -16,7 +20,7 @@ public class ThingPlatformException extends Exception {
      * @param cause   错误原因
      */
     public ThingPlatformException(String message, Throwable cause) {
-        super(message, cause);
+        this(REQUEST_ERROR, message, cause);
     }
 
     /**
@@ -25,7 +29,28 @@ public class ThingPlatformException extends Exception {
      * @param message 错误信息
      */
     public ThingPlatformException(String message) {
-        super(message);
+        this(REQUEST_ERROR, message, null);
+    }
+
+    /**
+     * 设备平台异常
+     *
+     * @param code    错误编码，参考{@link io.github.athingx.athing.common.ThingCodes}
+     * @param message 错误信息
+     * @param cause   错误原因
+     */
+    public ThingPlatformException(int code, String message, Throwable cause) {
+        super(message, cause);
+        this.code = code;
+    }
+
+    /**
+     * 获取错误编码
+     *
+     * @return 错误编码
+     */
+    public int getCode() {
+        return code;
     }
 
 }
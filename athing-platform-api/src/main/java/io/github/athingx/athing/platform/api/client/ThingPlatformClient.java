@@ -2,6 +2,8 @@ package io.github.athingx.athing.platform.api.client;
 
 import io.github.athingx.athing.platform.api.ThingPlatformException;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 设备平台客户端
  */
@@ -19,6 +21,28 @@ public interface ThingPlatformClient {
      */
     <T, R> R execute(T request, Class<R> responseClass) throws ThingPlatformException;
 
+    /**
+     * 异步执行请求
+     * <p>
+     * 默认在调用线程上同步执行后返回已完成的凭证，实现应提交到有界的I/O线程池执行，不阻塞调用线程。
+     * </p>
+     *
+     * @param request       请求
+     * @param responseClass 响应类型
+     * @param <T>           请求类型
+     * @param <R>           响应类型
+     * @return 响应凭证，执行失败时以{@link ThingPlatformException}异常完成
+     */
+    default <T, R> CompletableFuture<R> executeAsync(T request, Class<R> responseClass) {
+        final var future = new CompletableFuture<R>();
+        try {
+            future.complete(execute(request, responseClass));
+        } catch (Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+        return future;
+    }
+
     /**
      * 关闭平台客户端
      */
@@ -0,0 +1,27 @@
+package io.github.athingx.athing.platform.api.fanout;
+
+import io.github.athingx.athing.platform.api.ThingTemplate;
+
+/**
+ * 批量下发操作
+ *
+ * @param <T> 模板类型
+ * @param <R> 结果类型
+ */
+@FunctionalInterface
+public interface ThingFanoutOperation<T extends ThingTemplate, R> {
+
+    /**
+     * 对单个设备执行操作
+     * <p>
+     * 抛出编码为{@link io.github.athingx.athing.common.ThingCodes#TOO_MANY_REQUESTS}的
+     * {@link io.github.athingx.athing.platform.api.ThingPlatformException}时视为被流控，将降速后重试。
+     * </p>
+     *
+     * @param template 设备模板
+     * @return 操作结果
+     * @throws Exception 操作失败
+     */
+    R execute(T template) throws Exception;
+
+}
@@ -0,0 +1,101 @@
+package io.github.athingx.athing.platform.api.fanout;
+
+/**
+ * 批量下发选项
+ * <p>
+ * 下发速率从初始速率开始自适应：首次被流控前每次成功速率加1（慢启动，约每秒翻倍），
+ * 之后采用加性增、乘性减（AIMD），每次成功按{@code 1/当前速率}增加（约每秒加1次/秒），每次被流控速率减半；
+ * 速率始终限制在{@link #rate(double, double)}设定的范围内。
+ * </p>
+ * <p>
+ * 注意：平台客户端自身也会对被流控的请求退避重试，批量下发只有在客户端重试用尽后才感知到流控，
+ * 降速因此滞后，且总尝试次数为两者重试次数之积；使用批量下发时建议关闭客户端的流控重试（{@code ThrottleOption.retries(0)}）。
+ * </p>
+ */
+public class ThingFanoutOption {
+
+    private int parallelism = 16;
+    private double rate = 20;
+    private double minRate = 1;
+    private double maxRate = 500;
+    private int retries = 3;
+
+    /**
+     * 并行度，同时执行中的设备操作上限
+     *
+     * @param parallelism 并行度
+     * @return this
+     */
+    public ThingFanoutOption parallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive!");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 初始速率
+     *
+     * @param rate 初始速率（次/秒）
+     * @return this
+     */
+    public ThingFanoutOption rate(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive!");
+        }
+        this.rate = rate;
+        return this;
+    }
+
+    /**
+     * 速率范围
+     *
+     * @param minRate 最低速率（次/秒）
+     * @param maxRate 最高速率（次/秒）
+     * @return this
+     */
+    public ThingFanoutOption rate(double minRate, double maxRate) {
+        if (minRate <= 0 || maxRate < minRate) {
+            throw new IllegalArgumentException("illegal rate range!");
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        return this;
+    }
+
+    /**
+     * 流控重试次数，被流控的设备操作降速后重新排队，超过次数则以流控异常结束
+     *
+     * @param retries 流控重试次数
+     * @return this
+     */
+    public ThingFanoutOption retries(int retries) {
+        if (retries < 0) {
+            throw new IllegalArgumentException("retries must not be negative!");
+        }
+        this.retries = retries;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public double getMinRate() {
+        return minRate;
+    }
+
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+}
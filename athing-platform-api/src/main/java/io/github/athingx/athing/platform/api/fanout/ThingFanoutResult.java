@@ -0,0 +1,24 @@
+package io.github.athingx.athing.platform.api.fanout;
+
+/**
+ * 批量下发的单设备结果
+ *
+ * @param productId 产品ID
+ * @param thingId   设备ID
+ * @param value     操作结果，失败时为{@code null}
+ * @param cause     失败原因，成功时为{@code null}
+ * @param attempts  执行次数（含流控重试）
+ * @param <R>       结果类型
+ */
+public record ThingFanoutResult<R>(String productId, String thingId, R value, Throwable cause, int attempts) {
+
+    /**
+     * 是否成功
+     *
+     * @return TRUE | FALSE
+     */
+    public boolean isSuccess() {
+        return null == cause;
+    }
+
+}
@@ -3,28 +3,43 @@ package io.github.athingx.athing.platform.api.message.decoder;
 
 import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 import io.github.athingx.athing.common.gson.GsonFactory;
 import io.github.athingx.athing.platform.api.message.ThingLifeCycleMessage;
 
+import java.io.StringReader;
 import java.util.Date;
+import java.util.regex.Pattern;
 
 /**
  * 设备生命周期消息解码器
  *
  * @see <a href="https://help.aliyun.com/document_detail/73736.html#title-0im-t30-d4l">设备生命周期变更</a>
  */
-public class ThingLifeCycleMessageDecoder implements ThingMessageDecoder<ThingLifeCycleMessage> {
+public class ThingLifeCycleMessageDecoder implements ThingMessageStreamDecoder<ThingLifeCycleMessage> {
+
+    private static final Pattern TOPIC_PATTERN = Pattern.compile("^/[^/]+/[^/]+/thing/lifecycle");
 
     private final Gson gson = GsonFactory.getGson();
 
+    @Override
+    public String express() {
+        return "/+/+/thing/lifecycle";
+    }
+
     @Override
     public ThingLifeCycleMessage[] decode(String jmsMessageId, String jmsMessageTopic, String jmsMessageBody) {
+        return decode(jmsMessageId, jmsMessageTopic, new JsonReader(new StringReader(jmsMessageBody)));
+    }
+
+    @Override
+    public ThingLifeCycleMessage[] decode(String jmsMessageId, String jmsMessageTopic, JsonReader reader) {
 
-        if (!jmsMessageTopic.matches("^/[^/]+/[^/]+/thing/lifecycle")) {
+        if (!TOPIC_PATTERN.matcher(jmsMessageTopic).matches()) {
             return null;
         }
 
-        final Data data = gson.fromJson(jmsMessageBody, Data.class);
+        final Data data = gson.<Data>fromJson(reader, Data.class);
         return new ThingLifeCycleMessage[]{
                 new ThingLifeCycleMessage(
                         data.productId,
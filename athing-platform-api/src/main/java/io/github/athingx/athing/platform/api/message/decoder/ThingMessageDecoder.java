@@ -7,6 +7,19 @@ import io.github.athingx.athing.platform.api.message.ThingMessage;
  */
 public interface ThingMessageDecoder<T extends ThingMessage> {
 
+    /**
+     * 解码主题表达式
+     * <p>
+     * MQTT风格的主题过滤表达式（支持{@code +}和{@code #}），消费者据此建立主题索引，
+     * 只有主题匹配的消息才会交给该解码器尝试解码；默认匹配所有主题。
+     * </p>
+     *
+     * @return 主题表达式
+     */
+    default String express() {
+        return "#";
+    }
+
     /**
      * 解码
      *
@@ -0,0 +1,36 @@
+package io.github.athingx.athing.platform.api.message.decoder;
+
+import com.google.gson.stream.JsonReader;
+import io.github.athingx.athing.platform.api.message.ThingMessage;
+
+import java.io.StringReader;
+
+/**
+ * 设备消息流式解码器
+ * <p>
+ * 直接从JMS消息的原始字节上的{@link JsonReader}解码，消息体只解析一次，
+ * 不构造中间字符串和JSON树；消费者优先以流式方式调用，字符串方式仅为兼容保留。
+ * </p>
+ */
+public interface ThingMessageStreamDecoder<T extends ThingMessage> extends ThingMessageDecoder<T> {
+
+    /**
+     * 流式解码
+     * <p>
+     * 主题不匹配时应在读取前直接返回，读取器每次调用都是新建的，无需复位。
+     * </p>
+     *
+     * @param jmsMessageId    JMS消息ID
+     * @param jmsMessageTopic JMS消息主题
+     * @param reader          JMS消息内容（JSON）读取器
+     * @return 设备消息
+     * @throws DecodeException 解码异常
+     */
+    T[] decode(String jmsMessageId, String jmsMessageTopic, JsonReader reader) throws DecodeException;
+
+    @Override
+    default T[] decode(String jmsMessageId, String jmsMessageTopic, String jmsMessageBody) throws DecodeException {
+        return decode(jmsMessageId, jmsMessageTopic, new JsonReader(new StringReader(jmsMessageBody)));
+    }
+
+}
@@ -1,33 +1,70 @@
 package io.github.athingx.athing.platform.api.message.decoder;
 
+import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
-import com.google.gson.annotations.SerializedName;
-import io.github.athingx.athing.common.gson.GsonFactory;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.github.athingx.athing.platform.api.message.ThingReplyMessage;
 
+import java.io.IOException;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 /**
  * 设备应答消息解码器
  *
  * @see <a href="https://help.aliyun.com/document_detail/73736.html#title-9p8-2jl-sv4">设备下行指令结果</a>
  */
-public abstract class ThingReplyMessageDecoder implements ThingMessageDecoder<ThingReplyMessage> {
+public abstract class ThingReplyMessageDecoder implements ThingMessageStreamDecoder<ThingReplyMessage> {
+
+    private static final Pattern TOPIC_PATTERN = Pattern.compile("^/[^/]+/[^/]+/thing/downlink/reply/message$");
 
     @Override
-    public ThingReplyMessage[] decode(String jmsMessageId, String jmsMessageTopic, String jmsMessageBody) throws DecodeException {
+    public String express() {
+        return "/+/+/thing/downlink/reply/message";
+    }
+
+    @Override
+    public ThingReplyMessage[] decode(String jmsMessageId, String jmsMessageTopic, JsonReader reader) throws DecodeException {
 
         // 检查是否设备应答返回消息
-        if (!jmsMessageTopic.matches("^/[^/]+/[^/]+/thing/downlink/reply/message$")) {
+        if (!TOPIC_PATTERN.matcher(jmsMessageTopic).matches()) {
             return null;
         }
 
-        // 解析应答头信息
-        final JsonObject root = JsonParser.parseString(jmsMessageBody).getAsJsonObject();
+        // 流式读取应答头，其余成员（如应答数据）交给子类，仍需构造为JSON树
+        final JsonObject root = new JsonObject();
+        String productId = null, thingId = null, topic = null, token = null, message = null;
+        long timestamp = 0;
+        int code = 0;
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    root.add(name, JsonNull.INSTANCE);
+                    continue;
+                }
+                switch (name) {
+                    case "productKey" -> root.addProperty(name, productId = reader.nextString());
+                    case "deviceName" -> root.addProperty(name, thingId = reader.nextString());
+                    case "topic" -> root.addProperty(name, topic = reader.nextString());
+                    case "gmtCreate" -> root.addProperty(name, timestamp = reader.nextLong());
+                    case "requestId" -> root.addProperty(name, token = reader.nextString());
+                    case "code" -> root.addProperty(name, code = reader.nextInt());
+                    case "message" -> root.addProperty(name, message = reader.nextString());
+                    default -> root.add(name, JsonParser.parseReader(reader));
+                }
+            }
+            reader.endObject();
+        } catch (IOException | JsonParseException | IllegalStateException | NumberFormatException cause) {
+            throw new DecodeException(this, cause);
+        }
 
-        // 解析应答
-        final ReplyHeader header = GsonFactory.getGson().fromJson(root, ReplyHeader.class);
+        final ReplyHeader header = new ReplyHeader(productId, thingId, topic, timestamp, token, code, message);
         Objects.requireNonNull(header.productId);
         Objects.requireNonNull(header.thingId);
         Objects.requireNonNull(header.topic);
@@ -41,7 +78,7 @@ public abstract class ThingReplyMessageDecoder implements ThingMessageDecoder<Th
      * 应答解码
      *
      * @param header 应答头
-     * @param root   消息体（JSON根节点）
+     * @param root   消息体（JSON根节点），应答头字段也保留在其中
      * @return 设备消息
      * @throws DecodeException 解码失败
      */
@@ -51,13 +88,13 @@ public abstract class ThingReplyMessageDecoder implements ThingMessageDecoder<Th
      * 应答头
      */
     protected record ReplyHeader(
-            @SerializedName("productKey") String productId,
-            @SerializedName("deviceName") String thingId,
-            @SerializedName("topic") String topic,
-            @SerializedName("gmtCreate") long timestamp,
-            @SerializedName("requestId") String token,
-            @SerializedName("code") int code,
-            @SerializedName("message") String message
+            String productId,
+            String thingId,
+            String topic,
+            long timestamp,
+            String token,
+            int code,
+            String message
     ) {
 
     }
@@ -2,36 +2,41 @@ package io.github.athingx.athing.platform.api.message.decoder;
 
 import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 import io.github.athingx.athing.common.gson.GsonFactory;
 import io.github.athingx.athing.platform.api.message.ThingStateMessage;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.TimeZone;
+import java.util.regex.Pattern;
+
+import static io.github.athingx.athing.common.util.DateUtils.parseIso8601;
 
 /**
  * 设备状态消息解码器
  *
  * @see <a href="https://help.aliyun.com/document_detail/73736.html#title-2ll-4j3-1wx">设备上下线状态</a>
  */
-public class ThingStateMessageDecoder implements ThingMessageDecoder<ThingStateMessage> {
+public class ThingStateMessageDecoder implements ThingMessageStreamDecoder<ThingStateMessage> {
+
+    private static final Pattern TOPIC_PATTERN = Pattern.compile("/as/mqtt/status/[^/]+/[^/]+");
 
     private final Gson gson = GsonFactory.getGson();
 
     @Override
-    public ThingStateMessage[] decode(String jmsMessageId, String jmsMessageTopic, String jmsMessageBody) throws DecodeException {
+    public String express() {
+        return "/as/mqtt/status/+/+";
+    }
+
+    @Override
+    public ThingStateMessage[] decode(String jmsMessageId, String jmsMessageTopic, JsonReader reader) throws DecodeException {
 
-        if (!jmsMessageTopic.matches("/as/mqtt/status/[^/]+/[^/]+")) {
+        if (!TOPIC_PATTERN.matcher(jmsMessageTopic).matches()) {
             return null;
         }
 
-        final Data data = gson.fromJson(jmsMessageBody, Data.class);
-        final SimpleDateFormat utcDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-        utcDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-
+        final Data data = gson.<Data>fromJson(reader, Data.class);
         try {
-            final long utcOccurTimestamp = utcDateFormat.parse(data.utcTime).getTime();
-            final long utcLastTimestamp = utcDateFormat.parse(data.utcLastTime).getTime();
+            final long utcOccurTimestamp = parseIso8601(data.utcTime);
+            final long utcLastTimestamp = parseIso8601(data.utcLastTime);
             return new ThingStateMessage[]{
                     new ThingStateMessage(
                             data.productId,
@@ -42,7 +47,7 @@ public class ThingStateMessageDecoder implements ThingMessageDecoder<ThingStateM
                             data.clientIp
                     )
             };
-        } catch (ParseException cause) {
+        } catch (IllegalArgumentException cause) {
             throw new DecodeException(
                     this,
                     "illegal utc format, occur=%s;last=%s;".formatted(data.utcTime, data.utcLastTime),
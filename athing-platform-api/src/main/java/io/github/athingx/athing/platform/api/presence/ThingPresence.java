@@ -0,0 +1,59 @@
+package io.github.athingx.athing.platform.api.presence;
+
+import java.util.function.Consumer;
+
+/**
+ * 设备在线状态索引
+ * <p>
+ * 由设备状态消息实时维护，按消息时间戳丢弃乱序到达的旧状态；设备删除时移出索引。
+ * 只包含平台启动后收到过状态消息的设备。
+ * </p>
+ */
+public interface ThingPresence {
+
+    /**
+     * 获取设备在线状态
+     *
+     * @param productId 产品ID
+     * @param thingId   设备ID
+     * @return 设备在线状态，未收到过状态消息时为{@code null}
+     */
+    ThingPresenceState get(String productId, String thingId);
+
+    /**
+     * 设备是否在线
+     *
+     * @param productId 产品ID
+     * @param thingId   设备ID
+     * @return TRUE | FALSE，未收到过状态消息时为FALSE
+     */
+    boolean isOnline(String productId, String thingId);
+
+    /**
+     * 遍历产品下的设备在线状态
+     * <p>
+     * 遍历期间阻塞该产品的状态更新，回调中不应执行耗时操作。
+     * </p>
+     *
+     * @param productId 产品ID
+     * @param action    遍历动作
+     */
+    void forEach(String productId, Consumer<ThingPresenceState> action);
+
+    /**
+     * 获取产品下的设备数
+     *
+     * @param productId 产品ID
+     * @return 设备数
+     */
+    int count(String productId);
+
+    /**
+     * 获取产品下的在线设备数
+     *
+     * @param productId 产品ID
+     * @return 在线设备数
+     */
+    int countOnline(String productId);
+
+}
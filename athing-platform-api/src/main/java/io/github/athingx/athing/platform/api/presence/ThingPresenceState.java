@@ -0,0 +1,31 @@
+package io.github.athingx.athing.platform.api.presence;
+
+import io.github.athingx.athing.platform.api.message.ThingStateMessage;
+
+/**
+ * 设备在线状态快照
+ *
+ * @param productId           产品ID
+ * @param thingId             设备ID
+ * @param state               设备在线状态
+ * @param timestamp           状态消息时间戳
+ * @param lastOnlineTimestamp 最后上线时间戳
+ * @param lastOnlineIp        最后上线IP地址，未知时为{@code null}
+ */
+public record ThingPresenceState(String productId,
+                                 String thingId,
+                                 ThingStateMessage.State state,
+                                 long timestamp,
+                                 long lastOnlineTimestamp,
+                                 String lastOnlineIp) {
+
+    /**
+     * 是否在线
+     *
+     * @return TRUE | FALSE
+     */
+    public boolean isOnline() {
+        return state == ThingStateMessage.State.ONLINE;
+    }
+
+}
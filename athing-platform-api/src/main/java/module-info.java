@@ -2,8 +2,10 @@ open module athing.platform.api {
 
     exports io.github.athingx.athing.platform.api;
     exports io.github.athingx.athing.platform.api.client;
+    exports io.github.athingx.athing.platform.api.fanout;
     exports io.github.athingx.athing.platform.api.message;
     exports io.github.athingx.athing.platform.api.message.decoder;
+    exports io.github.athingx.athing.platform.api.presence;
 
     requires transitive athing.common;
 
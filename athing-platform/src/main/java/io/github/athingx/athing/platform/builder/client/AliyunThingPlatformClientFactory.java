@@ -4,6 +4,8 @@ import com.aliyuncs.v5.profile.DefaultProfile;
 import io.github.athingx.athing.platform.api.client.ThingPlatformClient;
 import io.github.athingx.athing.platform.impl.client.ThingPlatformClientImpl;
 
+import java.util.function.Function;
+
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -14,6 +16,9 @@ public class AliyunThingPlatformClientFactory implements ThingPlatformClientFact
     private String identity;
     private String secret;
     private String region = "cn-shanghai";
+    private int concurrency = 32;
+    private int backlog = 65536;
+    private ThrottleOption throttleOpt = new ThrottleOption();
 
     /**
      * 账号
@@ -48,6 +53,55 @@ public class AliyunThingPlatformClientFactory implements ThingPlatformClientFact
         return this;
     }
 
+    /**
+     * 异步执行的并发数
+     *
+     * @param concurrency 并发数（I/O线程数）
+     * @return this
+     */
+    public AliyunThingPlatformClientFactory concurrency(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive!");
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * 异步执行的排队上限
+     *
+     * @param backlog 排队上限，超出时请求以异常完成
+     * @return this
+     */
+    public AliyunThingPlatformClientFactory backlog(int backlog) {
+        if (backlog <= 0) {
+            throw new IllegalArgumentException("backlog must be positive!");
+        }
+        this.backlog = backlog;
+        return this;
+    }
+
+    /**
+     * 接口流控选项
+     *
+     * @param throttleOpt 接口流控选项
+     * @return this
+     */
+    public AliyunThingPlatformClientFactory throttleOpt(ThrottleOption throttleOpt) {
+        this.throttleOpt = throttleOpt;
+        return this;
+    }
+
+    /**
+     * 接口流控选项
+     *
+     * @param throttleOptFn 接口流控选项设置函数
+     * @return this
+     */
+    public AliyunThingPlatformClientFactory throttleOpt(Function<ThrottleOption, ThrottleOption> throttleOptFn) {
+        return throttleOpt(throttleOptFn.apply(throttleOpt));
+    }
+
     @Override
     public ThingPlatformClient make() {
         return new ThingPlatformClientImpl(
@@ -55,7 +109,10 @@ public class AliyunThingPlatformClientFactory implements ThingPlatformClientFact
                         requireNonNull(region, "region is required!"),
                         requireNonNull(identity, "identity is required!"),
                         requireNonNull(secret, "secret is required!")
-                )
+                ),
+                concurrency,
+                backlog,
+                requireNonNull(throttleOpt, "throttleOpt is required!")
         );
     }
 
@@ -0,0 +1,72 @@
+package io.github.athingx.athing.platform.builder.client;
+
+import io.github.athingx.athing.platform.api.client.ThingPlatformClient;
+import io.github.athingx.athing.platform.impl.client.CachedThingPlatformClient;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 缓存设备平台客户端工厂
+ * <p>
+ * 为幂等的查询请求（设备状态、设备属性、产品信息等）缓存应答；
+ * 与设备消息消费者一同构建设备平台时，设备状态和生命周期消息会自动清除对应设备的缓存。
+ * 设备请求需要以{@code ProductKey}和{@code DeviceName}寻址才会缓存，只按{@code IotId}寻址的请求无法被设备消息清除，总是直接执行。
+ * </p>
+ */
+public class CachedThingPlatformClientFactory implements ThingPlatformClientFactory {
+
+    private ThingPlatformClientFactory clientFactory;
+    private final Map<Class<?>, Long> ttls = new HashMap<>();
+    private int capacity = 10000;
+
+    /**
+     * 被缓存的设备平台客户端工厂
+     *
+     * @param clientFactory 设备平台客户端工厂
+     * @return this
+     */
+    public CachedThingPlatformClientFactory client(ThingPlatformClientFactory clientFactory) {
+        this.clientFactory = clientFactory;
+        return this;
+    }
+
+    /**
+     * 缓存请求类型
+     *
+     * @param requestType 请求类型，如{@code QueryDeviceDetailRequest.class}
+     * @param ttlMs       缓存时间（毫秒）
+     * @return this
+     */
+    public CachedThingPlatformClientFactory ttl(Class<?> requestType, long ttlMs) {
+        requireNonNull(requestType, "requestType is required!");
+        if (ttlMs <= 0) {
+            throw new IllegalArgumentException("ttlMs must be positive!");
+        }
+        ttls.put(requestType, ttlMs);
+        return this;
+    }
+
+    /**
+     * 缓存容量，超出时淘汰最久未访问的应答
+     *
+     * @param capacity 缓存容量
+     * @return this
+     */
+    public CachedThingPlatformClientFactory capacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive!");
+        }
+        this.capacity = capacity;
+        return this;
+    }
+
+    @Override
+    public ThingPlatformClient make() throws Exception {
+        requireNonNull(clientFactory, "client is required!");
+        return new CachedThingPlatformClient(clientFactory.make(), ttls, capacity);
+    }
+
+}
@@ -0,0 +1,110 @@
+package io.github.athingx.athing.platform.builder.client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 平台接口流控选项
+ * <p>
+ * 每个接口（Action）一个令牌桶，请求先取令牌再发出；被平台流控的请求按指数退避（全抖动）重试，
+ * 重试次数用尽后以{@link io.github.athingx.athing.common.ThingCodes#TOO_MANY_REQUESTS}异常结束。
+ * 异步执行时等待令牌和退避都由调度线程定时完成，不占用I/O线程。
+ * </p>
+ * <p>
+ * 这里的重试发生在批量下发的自适应速率之下：批量下发只有在重试用尽后才降速，两层重试次数相乘，
+ * 客户端用于批量下发时建议设置{@link #retries(int)}为0，由批量下发统一降速重试。
+ * </p>
+ */
+public class ThrottleOption {
+
+    private double qps;
+    private final Map<String, Double> actionQps = new HashMap<>();
+    private int retries = 3;
+    private long backoffBaseMs = 100L;
+    private long backoffMaxMs = 5000L;
+
+    /**
+     * 设置默认接口QPS
+     *
+     * @param qps 每个接口每秒请求数，0表示不限制
+     * @return this
+     */
+    public ThrottleOption qps(double qps) {
+        if (qps < 0) {
+            throw new IllegalArgumentException("qps must not be negative!");
+        }
+        this.qps = qps;
+        return this;
+    }
+
+    /**
+     * 设置指定接口QPS
+     *
+     * @param action 接口名，如{@code Pub}、{@code QueryDeviceDetail}
+     * @param qps    每秒请求数，0表示不限制
+     * @return this
+     */
+    public ThrottleOption qps(String action, double qps) {
+        requireNonNull(action, "action is required!");
+        if (qps < 0) {
+            throw new IllegalArgumentException("qps must not be negative!");
+        }
+        actionQps.put(action, qps);
+        return this;
+    }
+
+    /**
+     * 设置流控重试次数
+     *
+     * @param retries 重试次数，0表示不重试
+     * @return this
+     */
+    public ThrottleOption retries(int retries) {
+        if (retries < 0) {
+            throw new IllegalArgumentException("retries must not be negative!");
+        }
+        this.retries = retries;
+        return this;
+    }
+
+    /**
+     * 设置重试退避时间
+     *
+     * @param baseMs 首次退避上限（毫秒），之后每次翻倍
+     * @param maxMs  退避上限（毫秒）
+     * @return this
+     */
+    public ThrottleOption backoff(long baseMs, long maxMs) {
+        if (baseMs <= 0 || maxMs < baseMs) {
+            throw new IllegalArgumentException("illegal backoff: base=%s;max=%s;".formatted(baseMs, maxMs));
+        }
+        this.backoffBaseMs = baseMs;
+        this.backoffMaxMs = maxMs;
+        return this;
+    }
+
+    /**
+     * 获取接口QPS
+     *
+     * @param action 接口名
+     * @return 每秒请求数，0表示不限制
+     */
+    public double getQps(String action) {
+        return actionQps.getOrDefault(action, qps);
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    public long getBackoffBaseMs() {
+        return backoffBaseMs;
+    }
+
+    public long getBackoffMaxMs() {
+        return backoffMaxMs;
+    }
+
+}
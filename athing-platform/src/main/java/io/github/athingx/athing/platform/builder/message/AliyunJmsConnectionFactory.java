@@ -1,14 +1,13 @@
 package io.github.athingx.athing.platform.builder.message;
 
+import io.github.athingx.athing.common.util.HmacSigner;
 import jakarta.jms.Connection;
 import jakarta.jms.JMSException;
+import org.apache.qpid.jms.policy.JmsDefaultPrefetchPolicy;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.util.Base64;
 import java.util.UUID;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -22,6 +21,7 @@ public class AliyunJmsConnectionFactory implements JmsConnectionFactory {
     private String secret;
     private String remote;
     private String queue;
+    private int prefetch = JmsDefaultPrefetchPolicy.DEFAULT_QUEUE_PREFETCH;
 
     /**
      * 账号
@@ -67,17 +67,39 @@ public class AliyunJmsConnectionFactory implements JmsConnectionFactory {
         return this;
     }
 
+    /**
+     * 预取数量
+     * <p>
+     * 每个消费者向服务端授予的信用额度，即未投递到应用的在途消息上限；
+     * 批量确认时应不小于确认批次大小，否则批次未满就会因信用耗尽而等待超时确认。
+     * </p>
+     *
+     * @param prefetch 预取数量
+     * @return this
+     */
+    public AliyunJmsConnectionFactory prefetch(int prefetch) {
+        if (prefetch < 0) {
+            throw new IllegalArgumentException("prefetch must not be negative!");
+        }
+        this.prefetch = prefetch;
+        return this;
+    }
+
     @Override
     public Connection make() throws JMSException {
         requireNonNull(identity, "identity is required!");
         requireNonNull(secret, "secret is required!");
         requireNonNull(remote, "remote is required!");
         requireNonNull(queue, "queue is required!");
-        final Connection connection = new org.apache.qpid.jms.JmsConnectionFactory(
+        final var factory = new org.apache.qpid.jms.JmsConnectionFactory(
                 getUsername(identity, timestamp, uniqueId, queue),
                 getPassword(identity, secret, timestamp),
                 remote
-        ).createConnection();
+        );
+        final var prefetchPolicy = new JmsDefaultPrefetchPolicy();
+        prefetchPolicy.setQueuePrefetch(prefetch);
+        factory.setPrefetchPolicy(prefetchPolicy);
+        final Connection connection = factory.createConnection();
         connection.start();
         return connection;
     }
@@ -100,13 +122,7 @@ public class AliyunJmsConnectionFactory implements JmsConnectionFactory {
                                       final String secret,
                                       final long timestamp) {
         final String content = "authId=%s&timestamp=%s".formatted(identity, timestamp);
-        try {
-            final Mac mac = Mac.getInstance("HMACSHA1");
-            mac.init(new SecretKeySpec(secret.getBytes(UTF_8), mac.getAlgorithm()));
-            return Base64.getEncoder().encodeToString(mac.doFinal(content.getBytes(UTF_8)));
-        } catch (Exception cause) {
-            throw new IllegalStateException(cause);
-        }
+        return Base64.getEncoder().encodeToString(HmacSigner.hmacSha1().sign(secret, content));
     }
 
 }
@@ -3,9 +3,14 @@ package io.github.athingx.athing.platform.builder.message;
 import io.github.athingx.athing.platform.api.message.ThingMessageListener;
 import io.github.athingx.athing.platform.impl.message.ThingMessageConsumerImpl;
 import io.github.athingx.athing.platform.message.ThingMessageConsumer;
+import jakarta.jms.Connection;
 import jakarta.jms.JMSException;
+import jakarta.jms.MessageConsumer;
 import jakarta.jms.Session;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
 import static io.github.athingx.athing.platform.impl.util.IOUtils.closeQuietly;
 import static java.util.Objects.requireNonNull;
 
@@ -14,7 +19,16 @@ import static java.util.Objects.requireNonNull;
  */
 public class AliyunThingMessageConsumerFactory implements ThingMessageConsumerFactory {
 
+    /**
+     * 逐条确认模式（Qpid扩展）
+     */
+    private static final int INDIVIDUAL_ACKNOWLEDGE = 101;
+
     private String queue;
+    private int concurrency = 1;
+    private boolean ordered;
+    private int ackBatchSize = 1;
+    private long ackBatchTimeoutMs;
     private JmsConnectionFactory connectionFactory = new AliyunJmsConnectionFactory();
     private ThingMessageListener listener;
 
@@ -51,22 +65,93 @@ public class AliyunThingMessageConsumerFactory implements ThingMessageConsumerFa
         return this;
     }
 
+    /**
+     * 消费并发数
+     * <p>
+     * 非顺序消费时在同一连接上创建对应数量的会话和消费者，各会话在独立的投递线程上并行消费；
+     * 顺序消费时为按设备散列的串行通道数。
+     * </p>
+     *
+     * @param concurrency 消费并发数
+     * @return this
+     */
+    public AliyunThingMessageConsumerFactory concurrency(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive!");
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * 是否按设备顺序消费
+     * <p>
+     * 开启后只创建一个逐条确认的会话接收消息，解码后按产品ID和设备ID散列到串行通道并行处理，
+     * 同一设备的消息保持到达顺序。
+     * </p>
+     *
+     * @param ordered 是否按设备顺序消费
+     * @return this
+     */
+    public AliyunThingMessageConsumerFactory ordered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * 批量确认
+     * <p>
+     * 消费成功的消息累积满批次或超过批次时限后统一确认，每批只有一次确认往返；
+     * 消费失败时本批次未确认的消息全部重新投递，设备消息监听器需要容忍重复消息。
+     * 批量确认要求非顺序消费，预取数量（{@link AliyunJmsConnectionFactory#prefetch(int)}）应不小于批次大小。
+     * </p>
+     *
+     * @param size      批次大小，1表示逐条确认
+     * @param timeoutMs 批次时限（毫秒）
+     * @return this
+     */
+    public AliyunThingMessageConsumerFactory ackBatch(int size, long timeoutMs) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive!");
+        }
+        if (timeoutMs <= 0) {
+            throw new IllegalArgumentException("timeoutMs must be positive!");
+        }
+        this.ackBatchSize = size;
+        this.ackBatchTimeoutMs = timeoutMs;
+        return this;
+    }
+
     @Override
     public ThingMessageConsumer make() throws JMSException {
         requireNonNull(queue, "queue is required!");
         requireNonNull(listener, "listener is required!");
         requireNonNull(connectionFactory, "connection is required!");
+        if (ordered && ackBatchSize > 1) {
+            throw new IllegalArgumentException("ack batch is not supported in ordered mode!");
+        }
         final var connection = connectionFactory.make();
         try {
-            final var session = connection.createSession(Session.CLIENT_ACKNOWLEDGE);
-            final var consumer = session.createConsumer(session.createQueue(queue));
+            if (ackBatchSize > 1) {
+                return makeBatchAck(connection);
+            }
+            final var consumers = new ArrayList<MessageConsumer>();
+            final int sessions = ordered ? 1 : concurrency;
+            for (int index = 0; index < sessions; index++) {
+                final var session = connection.createSession(ordered ? INDIVIDUAL_ACKNOWLEDGE : Session.CLIENT_ACKNOWLEDGE);
+                consumers.add(session.createConsumer(session.createQueue(queue)));
+            }
             final var name = "thing-message-consumer://%s".formatted(queue);
-            return new ThingMessageConsumerImpl(name, consumer, listener) {
+            return new ThingMessageConsumerImpl(name, consumers, listener, ordered ? concurrency : 0) {
 
                 @Override
                 public void close() throws Exception {
-                    connection.close();
-                    super.close();
+                    // 先等待串行通道处理完剩余消息并确认，再关闭连接
+                    try {
+                        super.close();
+                    } finally {
+                        connection.close();
+                    }
                 }
 
             };
@@ -81,4 +166,24 @@ public class AliyunThingMessageConsumerFactory implements ThingMessageConsumerFa
 
     }
 
+    // 批量确认：每个会话一个接收线程
+    private ThingMessageConsumer makeBatchAck(Connection connection) throws JMSException {
+        final var consumers = new LinkedHashMap<Session, MessageConsumer>();
+        for (int index = 0; index < concurrency; index++) {
+            final var session = connection.createSession(Session.CLIENT_ACKNOWLEDGE);
+            consumers.put(session, session.createConsumer(session.createQueue(queue)));
+        }
+        final var name = "thing-message-consumer://%s".formatted(queue);
+        return new ThingMessageConsumerImpl(name, consumers, listener, ackBatchSize, ackBatchTimeoutMs) {
+
+            @Override
+            public void close() throws Exception {
+                // 先等待接收线程提交剩余批次，再关闭连接
+                super.close();
+                connection.close();
+            }
+
+        };
+    }
+
 }
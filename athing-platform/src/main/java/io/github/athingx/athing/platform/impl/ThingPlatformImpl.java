@@ -4,12 +4,28 @@ import io.github.athingx.athing.platform.api.ThingPlatform;
 import io.github.athingx.athing.platform.api.ThingTemplate;
 import io.github.athingx.athing.platform.api.ThingTemplateFactory;
 import io.github.athingx.athing.platform.api.client.ThingPlatformClient;
+import io.github.athingx.athing.platform.api.fanout.ThingFanoutOperation;
+import io.github.athingx.athing.platform.api.fanout.ThingFanoutOption;
+import io.github.athingx.athing.platform.api.fanout.ThingFanoutResult;
+import io.github.athingx.athing.platform.api.message.ThingMessageListener;
 import io.github.athingx.athing.platform.api.message.decoder.ThingMessageDecoder;
+import io.github.athingx.athing.platform.api.presence.ThingPresence;
+import io.github.athingx.athing.platform.impl.fanout.ThingFanoutTask;
+import io.github.athingx.athing.platform.impl.presence.ThingPresenceIndex;
 import io.github.athingx.athing.platform.message.ThingMessageConsumer;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static io.github.athingx.athing.platform.impl.util.IOUtils.closeQuietly;
 
@@ -18,10 +34,17 @@ import static io.github.athingx.athing.platform.impl.util.IOUtils.closeQuietly;
  */
 public class ThingPlatformImpl implements ThingPlatform {
 
+    private final Logger logger = LoggerFactory.getLogger(getClass());
     private final ThingPlatformClient client;
     private final ThingMessageConsumer consumer;
+    private final ThingPresenceIndex presence;
     private final Map<Class<?>, ThingTemplateFactory<?>> templateFactoryMap = new ConcurrentHashMap<>();
 
+    /**
+     * 批量下发执行器，所有批量下发任务共享；同时执行的操作数由各任务的并行度限制，空闲线程自动回收
+     */
+    private final ExecutorService fanoutExecutor;
+
     /**
      * 设备平台实现
      *
@@ -31,6 +54,26 @@ public class ThingPlatformImpl implements ThingPlatform {
     public ThingPlatformImpl(ThingPlatformClient client, ThingMessageConsumer consumer) {
         this.client = client;
         this.consumer = consumer;
+
+        final var counter = new AtomicInteger(1000);
+        this.fanoutExecutor = Executors.newCachedThreadPool(r -> new Thread(r) {{
+            setDaemon(true);
+            setName("athing-platform-fanout-%d".formatted(counter.incrementAndGet()));
+        }});
+
+        // 客户端需要设备消息（如缓存清除）时挂到消费者上
+        if (client instanceof ThingMessageListener listener && null != consumer
+                && !consumer.listeners(listeners -> listeners.add(listener))) {
+            logger.warn("{}/platform consumer not support listeners, message-driven invalidation unavailable!", client);
+        }
+
+        // 设备在线状态索引由设备状态消息维护，消费者不支持附加监听器时不提供
+        this.presence = null != consumer ? makePresence(consumer) : null;
+    }
+
+    private static ThingPresenceIndex makePresence(ThingMessageConsumer consumer) {
+        final ThingPresenceIndex presence = new ThingPresenceIndex();
+        return consumer.listeners(listeners -> listeners.add(presence)) ? presence : null;
     }
 
     // 获取设备模板工厂
@@ -78,9 +121,40 @@ public class ThingPlatformImpl implements ThingPlatform {
         register(decoder);
     }
 
+    @Override
+    public <T extends ThingTemplate, R> CompletableFuture<Void> fanout(Class<T> type,
+                                                                       String productId,
+                                                                       Collection<String> thingIds,
+                                                                       ThingFanoutOption option,
+                                                                       ThingFanoutOperation<T, R> operation,
+                                                                       Consumer<ThingFanoutResult<R>> listener) {
+        checkSupportThingTemplate();
+        if (!templateFactoryMap.containsKey(type)) {
+            throw new IllegalArgumentException("unregistered type: %s".formatted(type.getName()));
+        }
+        return new ThingFanoutTask<>(
+                productId,
+                thingIds,
+                thingId -> genThingTemplate(type, productId, thingId),
+                option,
+                operation,
+                listener,
+                fanoutExecutor
+        ).start();
+    }
+
+    @Override
+    public ThingPresence presence() {
+        if (Objects.isNull(presence)) {
+            throw new UnsupportedOperationException("not support thing-presence");
+        }
+        return presence;
+    }
+
     @Override
     public void destroy() {
         closeQuietly(consumer);
+        fanoutExecutor.shutdown();
         client.shutdown();
     }
 
@@ -0,0 +1,311 @@
+package io.github.athingx.athing.platform.impl.client;
+
+import com.aliyuncs.v5.AcsRequest;
+import io.github.athingx.athing.platform.api.ThingPlatformException;
+import io.github.athingx.athing.platform.api.client.ThingPlatformClient;
+import io.github.athingx.athing.platform.api.message.ThingLifeCycleMessage;
+import io.github.athingx.athing.platform.api.message.ThingMessage;
+import io.github.athingx.athing.platform.api.message.ThingMessageListener;
+import io.github.athingx.athing.platform.api.message.ThingStateMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存设备平台客户端
+ * <p>
+ * 对配置了缓存时间的请求类型缓存应答：请求按类型和全部请求参数识别，容量满时淘汰最久未访问的应答；
+ * 同一请求并发未命中时只向平台发出一次，其余请求等待同一应答。
+ * </p>
+ * <p>
+ * 作为设备消息监听器接收设备状态和生命周期消息，清除该设备（请求参数中{@code ProductKey}和{@code DeviceName}）的全部缓存；
+ * 加载期间该设备发生过清除时，应答不进入缓存，避免把清除前的状态写回；清除只影响该设备的加载。
+ * 设备消息中没有{@code IotId}，只按{@code IotId}寻址的请求无法被清除，因此不缓存，直接执行。
+ * </p>
+ */
+public class CachedThingPlatformClient implements ThingPlatformClient, ThingMessageListener {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final ThingPlatformClient client;
+    private final Map<Class<?>, Long> ttls;
+    private final int capacity;
+    private final String _string;
+
+    // 以下由this保护
+    private final LinkedHashMap<RequestKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<RequestKey>> deviceKeys = new HashMap<>();
+    private final Map<String, Loading> deviceLoadings = new HashMap<>();
+
+    private final Map<RequestKey, CompletableFuture<Object>> loadings = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存设备平台客户端
+     *
+     * @param client   设备平台客户端
+     * @param ttls     请求类型的缓存时间（毫秒）
+     * @param capacity 缓存容量
+     */
+    public CachedThingPlatformClient(ThingPlatformClient client, Map<Class<?>, Long> ttls, int capacity) {
+        this.client = client;
+        this.ttls = Map.copyOf(ttls);
+        this.capacity = capacity;
+        this._string = "cached-%s".formatted(client);
+    }
+
+    @Override
+    public <T, R> R execute(T request, Class<R> responseClass) throws ThingPlatformException {
+
+        // 不缓存的请求直接执行
+        final Long ttlMs = ttls.get(request.getClass());
+        final RequestKey key = null != ttlMs && request instanceof AcsRequest<?> acsRequest ? RequestKey.of(acsRequest) : null;
+        if (null == key) {
+            return client.execute(request, responseClass);
+        }
+
+        // 命中缓存
+        final Object hit = get(key);
+        if (null != hit) {
+            return responseClass.cast(hit);
+        }
+
+        // 合并并发的未命中请求
+        final CompletableFuture<Object> loading = new CompletableFuture<>();
+        final CompletableFuture<Object> exist = loadings.putIfAbsent(key, loading);
+        if (null != exist) {
+            return responseClass.cast(await(exist));
+        }
+
+        final long version = begin(key);
+        try {
+            final R response = client.execute(request, responseClass);
+            end(key, response, ttlMs, version);
+            loading.complete(response);
+            return response;
+        } catch (Throwable cause) {
+            end(key, null, ttlMs, version);
+            loading.completeExceptionally(cause);
+            throw cause;
+        } finally {
+            loadings.remove(key, loading);
+        }
+
+    }
+
+    // 等待合并的请求
+    private static Object await(CompletableFuture<Object> loading) throws ThingPlatformException {
+        try {
+            return loading.get();
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+            throw new ThingPlatformException("await loading interrupted!", cause);
+        } catch (ExecutionException cause) {
+            if (cause.getCause() instanceof ThingPlatformException tpCause) {
+                throw tpCause;
+            }
+            throw new ThingPlatformException(cause.getCause());
+        }
+    }
+
+    private synchronized Object get(RequestKey key) {
+        final Entry entry = entries.get(key);
+        if (null == entry) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expireNanos >= 0) {
+            remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    // 开始加载，返回设备当前的清除版本
+    private synchronized long begin(RequestKey key) {
+        if (null == key.device) {
+            return 0;
+        }
+        final Loading loading = deviceLoadings.computeIfAbsent(key.device, k -> new Loading());
+        loading.count++;
+        return loading.version;
+    }
+
+    // 结束加载，加载期间设备未发生清除时缓存应答
+    private synchronized void end(RequestKey key, Object value, long ttlMs, long version) {
+        boolean stale = false;
+        if (null != key.device) {
+            final Loading loading = deviceLoadings.get(key.device);
+            stale = loading.version != version;
+            if (--loading.count == 0) {
+                deviceLoadings.remove(key.device);
+            }
+        }
+        if (!stale) {
+            put(key, value, ttlMs);
+        }
+    }
+
+    private void put(RequestKey key, Object value, long ttlMs) {
+        if (null == value) {
+            return;
+        }
+
+        entries.put(key, new Entry(value, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs)));
+        if (null != key.device) {
+            deviceKeys.computeIfAbsent(key.device, k -> new HashSet<>()).add(key);
+        }
+
+        // 淘汰最久未访问的应答
+        while (entries.size() > capacity) {
+            remove(entries.keySet().iterator().next());
+        }
+    }
+
+    private void remove(RequestKey key) {
+        entries.remove(key);
+        if (null != key.device) {
+            final Set<RequestKey> keys = deviceKeys.get(key.device);
+            if (null != keys && keys.remove(key) && keys.isEmpty()) {
+                deviceKeys.remove(key.device);
+            }
+        }
+    }
+
+    /**
+     * 清除设备的缓存
+     *
+     * @param productId 产品ID
+     * @param thingId   设备ID
+     */
+    public synchronized void invalidate(String productId, String thingId) {
+        final String device = RequestKey.device(productId, thingId);
+
+        // 该设备的在途加载作废
+        final Loading loading = deviceLoadings.get(device);
+        if (null != loading) {
+            loading.version++;
+        }
+
+        final Set<RequestKey> keys = deviceKeys.remove(device);
+        if (null != keys) {
+            keys.forEach(entries::remove);
+            logger.debug("{}/cache/invalidate, thing={}/{};evicted={};", this, productId, thingId, keys.size());
+        }
+    }
+
+    @Override
+    public void onMessage(ThingMessage message) {
+        if (message instanceof ThingStateMessage || message instanceof ThingLifeCycleMessage) {
+            invalidate(message.getProductId(), message.getThingId());
+        }
+    }
+
+    @Override
+    public <T, R> CompletableFuture<R> executeAsync(T request, Class<R> responseClass) {
+
+        // 不缓存的请求直接执行
+        final Long ttlMs = ttls.get(request.getClass());
+        final RequestKey key = null != ttlMs && request instanceof AcsRequest<?> acsRequest ? RequestKey.of(acsRequest) : null;
+        if (null == key) {
+            return client.executeAsync(request, responseClass);
+        }
+
+        // 命中缓存
+        final Object hit = get(key);
+        if (null != hit) {
+            return CompletableFuture.completedFuture(responseClass.cast(hit));
+        }
+
+        // 合并并发的未命中请求
+        final CompletableFuture<Object> loading = new CompletableFuture<>();
+        final CompletableFuture<Object> exist = loadings.putIfAbsent(key, loading);
+        if (null != exist) {
+            return exist.thenApply(responseClass::cast);
+        }
+
+        final long version = begin(key);
+        final CompletableFuture<R> executing;
+        try {
+            executing = client.executeAsync(request, responseClass);
+        } catch (RuntimeException cause) {
+            end(key, null, ttlMs, version);
+            loadings.remove(key, loading);
+            loading.completeExceptionally(cause);
+            throw cause;
+        }
+        executing.whenComplete((response, ex) -> {
+            end(key, null == ex ? response : null, ttlMs, version);
+            if (null == ex) {
+                loading.complete(response);
+            } else {
+                loading.completeExceptionally(ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex);
+            }
+            loadings.remove(key, loading);
+        });
+        return loading.thenApply(responseClass::cast);
+    }
+
+    @Override
+    public void shutdown() {
+        client.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return _string;
+    }
+
+    /**
+     * 设备的在途加载：加载数和清除版本，没有在途加载时移除
+     */
+    private static class Loading {
+        int count;
+        long version;
+    }
+
+    /**
+     * 缓存的应答
+     */
+    private record Entry(Object value, long expireNanos) {
+
+    }
+
+    /**
+     * 请求标识：请求类型和全部请求参数
+     */
+    private record RequestKey(Class<?> type, Map<String, String> query, Map<String, String> body, String device) {
+
+        // 只按IotId寻址的请求返回null，不缓存
+        private static RequestKey of(AcsRequest<?> request) {
+            final Map<String, String> query = new TreeMap<>(request.getSysQueryParameters());
+            final Map<String, String> body = new TreeMap<>(request.getSysBodyParameters());
+            final String productId = query.containsKey("ProductKey") ? query.get("ProductKey") : body.get("ProductKey");
+            final String thingId = query.containsKey("DeviceName") ? query.get("DeviceName") : body.get("DeviceName");
+            final boolean addressed = null != productId && null != thingId;
+            if (!addressed && (query.containsKey("IotId") || body.containsKey("IotId"))) {
+                return null;
+            }
+            return new RequestKey(
+                    request.getClass(),
+                    query,
+                    body,
+                    addressed ? device(productId, thingId) : null
+            );
+        }
+
+        private static String device(String productId, String thingId) {
+            return "%s/%s".formatted(productId, thingId);
+        }
+
+    }
+
+}
@@ -3,21 +3,44 @@ package io.github.athingx.athing.platform.impl.client;
 import com.aliyuncs.v5.AcsRequest;
 import com.aliyuncs.v5.DefaultAcsClient;
 import com.aliyuncs.v5.IAcsClient;
+import com.aliyuncs.v5.exceptions.ClientException;
 import com.aliyuncs.v5.profile.IClientProfile;
 import io.github.athingx.athing.platform.api.ThingPlatformException;
 import io.github.athingx.athing.platform.api.client.ThingPlatformClient;
+import io.github.athingx.athing.platform.builder.client.ThrottleOption;
+import io.github.athingx.athing.platform.impl.util.TokenBucket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.athingx.athing.common.ThingCodes.TOO_MANY_REQUESTS;
 
 /**
  * 设备平台客户端实现(阿里云)
+ * <p>
+ * 异步执行时，等待令牌和流控退避都由调度线程定时再提交，I/O线程只用于发出请求，不会因等待而被占满。
+ * </p>
  */
 public class ThingPlatformClientImpl implements ThingPlatformClient {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final IAcsClient client;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService scheduler;
+    private final ThrottleOption throttleOpt;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
     private final String _string;
 
     /**
@@ -26,14 +49,66 @@ public class ThingPlatformClientImpl implements ThingPlatformClient {
      * @param profile 阿里云客户端连接配置
      */
     public ThingPlatformClientImpl(IClientProfile profile) {
+        this(profile, 32, 65536, new ThrottleOption());
+    }
+
+    /**
+     * 设备平台客户端实现
+     *
+     * @param profile     阿里云客户端连接配置
+     * @param concurrency 异步执行的并发数（I/O线程数）
+     * @param backlog     异步执行的排队上限，超出时请求以异常完成
+     * @param throttleOpt 接口流控选项
+     */
+    public ThingPlatformClientImpl(IClientProfile profile, int concurrency, int backlog, ThrottleOption throttleOpt) {
         this.client = new DefaultAcsClient(profile);
+        this.throttleOpt = throttleOpt;
         this._string = "thing-platform-client://%s".formatted(profile.getRegionId());
+        final var counter = new AtomicInteger(1000);
+        this.executor = new ThreadPoolExecutor(
+                concurrency, concurrency, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(backlog),
+                r -> new Thread(r) {{
+                    setDaemon(true);
+                    setName("athing-platform-client-%d".formatted(counter.incrementAndGet()));
+                }}
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r) {{
+            setDaemon(true);
+            setName("athing-platform-client-scheduler");
+        }});
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public <T, R> R execute(T request, Class<R> responseClass) throws ThingPlatformException {
 
+        // 执行请求，被流控时退避重试
+        final AcsRequest<?> acsRequest = check(request, responseClass);
+        final String action = getAction(acsRequest);
+        for (int attempt = 0; ; attempt++) {
+            acquire(action);
+            try {
+                return (R) client.getAcsResponse(acsRequest);
+            } catch (ClientException cause) {
+                if (!isThrottling(cause)) {
+                    throw new ThingPlatformException(cause);
+                }
+                if (attempt >= throttleOpt.getRetries()) {
+                    throw new ThingPlatformException(TOO_MANY_REQUESTS, cause.toString(), cause);
+                }
+                backoff(action, attempt);
+            } catch (Exception cause) {
+                throw new ThingPlatformException(cause);
+            }
+        }
+
+    }
+
+    // 检查请求和应答类型
+    private static AcsRequest<?> check(Object request, Class<?> responseClass) throws ThingPlatformException {
+
         // 检查请求是否为AcsRequest
         if (!(request instanceof AcsRequest<?> acsRequest)) {
             throw new ThingPlatformException("request must be AcsRequest");
@@ -44,17 +119,143 @@ public class ThingPlatformClientImpl implements ThingPlatformClient {
             throw new ThingPlatformException("responseClass must be %s".formatted(acsRequest.getResponseClass()));
         }
 
-        // 执行请求
+        return acsRequest;
+    }
+
+    // 获取接口名
+    private static String getAction(AcsRequest<?> acsRequest) {
+        final String action = acsRequest.getSysActionName();
+        return null != action ? action : acsRequest.getClass().getSimpleName();
+    }
+
+    // 预支接口令牌，返回需要等待的时间（纳秒）
+    private long reserve(String action) {
+        final double qps = throttleOpt.getQps(action);
+        if (qps <= 0) {
+            return 0;
+        }
+        return bucket(action, qps).reserve();
+    }
+
+    private TokenBucket bucket(String action, double qps) {
+        return buckets.computeIfAbsent(action, key -> new TokenBucket(qps, Math.max(1, qps)));
+    }
+
+    // 获取接口令牌，令牌不足时阻塞等待
+    private void acquire(String action) throws ThingPlatformException {
+        final double qps = throttleOpt.getQps(action);
+        if (qps <= 0) {
+            return;
+        }
+        try {
+            bucket(action, qps).acquire();
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+            throw new ThingPlatformException("acquire %s interrupted!".formatted(action), cause);
+        }
+    }
+
+    // 指数退避（全抖动）：在[0, min(上限, 基数*2^attempt)]内随机取等待时间
+    private long computeBackoffMs(int attempt) {
+        final long ceilMs = Math.min(
+                throttleOpt.getBackoffMaxMs(),
+                throttleOpt.getBackoffBaseMs() << Math.min(attempt, 20)
+        );
+        return ThreadLocalRandom.current().nextLong(ceilMs + 1);
+    }
+
+    private void backoff(String action, int attempt) throws ThingPlatformException {
+        final long sleepMs = computeBackoffMs(attempt);
+        logger.debug("{}/execute/{} throttled, retry after {}ms; attempt={};", this, action, sleepMs, attempt + 1);
         try {
-            return (R) client.getAcsResponse(acsRequest);
-        } catch (Exception cause) {
-            throw new ThingPlatformException(cause);
+            TimeUnit.MILLISECONDS.sleep(sleepMs);
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+            throw new ThingPlatformException("backoff %s interrupted!".formatted(action), cause);
         }
+    }
 
+    // 是否流控错误（Throttling、Throttling.User、Throttling.Api等）
+    private static boolean isThrottling(ClientException cause) {
+        final String errCode = cause.getErrCode();
+        return null != errCode && errCode.startsWith("Throttling");
+    }
+
+    @Override
+    public <T, R> CompletableFuture<R> executeAsync(T request, Class<R> responseClass) {
+        final var future = new CompletableFuture<R>();
+        try {
+            final AcsRequest<?> acsRequest = check(request, responseClass);
+            attempt(acsRequest, getAction(acsRequest), responseClass, future, 0);
+        } catch (ThingPlatformException cause) {
+            future.completeExceptionally(cause);
+        }
+        return future;
+    }
+
+    // 预支令牌，令牌不足时定时提交，不占用I/O线程等待
+    private <R> void attempt(AcsRequest<?> acsRequest, String action, Class<R> responseClass, CompletableFuture<R> future, int attempt) {
+        if (future.isDone()) {
+            return;
+        }
+        final long waitNanos = reserve(action);
+        if (waitNanos <= 0) {
+            submit(acsRequest, action, responseClass, future, attempt);
+            return;
+        }
+        try {
+            scheduler.schedule(() -> submit(acsRequest, action, responseClass, future, attempt), waitNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException cause) {
+            future.completeExceptionally(new ThingPlatformException("execute %s rejected, client is shutdown!".formatted(action), cause));
+        }
+    }
+
+    // 在I/O线程上发出请求，被流控时定时重试
+    private <R> void submit(AcsRequest<?> acsRequest, String action, Class<R> responseClass, CompletableFuture<R> future, int attempt) {
+        try {
+            executor.execute(() -> {
+
+                // 排队期间已被取消
+                if (future.isDone()) {
+                    return;
+                }
+
+                try {
+                    future.complete(responseClass.cast(client.getAcsResponse(acsRequest)));
+                } catch (ClientException cause) {
+                    if (!isThrottling(cause)) {
+                        future.completeExceptionally(new ThingPlatformException(cause));
+                    } else if (attempt >= throttleOpt.getRetries()) {
+                        future.completeExceptionally(new ThingPlatformException(TOO_MANY_REQUESTS, cause.toString(), cause));
+                    } else {
+                        retry(acsRequest, action, responseClass, future, attempt);
+                    }
+                } catch (Throwable cause) {
+                    future.completeExceptionally(new ThingPlatformException(cause));
+                }
+            });
+        } catch (RejectedExecutionException cause) {
+            future.completeExceptionally(new ThingPlatformException(
+                    "execute rejected! active=%s;queued=%s;".formatted(executor.getActiveCount(), executor.getQueue().size()),
+                    cause
+            ));
+        }
+    }
+
+    private <R> void retry(AcsRequest<?> acsRequest, String action, Class<R> responseClass, CompletableFuture<R> future, int attempt) {
+        final long delayMs = computeBackoffMs(attempt);
+        logger.debug("{}/execute/{} throttled, retry after {}ms; attempt={};", this, action, delayMs, attempt + 1);
+        try {
+            scheduler.schedule(() -> attempt(acsRequest, action, responseClass, future, attempt + 1), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException cause) {
+            future.completeExceptionally(new ThingPlatformException("retry %s rejected, client is shutdown!".formatted(action), cause));
+        }
     }
 
     @Override
     public void shutdown() {
+        scheduler.shutdown();
+        executor.shutdown();
         client.shutdown();
         logger.debug("{} shutdown!", this);
     }
@@ -0,0 +1,260 @@
+package io.github.athingx.athing.platform.impl.fanout;
+
+import io.github.athingx.athing.platform.api.ThingPlatformException;
+import io.github.athingx.athing.platform.api.ThingTemplate;
+import io.github.athingx.athing.platform.api.fanout.ThingFanoutOperation;
+import io.github.athingx.athing.platform.api.fanout.ThingFanoutOption;
+import io.github.athingx.athing.platform.api.fanout.ThingFanoutResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static io.github.athingx.athing.common.ThingCodes.TOO_MANY_REQUESTS;
+
+/**
+ * 批量下发任务
+ * <p>
+ * 设备排队后按当前速率逐个放行，同时执行中的操作不超过并行度；
+ * 被流控的操作使速率减半并回到队首重试（同一批在途操作的流控只减速一次）；
+ * 成功的操作使速率回升：首次流控前每秒约翻倍，之后每秒约加1。
+ * </p>
+ * <p>
+ * 设备操作在平台共享的执行器上运行，任务本身不持有线程；取消后已放行但尚未开始的操作直接放弃。
+ * </p>
+ *
+ * @param <T> 模板类型
+ * @param <R> 结果类型
+ */
+public class ThingFanoutTask<T extends ThingTemplate, R> {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 放行定时器，所有批量下发任务共享
+     */
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r ->
+            new Thread(r) {{
+                setDaemon(true);
+                setName("athing-platform-fanout-scheduler");
+            }}
+    );
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final String productId;
+    private final Function<String, T> templates;
+    private final ThingFanoutOption option;
+    private final ThingFanoutOperation<T, R> operation;
+    private final Consumer<ThingFanoutResult<R>> listener;
+    private final Executor workers;
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final String _string;
+
+    // 以下状态由this保护
+    private final Deque<Item> queue = new ArrayDeque<>();
+    private int inflight;
+    private double rate;
+    private long nextNanos;
+    private long lastDecreaseNanos;
+    private boolean scheduled;
+
+    /**
+     * 批量下发任务
+     *
+     * @param productId 产品ID
+     * @param thingIds  设备ID集合
+     * @param templates 设备模板生成函数：设备ID -> 设备模板
+     * @param option    批量下发选项
+     * @param operation 批量下发操作
+     * @param listener  单设备结果监听器
+     * @param workers   设备操作执行器
+     */
+    public ThingFanoutTask(String productId,
+                           Collection<String> thingIds,
+                           Function<String, T> templates,
+                           ThingFanoutOption option,
+                           ThingFanoutOperation<T, R> operation,
+                           Consumer<ThingFanoutResult<R>> listener,
+                           Executor workers) {
+        this.productId = productId;
+        this.templates = templates;
+        this.option = option;
+        this.operation = operation;
+        this.listener = listener;
+        this.workers = workers;
+        this.rate = Math.min(option.getMaxRate(), Math.max(option.getMinRate(), option.getRate()));
+        this._string = "thing-fanout://%s?size=%d".formatted(productId, thingIds.size());
+        thingIds.forEach(thingId -> queue.add(new Item(thingId)));
+    }
+
+    /**
+     * 开始下发
+     *
+     * @return 批量下发凭证
+     */
+    public CompletableFuture<Void> start() {
+        logger.debug("{} start, rate={};", this, rate);
+        pump();
+        return future;
+    }
+
+    // 按速率和并行度放行排队的设备
+    private void pump() {
+
+        final List<Item> dispatched = new ArrayList<>();
+        final boolean finished;
+        synchronized (this) {
+
+            // 已取消，放弃尚未开始的设备
+            if (future.isDone()) {
+                queue.clear();
+                return;
+            }
+
+            while (inflight < option.getParallelism() && !queue.isEmpty()) {
+                final long now = System.nanoTime();
+                if (now < nextNanos) {
+                    if (!scheduled) {
+                        scheduled = true;
+                        scheduler.schedule(this::onSchedule, nextNanos - now, TimeUnit.NANOSECONDS);
+                    }
+                    break;
+                }
+                final Item item = queue.poll();
+                item.dispatchNanos = now;
+                inflight++;
+                nextNanos = Math.max(nextNanos, now) + (long) (NANOS_PER_SECOND / rate);
+                dispatched.add(item);
+            }
+            finished = queue.isEmpty() && inflight == 0;
+        }
+
+        for (final Item item : dispatched) {
+            try {
+                workers.execute(() -> execute(item));
+            } catch (RejectedExecutionException cause) {
+
+                // 执行器已关闭（平台已销毁），归还在途名额并以异常结束
+                synchronized (this) {
+                    inflight--;
+                    queue.clear();
+                }
+                if (future.completeExceptionally(cause)) {
+                    logger.warn("{} rejected! thing={};", this, item.thingId, cause);
+                }
+            }
+        }
+        if (finished && future.complete(null)) {
+            logger.debug("{} finished!", this);
+        }
+    }
+
+    private void onSchedule() {
+        synchronized (this) {
+            scheduled = false;
+        }
+        pump();
+    }
+
+    // 执行单个设备的操作
+    private void execute(Item item) {
+
+        // 放行后任务已结束（被取消），不再执行
+        if (future.isDone()) {
+            synchronized (this) {
+                inflight--;
+            }
+            return;
+        }
+
+        item.attempts++;
+        R value = null;
+        Throwable cause = null;
+        try {
+            value = operation.execute(templates.apply(item.thingId));
+        } catch (Throwable ex) {
+            cause = ex;
+        }
+
+        final boolean throttled = null != cause && isThrottling(cause);
+        boolean retry = false;
+        synchronized (this) {
+            inflight--;
+            if (throttled) {
+
+                // 同一批在途操作的流控只减速一次：只有在上次减速之后放行的操作才触发减速
+                if (item.dispatchNanos > lastDecreaseNanos) {
+                    final long now = System.nanoTime();
+                    rate = Math.max(option.getMinRate(), rate / 2);
+                    lastDecreaseNanos = now;
+                    nextNanos = Math.max(nextNanos, now + (long) (NANOS_PER_SECOND / rate));
+                    logger.debug("{} throttled, rate decrease to {};", this, rate);
+                }
+
+                if (item.attempts <= option.getRetries() && !future.isDone()) {
+                    queue.addFirst(item);
+                    retry = true;
+                }
+
+            } else if (null == cause) {
+
+                // 首次流控前慢启动（每次成功加1，约每秒翻倍），之后加性增（约每秒加1）
+                rate = Math.min(option.getMaxRate(), rate + (lastDecreaseNanos == 0 ? 1 : 1 / rate));
+
+            }
+        }
+
+        if (!retry) {
+            try {
+                listener.accept(new ThingFanoutResult<>(productId, item.thingId, value, cause, item.attempts));
+            } catch (Throwable ex) {
+                logger.warn("{} listener error! thing={};", this, item.thingId, ex);
+            }
+        }
+
+        pump();
+    }
+
+    // 是否被流控
+    private static boolean isThrottling(Throwable cause) {
+        for (Throwable current = cause; null != current; current = current.getCause()) {
+            if (current instanceof ThingPlatformException tpCause && tpCause.getCode() == TOO_MANY_REQUESTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return _string;
+    }
+
+    /**
+     * 排队的设备
+     */
+    private static class Item {
+
+        private final String thingId;
+        private int attempts;
+        private long dispatchNanos;
+
+        private Item(String thingId) {
+            this.thingId = thingId;
+        }
+
+    }
+
+}
@@ -0,0 +1,203 @@
+package io.github.athingx.athing.platform.impl.message;
+
+import jakarta.jms.IllegalStateException;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JMS批量确认接收器
+ * <p>
+ * 在独立线程上主动拉取消息，消费成功的消息累积满批次或超过批次时限后统一确认一次，
+ * 将每条消息一次的确认往返合并为每批一次。
+ * </p>
+ * <p>
+ * {@code CLIENT_ACKNOWLEDGE}模式下确认会提交会话已投递的所有消息，
+ * 因此拉取、消费和确认都在同一线程上完成，确认时不会有消费中的消息被连带提交；
+ * 消费失败时恢复会话，本批次尚未确认的消息（包括已消费成功的）全部重新投递；
+ * 同一消息投递{@value #MAX_DELIVERY_ATTEMPTS}次仍消费失败时视为毒消息，记录日志后确认跳过，避免整批无限重投。
+ * </p>
+ * <p>
+ * 拉取连续出错时按指数退避重试；会话或连接已关闭时接收线程退出。
+ * </p>
+ */
+class JmsBatchReceiver implements Runnable {
+
+    /**
+     * 单次拉取的最长等待时间（毫秒），决定关闭的响应速度
+     */
+    private static final long IDLE_WAIT_MS = 1000L;
+
+    /**
+     * 单条消息的最大投递次数
+     */
+    private static final int MAX_DELIVERY_ATTEMPTS = 5;
+
+    /**
+     * 拉取出错时的退避时间上限（毫秒）
+     */
+    private static final long MAX_BACKOFF_MS = 30000L;
+
+    /**
+     * 投递次数属性（JMS定义的可选属性）
+     */
+    private static final String JMSX_DELIVERY_COUNT = "JMSXDeliveryCount";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final String name;
+    private final Session session;
+    private final MessageConsumer consumer;
+    private final JmsMessageListenerImpl listener;
+    private final int batchSize;
+    private final long batchTimeoutMs;
+    private volatile boolean closed;
+
+    // 以下状态只在接收线程上访问
+    private Message last;
+    private int pending;
+    private long deadline;
+
+    // 最近一次消费失败的消息及其投递次数，服务端不提供投递次数时使用
+    private String failedId;
+    private int failedAttempts;
+
+    /**
+     * JMS批量确认接收器
+     *
+     * @param name           名称
+     * @param session        JMS会话（CLIENT_ACKNOWLEDGE）
+     * @param consumer       JMS消息消费者
+     * @param listener       JMS消息监听器
+     * @param batchSize      确认批次大小
+     * @param batchTimeoutMs 确认批次时限（毫秒）
+     */
+    JmsBatchReceiver(String name, Session session, MessageConsumer consumer, JmsMessageListenerImpl listener, int batchSize, long batchTimeoutMs) {
+        this.name = name;
+        this.session = session;
+        this.consumer = consumer;
+        this.listener = listener;
+        this.batchSize = batchSize;
+        this.batchTimeoutMs = batchTimeoutMs;
+    }
+
+    @Override
+    public void run() {
+        long backoffMs = 0;
+        while (!closed) {
+            try {
+                receive();
+                backoffMs = 0;
+            } catch (IllegalStateException cause) {
+                if (!closed) {
+                    logger.warn("{}/jms/receive stopped, session closed!", name, cause);
+                }
+                break;
+            } catch (Throwable cause) {
+                if (closed) {
+                    break;
+                }
+                backoffMs = Math.min(MAX_BACKOFF_MS, Math.max(100L, backoffMs * 2));
+                logger.warn("{}/jms/receive error! backoff={}ms;", name, backoffMs, cause);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException iCause) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        // 退出前提交剩余批次
+        try {
+            commit();
+        } catch (JMSException cause) {
+            logger.warn("{}/jms/commit error! pending={};", name, pending, cause);
+        }
+    }
+
+    private void receive() throws JMSException {
+
+        // 单次拉取不超过空闲等待时间，批次时限较长时也能及时响应关闭
+        final long wait = pending > 0
+                ? Math.min(IDLE_WAIT_MS, Math.max(1L, deadline - System.currentTimeMillis()))
+                : IDLE_WAIT_MS;
+        final Message jmsMessage = consumer.receive(wait);
+
+        // 拉取超时，批次到期则提交
+        if (null == jmsMessage) {
+            if (pending > 0 && System.currentTimeMillis() >= deadline) {
+                commit();
+            }
+            return;
+        }
+
+        final String jmsMessageId = jmsMessage.getJMSMessageID();
+        try {
+            listener.onMessage(jmsMessage);
+        } catch (Throwable cause) {
+
+            // 毒消息：确认跳过（连同本批次此前已消费成功的消息）
+            final int attempts = attempts(jmsMessage, jmsMessageId);
+            if (attempts >= MAX_DELIVERY_ATTEMPTS) {
+                logger.warn("{}/jms/{}/discard, delivery attempts exhausted! attempts={};", name, jmsMessageId, attempts, cause);
+                failedId = null;
+                failedAttempts = 0;
+                last = jmsMessage;
+                pending++;
+                commit();
+                return;
+            }
+
+            logger.warn("{}/jms/{}/rollback, recover pending={};attempts={};", name, jmsMessageId, pending, attempts, cause);
+            failedId = jmsMessageId;
+            failedAttempts = attempts;
+            last = null;
+            pending = 0;
+            session.recover();
+            return;
+        }
+
+        last = jmsMessage;
+        if (pending++ == 0) {
+            deadline = System.currentTimeMillis() + batchTimeoutMs;
+        }
+        if (pending >= batchSize) {
+            commit();
+        }
+
+    }
+
+    // 消息的投递次数：优先使用JMSXDeliveryCount，否则按本接收器连续失败的次数计算
+    private int attempts(Message jmsMessage, String jmsMessageId) throws JMSException {
+        if (jmsMessage.propertyExists(JMSX_DELIVERY_COUNT)) {
+            return jmsMessage.getIntProperty(JMSX_DELIVERY_COUNT);
+        }
+        return null != jmsMessageId && jmsMessageId.equals(failedId) ? failedAttempts + 1 : 1;
+    }
+
+    // 提交批次
+    private void commit() throws JMSException {
+        if (null == last) {
+            return;
+        }
+        try {
+            last.acknowledge();
+            logger.debug("{}/jms/{}/commit, batch={};", name, last.getJMSMessageID(), pending);
+        } finally {
+            // 提交失败的批次由服务端在会话恢复后重新投递，不再重复提交
+            last = null;
+            pending = 0;
+        }
+    }
+
+    /**
+     * 关闭接收器，接收线程在当前拉取返回后提交剩余批次并退出
+     */
+    void close() {
+        closed = true;
+    }
+
+}
@@ -1,14 +1,17 @@
 package io.github.athingx.athing.platform.impl.message;
 
+import com.google.gson.stream.JsonReader;
+import io.github.athingx.athing.common.util.Utf8BytesReader;
 import io.github.athingx.athing.platform.api.message.ThingMessage;
 import io.github.athingx.athing.platform.api.message.ThingMessageListener;
 import io.github.athingx.athing.platform.api.message.decoder.DecodeException;
 import io.github.athingx.athing.platform.api.message.decoder.ThingMessageDecoder;
+import io.github.athingx.athing.platform.api.message.decoder.ThingMessageStreamDecoder;
 import jakarta.jms.JMSException;
 import jakarta.jms.Message;
 import jakarta.jms.MessageListener;
 
-import java.util.Set;
+import java.util.function.Supplier;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -17,21 +20,32 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  */
 class JmsMessageListenerImpl implements MessageListener {
 
-    private final Set<ThingMessageDecoder<?>> decoders;
+    private final Supplier<ThingMessageDecoderIndex> index;
     private final ThingMessageListener listener;
 
-    JmsMessageListenerImpl(final Set<ThingMessageDecoder<?>> decoders,
+    JmsMessageListenerImpl(final Supplier<ThingMessageDecoderIndex> index,
                            final ThingMessageListener listener) {
-        this.decoders = decoders;
+        this.index = index;
         this.listener = listener;
     }
 
-    private ThingMessage[] decode(String jmsMessageId, String jmsMessageTopic, String jmsMessageBody) throws DecodeException {
+    private ThingMessage[] decode(String jmsMessageId, String jmsMessageTopic, byte[] jmsMessageBody) throws DecodeException {
 
-        // 尝试进行解码
-        for (final ThingMessageDecoder<?> decoder : decoders) {
+        // 非流式解码器共享的消息内容字符串，按需构造
+        String jmsMessageBodyString = null;
+
+        // 按主题索引尝试进行解码
+        for (final ThingMessageDecoder<?> decoder : index.get().lookup(jmsMessageTopic)) {
             try {
-                final ThingMessage[] messages = decoder.decode(jmsMessageId, jmsMessageTopic, jmsMessageBody);
+                final ThingMessage[] messages;
+                if (decoder instanceof ThingMessageStreamDecoder<?> streamDecoder) {
+                    messages = streamDecoder.decode(jmsMessageId, jmsMessageTopic, new JsonReader(new Utf8BytesReader(jmsMessageBody)));
+                } else {
+                    if (null == jmsMessageBodyString) {
+                        jmsMessageBodyString = new String(jmsMessageBody, UTF_8);
+                    }
+                    messages = decoder.decode(jmsMessageId, jmsMessageTopic, jmsMessageBodyString);
+                }
                 if (null != messages && messages.length > 0) {
                     return messages;
                 }
@@ -69,17 +83,21 @@ class JmsMessageListenerImpl implements MessageListener {
         }
     }
 
-    @Override
-    public void onMessage(Message jmsMessage) {
+    /**
+     * 解码JMS消息
+     *
+     * @param jmsMessage JMS消息
+     * @return 设备消息
+     */
+    ThingMessage[] decode(Message jmsMessage) {
 
         final String jmsMessageId = parseMessageId(jmsMessage);
         final String jmsMessageTopic = parseTopic(jmsMessage, jmsMessageId);
-        final String jmsMessageBody = new String(parseBody(jmsMessage, jmsMessageId), UTF_8);
+        final byte[] jmsMessageBody = parseBody(jmsMessage, jmsMessageId);
 
         // JMS消息解码
-        final ThingMessage[] messages;
         try {
-            messages = decode(jmsMessageId, jmsMessageTopic, jmsMessageBody);
+            return decode(jmsMessageId, jmsMessageTopic, jmsMessageBody);
         } catch (DecodeException cause) {
             throw new RuntimeException(
                     "decode jms-message error! message-id=%s;topic=%s;".formatted(jmsMessageId, jmsMessageTopic),
@@ -87,18 +105,32 @@ class JmsMessageListenerImpl implements MessageListener {
             );
         }
 
-        // 处理设备消息
+    }
+
+    /**
+     * 处理设备消息
+     *
+     * @param jmsMessage JMS消息
+     * @param messages   JMS消息解码出的设备消息
+     */
+    void handle(Message jmsMessage, ThingMessage[] messages) {
         for (final ThingMessage message : messages) {
             try {
                 listener.onMessage(message);
             } catch (Exception cause) {
+                final String jmsMessageId = parseMessageId(jmsMessage);
+                final String jmsMessageTopic = parseTopic(jmsMessage, jmsMessageId);
                 throw new RuntimeException(
                         "handle thing-message error! message-id=%s;topic=%s;thing-message=%s;".formatted(jmsMessageId, jmsMessageTopic, message),
                         cause
                 );
             }
         }
+    }
 
+    @Override
+    public void onMessage(Message jmsMessage) {
+        handle(jmsMessage, decode(jmsMessage));
     }
 
 }
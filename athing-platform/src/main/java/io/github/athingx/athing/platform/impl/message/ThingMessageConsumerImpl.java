@@ -1,5 +1,6 @@
 package io.github.athingx.athing.platform.impl.message;
 
+import io.github.athingx.athing.platform.api.message.ThingMessage;
 import io.github.athingx.athing.platform.api.message.ThingMessageListener;
 import io.github.athingx.athing.platform.api.message.decoder.ThingLifeCycleMessageDecoder;
 import io.github.athingx.athing.platform.api.message.decoder.ThingMessageDecoder;
@@ -8,11 +9,14 @@ import io.github.athingx.athing.platform.message.ThingMessageConsumer;
 import jakarta.jms.JMSException;
 import jakarta.jms.Message;
 import jakarta.jms.MessageConsumer;
+import jakarta.jms.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.function.Consumer;
@@ -26,8 +30,27 @@ public class ThingMessageConsumerImpl implements ThingMessageConsumer {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    /**
+     * 单通道队列容量
+     */
+    private static final int LANE_CAPACITY = 1024;
+
+    /**
+     * 串行通道中单条消息的最大消费次数
+     */
+    private static final int LANE_MAX_ATTEMPTS = 5;
+
+    /**
+     * 串行通道重试的初始及最大退避时间（毫秒）
+     */
+    private static final long LANE_RETRY_BACKOFF_MS = 100L;
+    private static final long LANE_MAX_RETRY_BACKOFF_MS = 1000L;
+
     private final String _string;
-    private final MessageConsumer consumer;
+    private final List<MessageConsumer> consumers;
+    private final ThingMessageLanes lanes;
+    private final List<JmsBatchReceiver> receivers = new ArrayList<>();
+    private final List<Thread> receiverThreads = new ArrayList<>();
 
     /**
      * 设备消息解码器
@@ -42,6 +65,16 @@ public class ThingMessageConsumerImpl implements ThingMessageConsumer {
 
     }});
 
+    /**
+     * 附加的设备消息监听器
+     */
+    private final Set<ThingMessageListener> listeners = new CopyOnWriteArraySet<>();
+
+    /**
+     * 设备消息解码器主题索引，解码器集合变更后重建
+     */
+    private volatile ThingMessageDecoderIndex index = new ThingMessageDecoderIndex(decoders);
+
     /**
      * 构建设备消息消费者
      *
@@ -51,9 +84,67 @@ public class ThingMessageConsumerImpl implements ThingMessageConsumer {
      * @throws JMSException 构建失败
      */
     public ThingMessageConsumerImpl(String name, MessageConsumer consumer, ThingMessageListener listener) throws JMSException {
+        this(name, List.of(consumer), listener, 0);
+    }
+
+    /**
+     * 构建设备消息消费者
+     * <p>
+     * 每个JMS消息消费者应来自独立的会话，各自在会话的投递线程上并行消费；
+     * 串行通道数大于0时，消息在投递线程上解码后按设备散列到串行通道处理，同一设备的消息保持顺序，
+     * 此时各通道乱序完成确认，会话须为逐条确认模式；通道中消费失败的消息原地退避重试（重试时整条JMS消息重新交给监听器），
+     * 重试{@value #LANE_MAX_ATTEMPTS}次仍失败时确认跳过。
+     * </p>
+     *
+     * @param name      名称
+     * @param consumers JMS消息消费者集合
+     * @param listener  设备消息监听器
+     * @param lanes     串行通道数，0表示直接在投递线程上处理
+     * @throws JMSException 构建失败
+     */
+    public ThingMessageConsumerImpl(String name, Collection<MessageConsumer> consumers, ThingMessageListener listener, int lanes) throws JMSException {
+        this._string = name;
+        this.consumers = List.copyOf(consumers);
+        this.lanes = lanes > 0 ? new ThingMessageLanes(name, lanes, LANE_CAPACITY) : null;
+        for (final var consumer : this.consumers) {
+            setupMessageListener(consumer, listener);
+        }
+    }
+
+    /**
+     * 构建批量确认的设备消息消费者
+     * <p>
+     * 每个会话启动一个接收线程主动拉取消息，消费成功的消息累积满批次或超过批次时限后统一确认；
+     * 消费失败时恢复会话，本批次未确认的消息全部重新投递，因此设备消息监听器需要容忍重复消息。
+     * </p>
+     *
+     * @param name              名称
+     * @param consumers         JMS会话（CLIENT_ACKNOWLEDGE）及其消息消费者
+     * @param listener          设备消息监听器
+     * @param ackBatchSize      确认批次大小
+     * @param ackBatchTimeoutMs 确认批次时限（毫秒）
+     */
+    public ThingMessageConsumerImpl(String name, Map<Session, MessageConsumer> consumers, ThingMessageListener listener, int ackBatchSize, long ackBatchTimeoutMs) {
         this._string = name;
-        this.consumer = consumer;
-        setupMessageListener(consumer, listener);
+        this.consumers = List.copyOf(consumers.values());
+        this.lanes = null;
+        for (final var entry : consumers.entrySet()) {
+            final var receiver = new JmsBatchReceiver(
+                    name,
+                    entry.getKey(),
+                    entry.getValue(),
+                    new JmsMessageListenerImpl(() -> index, compose(listener)),
+                    ackBatchSize,
+                    ackBatchTimeoutMs
+            );
+            final var thread = new Thread(receiver) {{
+                setDaemon(true);
+                setName("%s-receiver-%d".formatted(name, receivers.size()));
+            }};
+            receivers.add(receiver);
+            receiverThreads.add(thread);
+        }
+        receiverThreads.forEach(Thread::start);
     }
 
     /**
@@ -64,7 +155,11 @@ public class ThingMessageConsumerImpl implements ThingMessageConsumer {
      * @throws JMSException 设置失败
      */
     private void setupMessageListener(MessageConsumer consumer, ThingMessageListener listener) throws JMSException {
-        consumer.setMessageListener(new JmsMessageListenerImpl(decoders, listener) {
+        if (null != lanes) {
+            setupLaneMessageListener(consumer, listener);
+            return;
+        }
+        consumer.setMessageListener(new JmsMessageListenerImpl(() -> index, compose(listener)) {
 
             @Override
             public void onMessage(Message jmsMessage) {
@@ -95,6 +190,102 @@ public class ThingMessageConsumerImpl implements ThingMessageConsumer {
         });
     }
 
+    /**
+     * 设置串行通道消息监听器
+     *
+     * @param consumer JMS消息消费者
+     * @param listener 设备消息监听器
+     * @throws JMSException 设置失败
+     */
+    private void setupLaneMessageListener(MessageConsumer consumer, ThingMessageListener listener) throws JMSException {
+        consumer.setMessageListener(new JmsMessageListenerImpl(() -> index, compose(listener)) {
+
+            @Override
+            public void onMessage(Message jmsMessage) {
+
+                final String jmsMessageId;
+                try {
+                    jmsMessageId = jmsMessage.getJMSMessageID();
+                } catch (JMSException cause) {
+                    throw new RuntimeException(cause);
+                }
+
+                // 在投递线程上解码，解码失败的消息不确认，由服务端重新投递
+                final ThingMessage[] messages;
+                try {
+                    messages = decode(jmsMessage);
+                } catch (Throwable cause) {
+                    logger.warn("{}/jms/{}/rollback", _string, jmsMessageId, cause);
+                    throw new RuntimeException(cause);
+                }
+
+                // 按设备投递到串行通道
+                final ThingMessage first = messages[0];
+                lanes.execute(first.getProductId(), first.getThingId(), () -> handleInLane(jmsMessage, jmsMessageId, messages));
+
+            }
+
+            // 在串行通道中消费：失败时原地退避重试，重试期间同一设备的后续消息不会越过；
+            // 投递线程之外不能恢复会话，重试耗尽时视为毒消息，记录日志后确认跳过
+            private void handleInLane(Message jmsMessage, String jmsMessageId, ThingMessage[] messages) {
+                long backoffMs = LANE_RETRY_BACKOFF_MS;
+                for (int attempts = 1; ; attempts++) {
+                    try {
+
+                        // 消费消息
+                        handle(jmsMessage, messages);
+
+                        // 消费成功则提交消息
+                        jmsMessage.acknowledge();
+                        logger.debug("{}/jms/{}/commit", _string, jmsMessageId);
+                        return;
+
+                    } catch (Throwable cause) {
+                        if (attempts >= LANE_MAX_ATTEMPTS) {
+                            logger.warn("{}/jms/{}/discard, lane attempts exhausted! attempts={};", _string, jmsMessageId, attempts, cause);
+                            acknowledgeQuietly(jmsMessage, jmsMessageId);
+                            return;
+                        }
+                        logger.warn("{}/jms/{}/retry, attempts={};backoff={}ms;", _string, jmsMessageId, attempts, backoffMs, cause);
+                    }
+
+                    // 关闭时中断：不再重试也不确认，消息在会话关闭后由服务端重新投递
+                    try {
+                        Thread.sleep(backoffMs);
+                    } catch (InterruptedException iCause) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    backoffMs = Math.min(backoffMs * 2, LANE_MAX_RETRY_BACKOFF_MS);
+                }
+            }
+
+            private void acknowledgeQuietly(Message jmsMessage, String jmsMessageId) {
+                try {
+                    jmsMessage.acknowledge();
+                } catch (JMSException cause) {
+                    logger.warn("{}/jms/{}/commit error!", _string, jmsMessageId, cause);
+                }
+            }
+
+        });
+    }
+
+    // 组合主监听器和附加监听器：附加监听器（缓存清除、在线状态）先于主监听器执行，主监听器失败时也不会错过消息，
+    // 主监听器看到的缓存已经清除；主监听器失败重新投递时附加监听器会再次收到同一消息，需要幂等
+    private ThingMessageListener compose(ThingMessageListener listener) {
+        return message -> {
+            for (final ThingMessageListener extra : listeners) {
+                try {
+                    extra.onMessage(message);
+                } catch (Exception cause) {
+                    logger.warn("{}/listener error! listener={};", _string, extra, cause);
+                }
+            }
+            listener.onMessage(message);
+        };
+    }
+
     @Override
     public String toString() {
         return _string;
@@ -102,13 +293,29 @@ public class ThingMessageConsumerImpl implements ThingMessageConsumer {
 
     @Override
     public void close() throws Exception {
-        consumer.close();
+        receivers.forEach(JmsBatchReceiver::close);
+        for (final var thread : receiverThreads) {
+            thread.join();
+        }
+        for (final var consumer : consumers) {
+            consumer.close();
+        }
+        if (null != lanes) {
+            lanes.close();
+        }
         logger.debug("{} closed!", this);
     }
 
     @Override
-    public void decoders(Consumer<Set<ThingMessageDecoder<?>>> setupFn) {
+    public synchronized void decoders(Consumer<Set<ThingMessageDecoder<?>>> setupFn) {
         setupFn.accept(decoders);
+        index = new ThingMessageDecoderIndex(decoders);
+    }
+
+    @Override
+    public boolean listeners(Consumer<Set<ThingMessageListener>> setupFn) {
+        setupFn.accept(listeners);
+        return true;
     }
 
     @Override
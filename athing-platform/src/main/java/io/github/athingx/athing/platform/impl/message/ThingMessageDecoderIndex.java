@@ -0,0 +1,57 @@
+package io.github.athingx.athing.platform.impl.message;
+
+import io.github.athingx.athing.common.util.TopicTrie;
+import io.github.athingx.athing.platform.api.message.decoder.ThingMessageDecoder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 设备消息解码器主题索引
+ * <p>
+ * 按解码器的主题表达式建立前缀树，消息只交给主题匹配的解码器，并保持解码器的登记顺序；
+ * 索引不可变，解码器集合变更后需重新构建。
+ * </p>
+ */
+class ThingMessageDecoderIndex {
+
+    private final TopicTrie<Entry> trie = new TopicTrie<>();
+
+    /**
+     * 设备消息解码器主题索引
+     *
+     * @param decoders 解码器集合（按登记顺序）
+     */
+    ThingMessageDecoderIndex(Collection<ThingMessageDecoder<?>> decoders) {
+        int order = 0;
+        for (final var decoder : decoders) {
+            trie.add(decoder.express(), new Entry(order++, decoder));
+        }
+    }
+
+    /**
+     * 查找主题匹配的解码器
+     *
+     * @param topic 主题
+     * @return 解码器列表（按登记顺序）
+     */
+    List<ThingMessageDecoder<?>> lookup(String topic) {
+        final var entries = new ArrayList<Entry>(2);
+        trie.match(topic, entries::add);
+        if (entries.size() > 1) {
+            entries.sort(Comparator.comparingInt(Entry::order));
+        }
+        final var matched = new ArrayList<ThingMessageDecoder<?>>(entries.size());
+        for (final var entry : entries) {
+            matched.add(entry.decoder());
+        }
+        return matched;
+    }
+
+    private record Entry(int order, ThingMessageDecoder<?> decoder) {
+
+    }
+
+}
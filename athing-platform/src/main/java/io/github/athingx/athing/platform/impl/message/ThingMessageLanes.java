@@ -0,0 +1,75 @@
+package io.github.athingx.athing.platform.impl.message;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 设备消息串行通道组
+ * <p>
+ * 按设备将消息散列到固定数量的单线程通道，同一设备的消息总是落在同一通道并按到达顺序处理，
+ * 不同设备的消息在多个通道间并行；通道队列有界，队列满时阻塞投递线程形成背压。
+ * </p>
+ */
+class ThingMessageLanes implements AutoCloseable {
+
+    private final ExecutorService[] lanes;
+
+    /**
+     * 设备消息串行通道组
+     *
+     * @param name     名称
+     * @param size     通道数
+     * @param capacity 单通道队列容量
+     */
+    ThingMessageLanes(String name, int size, int capacity) {
+        this.lanes = new ExecutorService[size];
+        for (int index = 0; index < size; index++) {
+            final var laneName = "%s-lane-%d".formatted(name, index);
+            lanes[index] = new ThreadPoolExecutor(
+                    1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(capacity),
+                    r -> new Thread(r) {{
+                        setDaemon(true);
+                        setName(laneName);
+                    }},
+                    (r, executor) -> {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("%s is shutdown!".formatted(laneName));
+                        }
+                        try {
+                            executor.getQueue().put(r);
+                        } catch (InterruptedException cause) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException(cause);
+                        }
+                    }
+            );
+        }
+    }
+
+    /**
+     * 投递任务
+     *
+     * @param productId 产品ID
+     * @param thingId   设备ID
+     * @param task      任务
+     */
+    void execute(String productId, String thingId, Runnable task) {
+        final int hash = 31 * productId.hashCode() + thingId.hashCode();
+        lanes[Math.floorMod(hash, lanes.length)].execute(task);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        for (final var lane : lanes) {
+            lane.shutdown();
+        }
+        for (final var lane : lanes) {
+            lane.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package io.github.athingx.athing.platform.impl.presence;
+
+import io.github.athingx.athing.platform.api.message.ThingLifeCycleMessage;
+import io.github.athingx.athing.platform.api.message.ThingMessage;
+import io.github.athingx.athing.platform.api.message.ThingMessageListener;
+import io.github.athingx.athing.platform.api.message.ThingStateMessage;
+import io.github.athingx.athing.platform.api.presence.ThingPresence;
+import io.github.athingx.athing.platform.api.presence.ThingPresenceState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 设备在线状态索引实现
+ * <p>
+ * 作为设备消息监听器接收设备状态消息和设备删除消息，按产品分表维护。
+ * </p>
+ */
+public class ThingPresenceIndex implements ThingPresence, ThingMessageListener {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Map<String, ThingPresenceTable> tables = new ConcurrentHashMap<>();
+
+    @Override
+    public void onMessage(ThingMessage message) {
+
+        // 设备状态
+        if (message instanceof ThingStateMessage stateMessage) {
+            final boolean updated = tables
+                    .computeIfAbsent(message.getProductId(), ThingPresenceTable::new)
+                    .update(stateMessage);
+            if (!updated) {
+                logger.debug("presence/{}/{} drop stale state! timestamp={};state={};",
+                        message.getProductId(), message.getThingId(), message.getTimestamp(), stateMessage.getState());
+            }
+        }
+
+        // 设备删除
+        else if (message instanceof ThingLifeCycleMessage lifeCycleMessage
+                && lifeCycleMessage.getLifeCycle() == ThingLifeCycleMessage.LifeCycle.DELETE) {
+            final ThingPresenceTable table = tables.get(message.getProductId());
+            if (null != table) {
+                table.remove(message.getThingId(), message.getTimestamp());
+            }
+        }
+
+    }
+
+    @Override
+    public ThingPresenceState get(String productId, String thingId) {
+        final ThingPresenceTable table = tables.get(productId);
+        return null == table ? null : table.get(thingId);
+    }
+
+    @Override
+    public boolean isOnline(String productId, String thingId) {
+        final ThingPresenceTable table = tables.get(productId);
+        return null != table && table.isOnline(thingId);
+    }
+
+    @Override
+    public void forEach(String productId, Consumer<ThingPresenceState> action) {
+        final ThingPresenceTable table = tables.get(productId);
+        if (null != table) {
+            table.forEach(action);
+        }
+    }
+
+    @Override
+    public int count(String productId) {
+        final ThingPresenceTable table = tables.get(productId);
+        return null == table ? 0 : table.size();
+    }
+
+    @Override
+    public int countOnline(String productId) {
+        final ThingPresenceTable table = tables.get(productId);
+        return null == table ? 0 : table.online();
+    }
+
+}
@@ -0,0 +1,412 @@
+package io.github.athingx.athing.platform.impl.presence;
+
+import io.github.athingx.athing.platform.api.message.ThingStateMessage;
+import io.github.athingx.athing.platform.api.presence.ThingPresenceState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * 产品设备在线状态表
+ * <p>
+ * 开放寻址（线性探测）哈希表，设备字段按列存放在基本类型数组中，每个设备只额外占用设备ID引用和约三十字节，
+ * 不为设备创建节点、包装对象和IP字符串（IPv4按整数存放）；装载因子不超过一半，删除时回移后继元素而不留墓碑。
+ * </p>
+ * <p>
+ * 写入持有写锁；读取先乐观读，期间表被修改则退回读锁重读。扩容时整表替换，乐观读总是在同一张表内探测。
+ * 乐观读只复制槽位中的字段，校验通过后才构造状态和查找非IPv4地址；遍历在读锁内复制全部状态，释放锁后再回调。
+ * </p>
+ */
+class ThingPresenceTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // IP编码：非负为IPv4，其余为以下标记
+    private static final long IP_NONE = -1L;
+    private static final long IP_OTHER = -2L;
+
+    private static final ThingStateMessage.State[] STATES = ThingStateMessage.State.values();
+
+    private final String productId;
+    private final StampedLock lock = new StampedLock();
+
+    // 非IPv4地址（如IPv6）单独存放
+    private final Map<String, String> otherIps = new ConcurrentHashMap<>();
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private volatile int size;
+    private volatile int online;
+
+    /**
+     * 产品设备在线状态表
+     *
+     * @param productId 产品ID
+     */
+    ThingPresenceTable(String productId) {
+        this.productId = productId;
+    }
+
+    /**
+     * 更新设备状态
+     *
+     * @param message 设备状态消息
+     * @return TRUE：已更新；FALSE：消息早于已有状态，丢弃
+     */
+    boolean update(ThingStateMessage message) {
+        final String thingId = message.getThingId();
+        final int hash = spread(thingId.hashCode());
+        final long stamp = lock.writeLock();
+        try {
+            Table t = table;
+            int slot = t.find(thingId, hash);
+
+            // 乱序到达的旧状态
+            if (slot >= 0 && message.getTimestamp() < t.timestamps[slot]) {
+                return false;
+            }
+
+            // 新设备，装载超过一半时扩容
+            if (slot < 0) {
+                if ((size + 1) * 2 > t.thingIds.length) {
+                    table = t = t.resize(t.thingIds.length << 1);
+                }
+                slot = t.insert(thingId, hash);
+                size++;
+            } else if (t.states[slot] == ThingStateMessage.State.ONLINE.ordinal()) {
+                online--;
+            }
+
+            final long ip = encodeIp(message.getLastOnlineIp());
+            if (ip == IP_OTHER) {
+                otherIps.put(thingId, message.getLastOnlineIp());
+            } else if (t.ips[slot] == IP_OTHER) {
+                otherIps.remove(thingId);
+            }
+
+            t.timestamps[slot] = message.getTimestamp();
+            t.lastOnlineTimestamps[slot] = message.getLastOnlineTimestamp();
+            t.ips[slot] = ip;
+            t.states[slot] = (byte) message.getState().ordinal();
+            if (message.getState() == ThingStateMessage.State.ONLINE) {
+                online++;
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 移除设备
+     *
+     * @param thingId   设备ID
+     * @param timestamp 移除时间戳，早于已有状态时不移除
+     * @return TRUE：已移除；FALSE：设备不存在或移除早于已有状态
+     */
+    boolean remove(String thingId, long timestamp) {
+        final int hash = spread(thingId.hashCode());
+        final long stamp = lock.writeLock();
+        try {
+            final Table t = table;
+            final int slot = t.find(thingId, hash);
+            if (slot < 0 || timestamp < t.timestamps[slot]) {
+                return false;
+            }
+            if (t.states[slot] == ThingStateMessage.State.ONLINE.ordinal()) {
+                online--;
+            }
+            if (t.ips[slot] == IP_OTHER) {
+                otherIps.remove(thingId);
+            }
+            t.delete(slot);
+            size--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 获取设备状态
+     *
+     * @param thingId 设备ID
+     * @return 设备状态，不存在时为{@code null}
+     */
+    ThingPresenceState get(String thingId) {
+        final int hash = spread(thingId.hashCode());
+
+        // 乐观读：复制字段并校验，非IPv4地址在校验后查找，查找期间表被修改同样重读
+        long stamp = lock.tryOptimisticRead();
+        final Row row = read(table, thingId, hash);
+        if (lock.validate(stamp)) {
+            if (null == row) {
+                return null;
+            }
+            final String otherIp = row.ip == IP_OTHER ? otherIps.get(row.thingId) : null;
+            if (lock.validate(stamp)) {
+                return state(row, otherIp);
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            final Row locked = read(table, thingId, hash);
+            return null == locked ? null : state(locked, locked.ip == IP_OTHER ? otherIps.get(thingId) : null);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 设备是否在线
+     *
+     * @param thingId 设备ID
+     * @return TRUE | FALSE
+     */
+    boolean isOnline(String thingId) {
+        final int hash = spread(thingId.hashCode());
+        long stamp = lock.tryOptimisticRead();
+        boolean isOnline = isOnline(table, thingId, hash);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                isOnline = isOnline(table, thingId, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return isOnline;
+    }
+
+    /**
+     * 遍历设备状态
+     *
+     * @param action 遍历动作
+     */
+    void forEach(Consumer<ThingPresenceState> action) {
+
+        // 读锁内复制，释放锁后回调，回调不阻塞状态更新
+        final List<ThingPresenceState> states;
+        final long stamp = lock.readLock();
+        try {
+            final Table t = table;
+            states = new ArrayList<>(size);
+            for (int slot = 0; slot < t.thingIds.length; slot++) {
+                final String thingId = t.thingIds[slot];
+                if (null != thingId) {
+                    final Row row = row(t, slot);
+                    states.add(state(row, row.ip == IP_OTHER ? otherIps.get(thingId) : null));
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        states.forEach(action);
+    }
+
+    /**
+     * 获取设备数
+     *
+     * @return 设备数
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 获取在线设备数
+     *
+     * @return 在线设备数
+     */
+    int online() {
+        return online;
+    }
+
+    // 乐观读期间表可能被并发修改，读到的字段由调用方校验后才能使用
+    private static Row read(Table t, String thingId, int hash) {
+        final int slot = t.find(thingId, hash);
+        return slot < 0 ? null : row(t, slot);
+    }
+
+    private static boolean isOnline(Table t, String thingId, int hash) {
+        final int slot = t.find(thingId, hash);
+        return slot >= 0 && t.states[slot] == ThingStateMessage.State.ONLINE.ordinal();
+    }
+
+    private static Row row(Table t, int slot) {
+        return new Row(
+                t.thingIds[slot],
+                t.states[slot],
+                t.timestamps[slot],
+                t.lastOnlineTimestamps[slot],
+                t.ips[slot]
+        );
+    }
+
+    private ThingPresenceState state(Row row, String otherIp) {
+        return new ThingPresenceState(
+                productId,
+                row.thingId,
+                STATES[row.state],
+                row.timestamp,
+                row.lastOnlineTimestamp,
+                row.ip == IP_OTHER ? otherIp : decodeIp(row.ip)
+        );
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // IPv4编码为整数，其余返回标记
+    static long encodeIp(String ip) {
+        if (null == ip || ip.isEmpty()) {
+            return IP_NONE;
+        }
+        long value = 0;
+        int octet = -1, dots = 0;
+        for (int index = 0; index < ip.length(); index++) {
+            final char ch = ip.charAt(index);
+            if (ch == '.') {
+                if (octet < 0 || ++dots > 3) {
+                    return IP_OTHER;
+                }
+                value = value << 8 | octet;
+                octet = -1;
+            } else if (ch >= '0' && ch <= '9') {
+                octet = octet < 0 ? ch - '0' : octet * 10 + ch - '0';
+                if (octet > 255) {
+                    return IP_OTHER;
+                }
+            } else {
+                return IP_OTHER;
+            }
+        }
+        if (octet < 0 || dots != 3) {
+            return IP_OTHER;
+        }
+        return value << 8 | octet;
+    }
+
+    static String decodeIp(long ip) {
+        if (ip < 0) {
+            return null;
+        }
+        return new StringBuilder(15)
+                .append(ip >>> 24 & 0xFF).append('.')
+                .append(ip >>> 16 & 0xFF).append('.')
+                .append(ip >>> 8 & 0xFF).append('.')
+                .append(ip & 0xFF)
+                .toString();
+    }
+
+    /**
+     * 槽位字段的副本
+     *
+     * @param thingId             设备ID
+     * @param state               状态序号
+     * @param timestamp           状态时间戳
+     * @param lastOnlineTimestamp 最后上线时间戳
+     * @param ip                  IP编码
+     */
+    private record Row(String thingId, byte state, long timestamp, long lastOnlineTimestamp, long ip) {
+
+    }
+
+    /**
+     * 列式存放的哈希表，容量为2的幂
+     */
+    private static final class Table {
+
+        final String[] thingIds;
+        final int[] hashes;
+        final long[] timestamps;
+        final long[] lastOnlineTimestamps;
+        final long[] ips;
+        final byte[] states;
+
+        Table(int capacity) {
+            this.thingIds = new String[capacity];
+            this.hashes = new int[capacity];
+            this.timestamps = new long[capacity];
+            this.lastOnlineTimestamps = new long[capacity];
+            this.ips = new long[capacity];
+            this.states = new byte[capacity];
+        }
+
+        // 查找槽位，不存在返回-1；探测步数以容量为限，避免乐观读时遇到并发修改而无法终止
+        int find(String thingId, int hash) {
+            final int mask = thingIds.length - 1;
+            for (int step = 0, slot = hash & mask; step <= mask; step++, slot = (slot + 1) & mask) {
+                final String exist = thingIds[slot];
+                if (null == exist) {
+                    return -1;
+                }
+                if (hashes[slot] == hash && exist.equals(thingId)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        // 插入新键，返回槽位；调用方保证键不存在且表未满
+        int insert(String thingId, int hash) {
+            final int mask = thingIds.length - 1;
+            int slot = hash & mask;
+            while (null != thingIds[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            thingIds[slot] = thingId;
+            hashes[slot] = hash;
+            return slot;
+        }
+
+        // 删除槽位，将探测链上的后继元素回移以保持链连续
+        void delete(int slot) {
+            final int mask = thingIds.length - 1;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; null != thingIds[next]; next = (next + 1) & mask) {
+                final int home = hashes[next] & mask;
+
+                // 后继元素的理想位置不在(hole, next]区间内时可以回移到空洞
+                final boolean stay = hole <= next
+                        ? hole < home && home <= next
+                        : hole < home || home <= next;
+                if (!stay) {
+                    move(next, hole);
+                    hole = next;
+                }
+            }
+            thingIds[hole] = null;
+        }
+
+        private void move(int from, int to) {
+            thingIds[to] = thingIds[from];
+            hashes[to] = hashes[from];
+            timestamps[to] = timestamps[from];
+            lastOnlineTimestamps[to] = lastOnlineTimestamps[from];
+            ips[to] = ips[from];
+            states[to] = states[from];
+        }
+
+        Table resize(int capacity) {
+            final Table resized = new Table(capacity);
+            for (int slot = 0; slot < thingIds.length; slot++) {
+                if (null != thingIds[slot]) {
+                    final int target = resized.insert(thingIds[slot], hashes[slot]);
+                    resized.timestamps[target] = timestamps[slot];
+                    resized.lastOnlineTimestamps[target] = lastOnlineTimestamps[slot];
+                    resized.ips[target] = ips[slot];
+                    resized.states[target] = states[slot];
+                }
+            }
+            return resized;
+        }
+
+    }
+
+}
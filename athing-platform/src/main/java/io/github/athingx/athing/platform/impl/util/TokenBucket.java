@@ -0,0 +1,60 @@
+package io.github.athingx.athing.platform.impl.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶
+ * <p>
+ * 按固定速率补充令牌，桶容量决定允许的突发量；令牌不足时预支并返回需要等待的时间，
+ * 多个等待者按预支顺序依次放行，整体速率不超过设定值。
+ * </p>
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastNanos;
+
+    /**
+     * 令牌桶
+     *
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param capacity         桶容量
+     */
+    public TokenBucket(double permitsPerSecond, double capacity) {
+        if (permitsPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("illegal token bucket: rate=%s;capacity=%s;".formatted(permitsPerSecond, capacity));
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastNanos = System.nanoTime();
+    }
+
+    /**
+     * 预支一个令牌
+     *
+     * @return 需要等待的时间（纳秒），0表示立即可用
+     */
+    public synchronized long reserve() {
+        final long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastNanos) * permitsPerNano);
+        lastNanos = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+
+    /**
+     * 获取一个令牌，令牌不足时阻塞等待
+     *
+     * @throws InterruptedException 等待被中断
+     */
+    public void acquire() throws InterruptedException {
+        final long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+}
@@ -1,5 +1,6 @@
 package io.github.athingx.athing.platform.message;
 
+import io.github.athingx.athing.platform.api.message.ThingMessageListener;
 import io.github.athingx.athing.platform.api.message.decoder.ThingMessageDecoder;
 
 import java.util.Collection;
@@ -25,4 +26,18 @@ public interface ThingMessageConsumer extends AutoCloseable {
      */
     Collection<ThingMessageDecoder<?>> decoders();
 
+    /**
+     * 设置附加的设备消息监听器
+     * <p>
+     * 附加监听器与主监听器收到同一设备消息，其异常只记录日志，不影响消息确认。
+     * 不支持附加监听器的消费者不调用设置函数。
+     * </p>
+     *
+     * @param setupFn 附加设备消息监听器设置函数
+     * @return 是否支持附加监听器
+     */
+    default boolean listeners(Consumer<Set<ThingMessageListener>> setupFn) {
+        return false;
+    }
+
 }
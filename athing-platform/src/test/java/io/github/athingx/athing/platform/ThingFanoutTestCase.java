@@ -0,0 +1,201 @@
+package io.github.athingx.athing.platform;
+
+import io.github.athingx.athing.platform.api.ThingPlatform;
+import io.github.athingx.athing.platform.api.ThingPlatformException;
+import io.github.athingx.athing.platform.api.client.ThingPlatformClient;
+import io.github.athingx.athing.platform.api.fanout.ThingFanoutOption;
+import io.github.athingx.athing.platform.api.fanout.ThingFanoutResult;
+import io.github.athingx.athing.platform.builder.ThingPlatformBuilder;
+import io.github.athingx.athing.platform.mock.MockThingTemplate;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.athingx.athing.common.ThingCodes.TOO_MANY_REQUESTS;
+
+/**
+ * 批量下发测试用例
+ */
+public class ThingFanoutTestCase {
+
+    private static final String PRODUCT_ID = "mock-product";
+
+    /**
+     * 模拟设备模板：记录所属设备
+     */
+    private static class FanoutThingTemplate extends MockThingTemplate {
+
+        private final String thingId;
+
+        FanoutThingTemplate(String thingId) {
+            this.thingId = thingId;
+        }
+
+    }
+
+    private ThingPlatform platform;
+
+    @Before
+    public void before() throws Exception {
+        platform = new ThingPlatformBuilder()
+                .client(new ThingPlatformClient() {
+
+                    @Override
+                    public <T, R> R execute(T request, Class<R> responseClass) {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public void shutdown() {
+
+                    }
+
+                })
+                .build();
+        platform.register(FanoutThingTemplate.class, (client, productId, thingId) -> new FanoutThingTemplate(thingId));
+    }
+
+    @After
+    public void after() {
+        platform.destroy();
+    }
+
+    private static List<String> thingIds(int count) {
+        final List<String> thingIds = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            thingIds.add("thing-%d".formatted(index));
+        }
+        return thingIds;
+    }
+
+    @Test
+    public void thing$fanout$parallelism() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final List<ThingFanoutResult<String>> results = new CopyOnWriteArrayList<>();
+        platform.fanout(
+                FanoutThingTemplate.class,
+                PRODUCT_ID,
+                thingIds(20),
+                new ThingFanoutOption().parallelism(3).rate(500, 500).rate(500),
+                template -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(10);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    return template.thingId;
+                },
+                results::add
+        ).get(10, TimeUnit.SECONDS);
+
+        // 每台设备恰好回调一次，同时执行的操作不超过并行度
+        Assert.assertEquals(20, results.size());
+        final Set<String> thingIds = new HashSet<>();
+        for (final var result : results) {
+            Assert.assertEquals(result.thingId(), result.value());
+            Assert.assertTrue(result.isSuccess());
+            thingIds.add(result.thingId());
+        }
+        Assert.assertEquals(new HashSet<>(thingIds(20)), thingIds);
+        Assert.assertTrue("peak=%d".formatted(peak.get()), peak.get() <= 3);
+    }
+
+    @Test
+    public void thing$fanout$throttle() throws Exception {
+        final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        final List<ThingFanoutResult<String>> results = new CopyOnWriteArrayList<>();
+        platform.fanout(
+                FanoutThingTemplate.class,
+                PRODUCT_ID,
+                thingIds(10),
+                new ThingFanoutOption().parallelism(4).rate(50, 500).rate(200).retries(2),
+                template -> {
+
+                    // thing-0总被流控，其余设备首次被流控
+                    final int attempt = attempts.computeIfAbsent(template.thingId, key -> new AtomicInteger()).incrementAndGet();
+                    if (template.thingId.equals("thing-0") || attempt == 1) {
+                        throw new ThingPlatformException(TOO_MANY_REQUESTS, "throttled", null);
+                    }
+                    return template.thingId;
+                },
+                results::add
+        ).get(30, TimeUnit.SECONDS);
+
+        // 被流控的设备重新排队，重试用尽后以流控异常结束
+        Assert.assertEquals(10, results.size());
+        for (final var result : results) {
+            if (result.thingId().equals("thing-0")) {
+                Assert.assertFalse(result.isSuccess());
+                Assert.assertEquals(3, result.attempts());
+            } else {
+                Assert.assertTrue(result.isSuccess());
+                Assert.assertEquals(2, result.attempts());
+            }
+        }
+    }
+
+    @Test
+    public void thing$fanout$cancel() throws Exception {
+        final CountDownLatch blocking = new CountDownLatch(1);
+        final AtomicInteger executes = new AtomicInteger();
+        final var future = platform.fanout(
+                FanoutThingTemplate.class,
+                PRODUCT_ID,
+                thingIds(10),
+                new ThingFanoutOption().parallelism(2).rate(500, 500).rate(500),
+                template -> {
+                    executes.incrementAndGet();
+                    blocking.await();
+                    return template.thingId;
+                },
+                result -> {
+                }
+        );
+
+        // 取消后不再放行排队中的设备
+        while (executes.get() < 2) {
+            Thread.onSpinWait();
+        }
+        future.cancel(false);
+        blocking.countDown();
+        TimeUnit.MILLISECONDS.sleep(200);
+        Assert.assertEquals(2, executes.get());
+    }
+
+    @Test
+    public void thing$fanout$destroyed() throws Exception {
+        platform.destroy();
+
+        // 平台销毁后执行器拒绝，任务以异常结束而非挂起
+        try {
+            platform.fanout(
+                    FanoutThingTemplate.class,
+                    PRODUCT_ID,
+                    thingIds(5),
+                    new ThingFanoutOption(),
+                    template -> template.thingId,
+                    result -> {
+                    }
+            ).get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException cause) {
+            Assert.assertNotNull(cause.getCause());
+        }
+    }
+
+}
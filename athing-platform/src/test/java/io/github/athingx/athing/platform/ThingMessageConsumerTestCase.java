@@ -0,0 +1,250 @@
+package io.github.athingx.athing.platform;
+
+import io.github.athingx.athing.platform.api.message.ThingMessage;
+import io.github.athingx.athing.platform.api.message.ThingMessageListener;
+import io.github.athingx.athing.platform.builder.message.AliyunThingMessageConsumerFactory;
+import io.github.athingx.athing.platform.mock.MockJmsBroker;
+import io.github.athingx.athing.platform.mock.MockJmsMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 设备消息消费者测试用例
+ * <p>使用模拟JMS服务端，覆盖按设备顺序消费（串行通道）的重试、毒消息和关闭顺序，以及批量确认的提交、恢复和毒消息</p>
+ */
+public class ThingMessageConsumerTestCase {
+
+    private static final String PRODUCT_ID = "mock-product";
+
+    private final MockJmsBroker broker = new MockJmsBroker();
+
+    private static MockJmsMessage lifecycle(String thingId, long timestamp) {
+        return MockJmsMessage.message(
+                "%s-%d".formatted(thingId, timestamp),
+                "/%s/%s/thing/lifecycle".formatted(PRODUCT_ID, thingId),
+                """
+                        {
+                            "action": "enable",
+                            "iotId": "iot-%s",
+                            "productKey": "%s",
+                            "deviceName": "%s",
+                            "messageCreateTime": %d
+                        }
+                        """.formatted(thingId, PRODUCT_ID, thingId, timestamp)
+        );
+    }
+
+    private AliyunThingMessageConsumerFactory factory(ThingMessageListener listener) {
+        return new AliyunThingMessageConsumerFactory()
+                .queue("mock-queue")
+                .connection(broker::connection)
+                .ordered(true)
+                .concurrency(4)
+                .listener(listener);
+    }
+
+    private AliyunThingMessageConsumerFactory batchFactory(int size, long timeoutMs, ThingMessageListener listener) {
+        return new AliyunThingMessageConsumerFactory()
+                .queue("mock-queue")
+                .connection(broker::connection)
+                .ackBatch(size, timeoutMs)
+                .listener(listener);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    @Test
+    public void thing$consumer$ordered$retry() throws Exception {
+        final Map<String, List<Long>> handled = new ConcurrentHashMap<>();
+        final AtomicInteger failures = new AtomicInteger();
+        final var consumer = factory(message -> {
+
+            // thing-0的第3条消息前两次消费失败
+            if (message.getThingId().equals("thing-0") && message.getTimestamp() == 3 && failures.getAndIncrement() < 2) {
+                throw new IllegalStateException("mock failure");
+            }
+            handled.computeIfAbsent(message.getThingId(), k -> new CopyOnWriteArrayList<>()).add(message.getTimestamp());
+
+        }).make();
+
+        final List<String> ids = new ArrayList<>();
+        for (long timestamp = 1; timestamp <= 20; timestamp++) {
+            for (int thing = 0; thing < 8; thing++) {
+                final var message = lifecycle("thing-%d".formatted(thing), timestamp);
+                ids.add(message.getJMSMessageID());
+                broker.send(message);
+            }
+        }
+        broker.dispatch();
+        consumer.close();
+
+        // 两次失败、一次成功；同一设备的消息保持顺序，全部确认
+        Assert.assertEquals(3, failures.get());
+        Assert.assertEquals(8, handled.size());
+        handled.forEach((thingId, timestamps) -> {
+            for (int index = 0; index < timestamps.size(); index++) {
+                Assert.assertEquals(thingId, index + 1, timestamps.get(index).longValue());
+            }
+        });
+        Assert.assertTrue(broker.acknowledged().containsAll(ids));
+        Assert.assertTrue(broker.isClosed());
+    }
+
+    @Test
+    public void thing$consumer$ordered$poison() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        final List<Long> handled = new CopyOnWriteArrayList<>();
+        final var consumer = factory(message -> {
+            if (message.getTimestamp() == 1) {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("mock poison");
+            }
+            handled.add(message.getTimestamp());
+        }).make();
+
+        broker.send(lifecycle("thing-0", 1));
+        broker.send(lifecycle("thing-0", 2));
+        broker.dispatch();
+        consumer.close();
+
+        // 毒消息重试耗尽后确认跳过，后续消息照常消费
+        Assert.assertEquals(5, attempts.get());
+        Assert.assertEquals(List.of(2L), handled);
+        Assert.assertTrue(broker.acknowledged().containsAll(List.of("thing-0-1", "thing-0-2")));
+    }
+
+    @Test
+    public void thing$consumer$listeners() throws Exception {
+        final List<Long> extras = new CopyOnWriteArrayList<>();
+        final var consumer = factory(message -> {
+            throw new IllegalStateException("mock failure");
+        }).make();
+        Assert.assertTrue(consumer.listeners(listeners -> listeners.add(message -> extras.add(message.getTimestamp()))));
+
+        broker.send(lifecycle("thing-0", 1));
+        broker.dispatch();
+        consumer.close();
+
+        // 主监听器失败时附加监听器仍然收到消息，每次重试都收到
+        Assert.assertEquals(List.of(1L, 1L, 1L, 1L, 1L), extras);
+    }
+
+    @Test
+    public void thing$consumer$ordered$close() throws Exception {
+        final List<ThingMessage> handled = new CopyOnWriteArrayList<>();
+        final var consumer = factory(message -> {
+            Thread.sleep(20);
+            handled.add(message);
+        }).make();
+
+        for (long timestamp = 1; timestamp <= 10; timestamp++) {
+            broker.send(lifecycle("thing-0", timestamp));
+        }
+        broker.dispatch();
+
+        // 关闭时串行通道中的消息处理完并确认后才关闭连接
+        consumer.close();
+        Assert.assertEquals(10, handled.size());
+        Assert.assertEquals(10, broker.acknowledged().size());
+        Assert.assertTrue(broker.isClosed());
+    }
+
+    @Test
+    public void thing$consumer$batch$commit() throws Exception {
+        final List<Long> handled = new CopyOnWriteArrayList<>();
+        final var consumer = batchFactory(4, 60000L, message -> handled.add(message.getTimestamp())).make();
+        for (long timestamp = 1; timestamp <= 10; timestamp++) {
+            broker.send(lifecycle("thing-0", timestamp));
+        }
+
+        // 满批次才确认，剩余不足一批的消息等待
+        await(() -> handled.size() == 10);
+        await(() -> broker.acknowledged().size() == 8);
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assert.assertEquals(8, broker.acknowledged().size());
+
+        // 关闭时提交剩余批次后再关闭连接
+        consumer.close();
+        Assert.assertEquals(10, broker.acknowledged().size());
+        Assert.assertTrue(broker.isClosed());
+    }
+
+    @Test
+    public void thing$consumer$batch$timeout() throws Exception {
+        final List<Long> handled = new CopyOnWriteArrayList<>();
+        final var consumer = batchFactory(100, 100L, message -> handled.add(message.getTimestamp())).make();
+        broker.send(lifecycle("thing-0", 1));
+        broker.send(lifecycle("thing-0", 2));
+
+        // 批次未满，超过时限后确认
+        await(() -> broker.acknowledged().size() == 2);
+        Assert.assertEquals(List.of(1L, 2L), handled);
+        consumer.close();
+    }
+
+    @Test
+    public void thing$consumer$batch$recover() throws Exception {
+        final AtomicInteger failures = new AtomicInteger();
+        final List<Long> handled = new CopyOnWriteArrayList<>();
+        final var consumer = batchFactory(10, 60000L, message -> {
+
+            // 第3条消息首次消费失败
+            if (message.getTimestamp() == 3 && failures.getAndIncrement() == 0) {
+                throw new IllegalStateException("mock failure");
+            }
+            handled.add(message.getTimestamp());
+
+        }).make();
+        for (long timestamp = 1; timestamp <= 5; timestamp++) {
+            broker.send(lifecycle("thing-0", timestamp));
+        }
+
+        // 消费失败时恢复会话，本批次未确认的消息（包括已消费成功的）按原顺序重新投递
+        await(() -> handled.size() == 7);
+        Assert.assertEquals(List.of(1L, 2L, 1L, 2L, 3L, 4L, 5L), handled);
+        Assert.assertTrue(broker.acknowledged().isEmpty());
+
+        consumer.close();
+        Assert.assertEquals(5, broker.acknowledged().size());
+    }
+
+    @Test
+    public void thing$consumer$batch$poison() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        final List<Long> handled = new CopyOnWriteArrayList<>();
+        final var consumer = batchFactory(10, 60000L, message -> {
+            if (message.getTimestamp() == 1) {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("mock poison");
+            }
+            handled.add(message.getTimestamp());
+        }).make();
+        broker.send(lifecycle("thing-0", 1));
+        broker.send(lifecycle("thing-0", 2));
+
+        // 毒消息投递5次后确认跳过，后续消息照常消费
+        await(() -> handled.size() == 1);
+        Assert.assertEquals(5, attempts.get());
+        Assert.assertEquals(List.of(2L), handled);
+        Assert.assertTrue(broker.acknowledged().contains("thing-0-1"));
+
+        consumer.close();
+        Assert.assertTrue(broker.acknowledged().containsAll(List.of("thing-0-1", "thing-0-2")));
+    }
+
+}
@@ -0,0 +1,136 @@
+package io.github.athingx.athing.platform;
+
+import com.aliyuncs.v5.iot.model.v20180120.QueryDeviceDetailRequest;
+import com.aliyuncs.v5.iot.model.v20180120.QueryDeviceDetailResponse;
+import io.github.athingx.athing.platform.api.client.ThingPlatformClient;
+import io.github.athingx.athing.platform.api.message.ThingStateMessage;
+import io.github.athingx.athing.platform.builder.ThingPlatformBuilder;
+import io.github.athingx.athing.platform.builder.client.CachedThingPlatformClientFactory;
+import io.github.athingx.athing.platform.mock.MockThingMessageConsumer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.athingx.athing.platform.api.message.ThingStateMessage.State.ONLINE;
+
+/**
+ * 缓存设备平台客户端测试用例
+ */
+public class ThingPlatformClientTestCase {
+
+    private static final String PRODUCT_ID = "mock-product";
+
+    private final AtomicInteger executes = new AtomicInteger();
+    private final MockThingMessageConsumer consumer = new MockThingMessageConsumer();
+    private volatile CountDownLatch blocking = new CountDownLatch(0);
+    private ThingPlatformClient client;
+
+    @Before
+    public void before() throws Exception {
+
+        // 模拟平台客户端：记录执行次数，每次返回新的应答
+        final ThingPlatformClient target = new ThingPlatformClient() {
+
+            @Override
+            public <T, R> R execute(T request, Class<R> responseClass) {
+                executes.incrementAndGet();
+                try {
+                    blocking.await();
+                } catch (InterruptedException cause) {
+                    Thread.currentThread().interrupt();
+                }
+                return responseClass.cast(new QueryDeviceDetailResponse());
+            }
+
+            @Override
+            public void shutdown() {
+
+            }
+
+        };
+
+        client = new CachedThingPlatformClientFactory()
+                .client(() -> target)
+                .ttl(QueryDeviceDetailRequest.class, 60000L)
+                .make();
+
+        // 与消费者一同构建平台，设备消息清除缓存
+        new ThingPlatformBuilder()
+                .client(client)
+                .consumer(consumer)
+                .build();
+    }
+
+    private static QueryDeviceDetailRequest request(String thingId) {
+        final QueryDeviceDetailRequest request = new QueryDeviceDetailRequest();
+        request.setProductKey(PRODUCT_ID);
+        request.setDeviceName(thingId);
+        return request;
+    }
+
+    @Test
+    public void thing$client$cache$coalesce() throws Exception {
+        blocking = new CountDownLatch(1);
+
+        // 同一请求并发未命中时只向平台发出一次
+        final List<CompletableFuture<QueryDeviceDetailResponse>> futures = new ArrayList<>();
+        for (int index = 0; index < 8; index++) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return client.execute(request("thing-1"), QueryDeviceDetailResponse.class);
+                } catch (Exception cause) {
+                    throw new IllegalStateException(cause);
+                }
+            }));
+        }
+        while (executes.get() == 0) {
+            Thread.onSpinWait();
+        }
+        TimeUnit.MILLISECONDS.sleep(100);
+        blocking.countDown();
+
+        final QueryDeviceDetailResponse response = futures.get(0).get(5, TimeUnit.SECONDS);
+        for (final var future : futures) {
+            Assert.assertSame(response, future.get(5, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(1, executes.get());
+
+        // 之后的请求命中缓存
+        Assert.assertSame(response, client.execute(request("thing-1"), QueryDeviceDetailResponse.class));
+        Assert.assertEquals(1, executes.get());
+    }
+
+    @Test
+    public void thing$client$cache$invalidate() throws Exception {
+        final var first = client.execute(request("thing-1"), QueryDeviceDetailResponse.class);
+        final var other = client.execute(request("thing-2"), QueryDeviceDetailResponse.class);
+        Assert.assertSame(first, client.execute(request("thing-1"), QueryDeviceDetailResponse.class));
+        Assert.assertEquals(2, executes.get());
+
+        // 设备状态消息只清除该设备的缓存
+        consumer.deliver(new ThingStateMessage(PRODUCT_ID, "thing-1", 100, ONLINE, 100, "10.0.0.1"));
+        Assert.assertNotSame(first, client.execute(request("thing-1"), QueryDeviceDetailResponse.class));
+        Assert.assertSame(other, client.execute(request("thing-2"), QueryDeviceDetailResponse.class));
+        Assert.assertEquals(3, executes.get());
+    }
+
+    @Test
+    public void thing$client$cache$iot_id() throws Exception {
+        final QueryDeviceDetailRequest request = new QueryDeviceDetailRequest();
+        request.setIotId("mock-iot-id");
+
+        // 只按IotId寻址的请求无法被设备消息清除，不缓存
+        client.execute(request, QueryDeviceDetailResponse.class);
+        client.execute(request, QueryDeviceDetailResponse.class);
+        client.executeAsync(request, QueryDeviceDetailResponse.class).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(3, executes.get());
+    }
+
+}
@@ -0,0 +1,154 @@
+package io.github.athingx.athing.platform;
+
+import io.github.athingx.athing.platform.api.message.ThingLifeCycleMessage;
+import io.github.athingx.athing.platform.api.message.ThingStateMessage;
+import io.github.athingx.athing.platform.api.presence.ThingPresence;
+import io.github.athingx.athing.platform.api.presence.ThingPresenceState;
+import io.github.athingx.athing.platform.builder.ThingPlatformBuilder;
+import io.github.athingx.athing.platform.mock.MockThingMessageConsumer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static io.github.athingx.athing.platform.api.message.ThingStateMessage.State.OFFLINE;
+import static io.github.athingx.athing.platform.api.message.ThingStateMessage.State.ONLINE;
+
+/**
+ * 设备在线状态测试用例
+ * <p>设备状态表为开放寻址哈希表，删除时回移探测链上的后继元素，这里重点覆盖冲突链和删除</p>
+ */
+public class ThingPresenceTestCase {
+
+    private static final String PRODUCT_ID = "mock-product";
+
+    private final MockThingMessageConsumer consumer = new MockThingMessageConsumer();
+    private ThingPresence presence;
+
+    @Before
+    public void before() throws Exception {
+        presence = new ThingPlatformBuilder()
+                .consumer(consumer)
+                .build()
+                .presence();
+    }
+
+    private void state(String thingId, long timestamp, ThingStateMessage.State state, String ip) throws Exception {
+        consumer.deliver(new ThingStateMessage(PRODUCT_ID, thingId, timestamp, state, timestamp, ip));
+    }
+
+    private void delete(String thingId, long timestamp) throws Exception {
+        consumer.deliver(new ThingLifeCycleMessage(PRODUCT_ID, thingId, timestamp, ThingLifeCycleMessage.LifeCycle.DELETE));
+    }
+
+    // 与状态表相同的哈希扰动，在初始容量（16）下落在指定槽位的设备ID
+    private static List<String> collide(int slot, int count) {
+        final List<String> thingIds = new ArrayList<>();
+        for (int index = 0; thingIds.size() < count; index++) {
+            final String thingId = "thing-%d".formatted(index);
+            final int hash = thingId.hashCode();
+            if (((hash ^ (hash >>> 16)) & 15) == slot) {
+                thingIds.add(thingId);
+            }
+        }
+        return thingIds;
+    }
+
+    @Test
+    public void thing$presence$update() throws Exception {
+        state("thing-1", 100, ONLINE, "192.168.1.10");
+        state("thing-2", 100, ONLINE, "fe80::1");
+
+        final ThingPresenceState state = presence.get(PRODUCT_ID, "thing-1");
+        Assert.assertNotNull(state);
+        Assert.assertTrue(state.isOnline());
+        Assert.assertEquals("192.168.1.10", state.lastOnlineIp());
+        Assert.assertEquals("fe80::1", presence.get(PRODUCT_ID, "thing-2").lastOnlineIp());
+        Assert.assertEquals(2, presence.countOnline(PRODUCT_ID));
+
+        // 乱序到达的旧状态被丢弃
+        state("thing-1", 50, OFFLINE, null);
+        Assert.assertTrue(presence.isOnline(PRODUCT_ID, "thing-1"));
+
+        state("thing-2", 200, OFFLINE, "10.0.0.1");
+        Assert.assertFalse(presence.isOnline(PRODUCT_ID, "thing-2"));
+        Assert.assertEquals("10.0.0.1", presence.get(PRODUCT_ID, "thing-2").lastOnlineIp());
+        Assert.assertEquals(2, presence.count(PRODUCT_ID));
+        Assert.assertEquals(1, presence.countOnline(PRODUCT_ID));
+        Assert.assertNull(presence.get(PRODUCT_ID, "none"));
+        Assert.assertNull(presence.get("none", "thing-1"));
+    }
+
+    @Test
+    public void thing$presence$delete$backshift() throws Exception {
+
+        // 探测链从末尾槽位绕回表头，中间混入另一个槽位的设备
+        final List<String> thingIds = new ArrayList<>(collide(15, 4));
+        thingIds.addAll(2, collide(0, 2));
+        for (final String thingId : thingIds) {
+            state(thingId, 100, ONLINE, "10.0.0.1");
+        }
+        Assert.assertEquals(6, presence.count(PRODUCT_ID));
+
+        // 逐个删除链头、链中，剩余设备仍可找到
+        final List<String> remains = new ArrayList<>(thingIds);
+        for (final String thingId : List.of(thingIds.get(0), thingIds.get(3), thingIds.get(1))) {
+            delete(thingId, 200);
+            remains.remove(thingId);
+            Assert.assertNull(presence.get(PRODUCT_ID, thingId));
+            for (final String remain : remains) {
+                Assert.assertTrue(remain, presence.isOnline(PRODUCT_ID, remain));
+            }
+            Assert.assertEquals(remains.size(), presence.count(PRODUCT_ID));
+            Assert.assertEquals(remains.size(), presence.countOnline(PRODUCT_ID));
+        }
+
+        // 早于已有状态的删除不生效
+        delete(remains.get(0), 50);
+        Assert.assertTrue(presence.isOnline(PRODUCT_ID, remains.get(0)));
+
+        // 删除后重新上线
+        state(thingIds.get(0), 300, ONLINE, "10.0.0.2");
+        Assert.assertEquals("10.0.0.2", presence.get(PRODUCT_ID, thingIds.get(0)).lastOnlineIp());
+    }
+
+    @Test
+    public void thing$presence$random() throws Exception {
+        final Map<String, Boolean> expect = new HashMap<>();
+        final Random random = new Random(20240601L);
+        for (int index = 1; index <= 20000; index++) {
+            final String thingId = "thing-%d".formatted(random.nextInt(500));
+            if (random.nextInt(3) == 0) {
+                delete(thingId, index);
+                expect.remove(thingId);
+            } else {
+                final boolean online = random.nextBoolean();
+                state(thingId, index, online ? ONLINE : OFFLINE, online ? "10.0.%d.%d".formatted(index >>> 8 & 0xFF, index & 0xFF) : "fe80::%x".formatted(index));
+                expect.put(thingId, online);
+            }
+        }
+
+        Assert.assertEquals(expect.size(), presence.count(PRODUCT_ID));
+        Assert.assertEquals(expect.values().stream().filter(v -> v).count(), presence.countOnline(PRODUCT_ID));
+        for (int index = 0; index < 500; index++) {
+            final String thingId = "thing-%d".formatted(index);
+            final ThingPresenceState state = presence.get(PRODUCT_ID, thingId);
+            if (expect.containsKey(thingId)) {
+                Assert.assertNotNull(thingId, state);
+                Assert.assertEquals(expect.get(thingId), state.isOnline());
+            } else {
+                Assert.assertNull(thingId, state);
+            }
+        }
+
+        final Map<String, Boolean> actual = new HashMap<>();
+        presence.forEach(PRODUCT_ID, state -> actual.put(state.thingId(), state.isOnline()));
+        Assert.assertEquals(expect, actual);
+    }
+
+}
@@ -0,0 +1,231 @@
+package io.github.athingx.athing.platform.mock;
+
+import jakarta.jms.*;
+import jakarta.jms.IllegalStateException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟JMS服务端
+ * <p>
+ * 单队列，会话按确认模式（{@code CLIENT_ACKNOWLEDGE}确认会话已投递的全部消息，其余模式逐条确认）记录确认；
+ * 会话恢复时未确认的消息按原顺序回到队首；连接关闭后确认失败。
+ * 监听模式的消费者由{@link #dispatch()}在调用线程上投递，拉取模式的消费者从队列中拉取。
+ * </p>
+ */
+public class MockJmsBroker {
+
+    private final BlockingDeque<MockJmsMessage> queue = new LinkedBlockingDeque<>();
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+    private final Set<String> acknowledged = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * 发送消息
+     *
+     * @param message 消息
+     */
+    public void send(MockJmsMessage message) {
+        queue.add(message);
+    }
+
+    /**
+     * 将队列中的消息依次投递给监听模式的消费者
+     */
+    public void dispatch() {
+        int index = 0;
+        MockJmsMessage message;
+        while (null != (message = queue.poll())) {
+            final var listeners = consumers.stream().filter(consumer -> null != consumer.listener).toList();
+            final var consumer = listeners.get(index++ % listeners.size());
+            consumer.session.deliver(message);
+            try {
+                consumer.listener.onMessage(message);
+            } catch (RuntimeException cause) {
+                // 监听器异常由会话吞掉，消息保持未确认
+            }
+        }
+    }
+
+    /**
+     * @return 已确认的消息ID
+     */
+    public Set<String> acknowledged() {
+        return acknowledged;
+    }
+
+    /**
+     * @return 队列中的消息数
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * @return 连接是否已关闭
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 创建连接
+     *
+     * @return JMS连接
+     */
+    public Connection connection() {
+        return proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "createSession" -> proxy(Session.class, new MockSession(null == args || args.length == 0 ? Session.AUTO_ACKNOWLEDGE : (int) args[args.length - 1]));
+            case "close" -> {
+                closed = true;
+                yield null;
+            }
+            case "start", "stop" -> null;
+            default -> object(proxy, method, args);
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(MockJmsBroker.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object object(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "mock-jms@%x".formatted(System.identityHashCode(proxy));
+            default -> throw new UnsupportedOperationException(method.getName());
+        };
+    }
+
+    /**
+     * 模拟会话
+     */
+    private class MockSession implements InvocationHandler {
+
+        private final int mode;
+        private final List<MockJmsMessage> unacknowledged = new ArrayList<>();
+
+        private MockSession(int mode) {
+            this.mode = mode;
+        }
+
+        synchronized void deliver(MockJmsMessage message) {
+            unacknowledged.add(message);
+            message.acknowledger(this::acknowledge);
+        }
+
+        private synchronized void acknowledge(MockJmsMessage message) throws JMSException {
+            if (closed) {
+                throw new IllegalStateException("connection closed!");
+            }
+            if (mode == Session.CLIENT_ACKNOWLEDGE) {
+                for (final var exist : unacknowledged) {
+                    acknowledged.add(exist.getJMSMessageID());
+                }
+                unacknowledged.clear();
+            } else if (unacknowledged.remove(message)) {
+                acknowledged.add(message.getJMSMessageID());
+            }
+        }
+
+        private synchronized void recover() {
+            for (int index = unacknowledged.size() - 1; index >= 0; index--) {
+                queue.addFirst(unacknowledged.get(index));
+            }
+            unacknowledged.clear();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            return switch (method.getName()) {
+                case "createQueue", "close" -> null;
+                case "createConsumer" -> {
+                    final var consumer = new Consumer(this);
+                    consumers.add(consumer);
+                    yield consumer;
+                }
+                case "recover" -> {
+                    recover();
+                    yield null;
+                }
+                default -> object(proxy, method, args);
+            };
+        }
+
+    }
+
+    /**
+     * 模拟消费者
+     */
+    private class Consumer implements MessageConsumer {
+
+        private final MockSession session;
+        private volatile MessageListener listener;
+        private volatile boolean closed;
+
+        private Consumer(MockSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public String getMessageSelector() {
+            return null;
+        }
+
+        @Override
+        public MessageListener getMessageListener() {
+            return listener;
+        }
+
+        @Override
+        public void setMessageListener(MessageListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public Message receive() throws JMSException {
+            return receive(0);
+        }
+
+        @Override
+        public Message receive(long timeout) throws JMSException {
+            if (closed || MockJmsBroker.this.closed) {
+                throw new IllegalStateException("consumer closed!");
+            }
+            final MockJmsMessage message;
+            try {
+                message = queue.poll(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException cause) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            if (null != message) {
+                session.deliver(message);
+            }
+            return message;
+        }
+
+        @Override
+        public Message receiveNoWait() throws JMSException {
+            return receive(1);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+    }
+
+}
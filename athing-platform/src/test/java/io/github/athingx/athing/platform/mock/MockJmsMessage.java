@@ -1,6 +1,7 @@
 package io.github.athingx.athing.platform.mock;
 
 import jakarta.jms.Destination;
+import jakarta.jms.JMSException;
 import jakarta.jms.Message;
 
 import java.util.Enumeration;
@@ -15,6 +16,7 @@ public class MockJmsMessage implements Message {
     private String messageId = UUID.randomUUID().toString();
     private final Map<String, Object> propertyMap = new HashMap<>();
     private final byte[] body;
+    private volatile Acknowledger acknowledger;
 
     public MockJmsMessage(byte[] body) {
         this.body = body;
@@ -246,7 +248,28 @@ public class MockJmsMessage implements Message {
     }
 
     @Override
-    public void acknowledge() {
+    public void acknowledge() throws JMSException {
+        final var acknowledger = this.acknowledger;
+        if (null != acknowledger) {
+            acknowledger.acknowledge(this);
+        }
+    }
+
+    /**
+     * 设置确认动作，由模拟会话在投递时设置
+     *
+     * @param acknowledger 确认动作
+     */
+    void acknowledger(Acknowledger acknowledger) {
+        this.acknowledger = acknowledger;
+    }
+
+    /**
+     * 确认动作
+     */
+    interface Acknowledger {
+
+        void acknowledge(MockJmsMessage message) throws JMSException;
 
     }
 
@@ -0,0 +1,54 @@
+package io.github.athingx.athing.platform.mock;
+
+import io.github.athingx.athing.platform.api.message.ThingMessage;
+import io.github.athingx.athing.platform.api.message.ThingMessageListener;
+import io.github.athingx.athing.platform.api.message.decoder.ThingMessageDecoder;
+import io.github.athingx.athing.platform.message.ThingMessageConsumer;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * 模拟设备消息消费者：由{@link #deliver(ThingMessage)}直接把设备消息交给附加监听器
+ */
+public class MockThingMessageConsumer implements ThingMessageConsumer {
+
+    private final Set<ThingMessageDecoder<?>> decoders = new CopyOnWriteArraySet<>();
+    private final Set<ThingMessageListener> listeners = new CopyOnWriteArraySet<>();
+
+    /**
+     * 投递设备消息
+     *
+     * @param message 设备消息
+     * @throws Exception 监听器处理失败
+     */
+    public void deliver(ThingMessage message) throws Exception {
+        for (final var listener : listeners) {
+            listener.onMessage(message);
+        }
+    }
+
+    @Override
+    public void decoders(Consumer<Set<ThingMessageDecoder<?>>> setupFn) {
+        setupFn.accept(decoders);
+    }
+
+    @Override
+    public Collection<ThingMessageDecoder<?>> decoders() {
+        return decoders;
+    }
+
+    @Override
+    public boolean listeners(Consumer<Set<ThingMessageListener>> setupFn) {
+        setupFn.accept(listeners);
+        return true;
+    }
+
+    @Override
+    public void close() {
+
+    }
+
+}
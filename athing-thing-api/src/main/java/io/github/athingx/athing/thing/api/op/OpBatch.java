@@ -0,0 +1,98 @@
+package io.github.athingx.athing.thing.api.op;
+
+import io.github.athingx.athing.thing.api.util.MapData;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 批量投递策略
+ * <p>
+ * 同一主题在合并窗口内的投递将被合并为一次投递，窗口到期或数据条数达到上限时立即投递；
+ * 新数据不能与已缓冲的数据合并时（如会覆盖其中的数据），先投递已缓冲的数据，新数据开始下一批。
+ * </p>
+ *
+ * @param windowMs  合并窗口（毫秒）
+ * @param maxSize   单批最大数据条数
+ * @param merger    合并函数：按投递顺序将同一批数据合并为一条
+ * @param mergeable 合并判断：新数据能否与已缓冲的数据（按投递顺序，非空）合并为一批
+ * @param <T>       投递数据类型
+ */
+public record OpBatch<T>(long windowMs, int maxSize, Function<List<T>, T> merger, BiPredicate<List<T>, T> mergeable) {
+
+    public OpBatch {
+        if (windowMs <= 0 || maxSize <= 0) {
+            throw new IllegalArgumentException("windowMs and maxSize must be positive!");
+        }
+        requireNonNull(merger, "merger is required!");
+        requireNonNull(mergeable, "mergeable is required!");
+    }
+
+    /**
+     * 批量投递策略，数据总是可以合并
+     *
+     * @param windowMs 合并窗口（毫秒）
+     * @param maxSize  单批最大数据条数
+     * @param merger   合并函数：按投递顺序将同一批数据合并为一条
+     */
+    public OpBatch(long windowMs, int maxSize, Function<List<T>, T> merger) {
+        this(windowMs, maxSize, merger, (batch, data) -> true);
+    }
+
+    /**
+     * 属性上报合并策略
+     * <p>
+     * 合并alink属性上报报文（{@code thing.event.property.post}）：{@code params}中的属性按投递顺序合并，
+     * 其余字段及令牌以最后一条数据为准。报文中一个属性只能有一个值，同名属性再次投递时先投递已缓冲的数据，
+     * 每个采样都会被上报，不会被后投递者覆盖。
+     * </p>
+     *
+     * @param windowMs 合并窗口（毫秒）
+     * @param maxSize  单批最大数据条数
+     * @return 批量投递策略
+     */
+    public static OpBatch<OpMapData> batchPropertyPost(long windowMs, int maxSize) {
+        return new OpBatch<>(windowMs, maxSize, OpBatch::mergePropertyPost, OpBatch::isPropertyDisjoint);
+    }
+
+    // 新数据的属性与已缓冲数据的属性不重叠
+    private static boolean isPropertyDisjoint(List<OpMapData> batch, OpMapData data) {
+        if (!(data.get("params") instanceof Map<?, ?> params) || params.isEmpty()) {
+            return true;
+        }
+        final Set<Object> names = new HashSet<>();
+        for (final var exist : batch) {
+            if (exist.get("params") instanceof Map<?, ?> map) {
+                map.keySet().forEach(name -> names.add(String.valueOf(name)));
+            }
+        }
+        for (final var name : params.keySet()) {
+            if (names.contains(String.valueOf(name))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static OpMapData mergePropertyPost(List<OpMapData> batch) {
+        final var last = batch.get(batch.size() - 1);
+        final var params = new MapData();
+        final var merged = new OpMapData(last.token(), new MapData());
+        for (final var data : batch) {
+            merged.putAll(data);
+            if (data.get("params") instanceof Map<?, ?> map) {
+                map.forEach((name, value) -> params.put(String.valueOf(name), value));
+            }
+        }
+        merged.put("id", last.token());
+        merged.put("params", params);
+        return merged;
+    }
+
+}
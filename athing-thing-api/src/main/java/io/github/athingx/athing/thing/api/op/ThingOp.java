@@ -23,6 +23,16 @@ public interface ThingOp<T, R> {
      */
     String genToken();
 
+    /**
+     * 生成一个数值令牌
+     * <p>令牌取值在{@code 0~4294967295}之间，与{@link #genToken()}共享同一序列，适合在热点路径中避免字符串分配</p>
+     *
+     * @return 令牌
+     */
+    default long nextToken() {
+        return Long.parseLong(genToken());
+    }
+
     /**
      * 投递数据
      *
@@ -107,4 +117,19 @@ public interface ThingOp<T, R> {
      */
     <UT, UR> ThingOp<UT, UR> codec(Codec<T, R, UT, UR> codec);
 
+    /**
+     * 设备操作批量投递
+     * <p>
+     * 返回的设备操作将同一主题的投递按批量策略合并后投递，每个投递在合并后的投递完成时各自完成；
+     * 消费和调用操作不受影响。批量投递应作为编解码链的最后一步，再次编解码得到的设备操作不再合并投递。
+     * </p>
+     * <p>默认不合并，返回自身，投递逐条进行</p>
+     *
+     * @param batch 批量投递策略
+     * @return 设备操作
+     */
+    default ThingOp<T, R> batch(OpBatch<T> batch) {
+        return this;
+    }
+
 }
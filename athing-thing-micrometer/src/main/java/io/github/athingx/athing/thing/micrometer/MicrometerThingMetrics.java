@@ -0,0 +1,118 @@
+package io.github.athingx.athing.thing.micrometer;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.builder.metrics.ThingMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Micrometer设备指标
+ * <p>
+ * 将设备指标绑定到{@link MeterRegistry}：
+ * <ul>
+ *     <li>{@code athing.thing.publish}：发布到Broker确认的耗时，标签{@code product}、{@code topic}、{@code result}</li>
+ *     <li>{@code athing.thing.consume}：消息到达到消费结束的耗时，标签{@code product}、{@code topic}、{@code result}</li>
+ *     <li>{@code athing.thing.executor.queue}：产品下所有设备线程池的排队任务数，标签{@code product}</li>
+ * </ul>
+ * 计时器按标签缓存，记录时不再查找注册表。
+ * </p>
+ */
+public class MicrometerThingMetrics implements ThingMetrics {
+
+    private static final String[] CONSUME_RESULTS = Arrays.stream(ConsumeResult.values())
+            .map(result -> result.name().toLowerCase(Locale.ROOT))
+            .toArray(String[]::new);
+
+    private final MeterRegistry registry;
+    private final Map<Key, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Set<IntSupplier>> queues = new ConcurrentHashMap<>();
+    private boolean percentileHistogram = true;
+
+    /**
+     * Micrometer设备指标
+     *
+     * @param registry 指标注册表
+     */
+    public MicrometerThingMetrics(MeterRegistry registry) {
+        this.registry = requireNonNull(registry, "registry is required!");
+    }
+
+    /**
+     * 设置计时器是否发布分位直方图
+     *
+     * @param percentileHistogram TRUE | FALSE
+     * @return this
+     */
+    public MicrometerThingMetrics percentileHistogram(boolean percentileHistogram) {
+        this.percentileHistogram = percentileHistogram;
+        return this;
+    }
+
+    @Override
+    public void recordPublish(ThingPath path, String topic, long nanos, boolean success) {
+        timer(new Key("athing.thing.publish", path.getProductId(), topic, success ? "success" : "failure"))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordConsume(ThingPath path, String topic, long nanos, ConsumeResult result) {
+        timer(new Key("athing.thing.consume", path.getProductId(), topic, CONSUME_RESULTS[result.ordinal()]))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(Key key) {
+        final var exist = timers.get(key);
+        return null != exist ? exist : timers.computeIfAbsent(key, k -> Timer.builder(k.name())
+                .tag("product", k.productId())
+                .tag("topic", k.topic())
+                .tag("result", k.result())
+                .publishPercentileHistogram(percentileHistogram)
+                .register(registry));
+    }
+
+    @Override
+    public Runnable bindExecutor(ThingPath path, IntSupplier queueSize) {
+        final var productId = path.getProductId();
+        queues.computeIfAbsent(productId, k -> {
+            final Set<IntSupplier> suppliers = ConcurrentHashMap.newKeySet();
+            Gauge.builder("athing.thing.executor.queue", suppliers, MicrometerThingMetrics::sum)
+                    .tag("product", k)
+                    .strongReference(true)
+                    .register(registry);
+            return suppliers;
+        }).add(queueSize);
+        return () -> queues.get(productId).remove(queueSize);
+    }
+
+    private static double sum(Set<IntSupplier> suppliers) {
+        int size = 0;
+        for (final var supplier : suppliers) {
+            size += supplier.getAsInt();
+        }
+        return size;
+    }
+
+    /**
+     * 计时器键
+     *
+     * @param name      指标名
+     * @param productId 产品ID
+     * @param topic     主题模式
+     * @param result    结果
+     */
+    private record Key(String name, String productId, String topic, String result) {
+
+    }
+
+}
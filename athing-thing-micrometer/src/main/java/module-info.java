@@ -0,0 +1,8 @@
+module athing.thing.micrometer {
+
+    exports io.github.athingx.athing.thing.micrometer;
+
+    requires transitive athing.thing;
+    requires transitive micrometer.core;
+
+}
@@ -0,0 +1,81 @@
+package io.github.athingx.athing.thing.builder;
+
+/**
+ * 设备调用选项
+ * <p>约束{@link io.github.athingx.athing.thing.api.op.OpTopicCaller}的在途调用：超时未应答的调用将以{@link java.util.concurrent.TimeoutException}结束</p>
+ */
+public class OpCallOption {
+
+    private long timeoutMs = 60 * 1000L;
+    private int capacity = 100000;
+    private RejectPolicy policy = RejectPolicy.ABORT;
+
+    /**
+     * 设置调用超时
+     *
+     * @param timeoutMs 超时时间（毫秒）
+     * @return this
+     */
+    public OpCallOption timeoutMs(long timeoutMs) {
+        if (timeoutMs <= 0) {
+            throw new IllegalArgumentException("timeoutMs must be positive!");
+        }
+        this.timeoutMs = timeoutMs;
+        return this;
+    }
+
+    /**
+     * 设置在途调用容量
+     *
+     * @param capacity 单个调用者最大在途调用数
+     * @return this
+     */
+    public OpCallOption capacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive!");
+        }
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * 设置拒绝策略
+     *
+     * @param policy 在途调用满时的拒绝策略
+     * @return this
+     */
+    public OpCallOption policy(RejectPolicy policy) {
+        this.policy = policy;
+        return this;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public RejectPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 拒绝策略
+     */
+    public enum RejectPolicy {
+
+        /**
+         * 拒绝本次调用，调用以{@link java.util.concurrent.RejectedExecutionException}结束
+         */
+        ABORT,
+
+        /**
+         * 丢弃最早的在途调用，被丢弃的调用以{@link java.util.concurrent.RejectedExecutionException}结束
+         */
+        DISCARD_OLDEST
+
+    }
+
+}
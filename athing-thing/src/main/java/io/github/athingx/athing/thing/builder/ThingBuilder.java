@@ -5,9 +5,12 @@ import io.github.athingx.athing.thing.api.ThingPath;
 import io.github.athingx.athing.thing.builder.client.MqttClientFactory;
 import io.github.athingx.athing.thing.builder.executor.DefaultExecutorServiceFactory;
 import io.github.athingx.athing.thing.builder.executor.ExecutorServiceFactory;
+import io.github.athingx.athing.thing.builder.metrics.ThingMetrics;
 import io.github.athingx.athing.thing.impl.ThingImpl;
 
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import static java.util.Objects.requireNonNull;
 
@@ -22,6 +25,10 @@ public class ThingBuilder {
 
     private MqttClientFactory mcFactory = path -> null;
 
+    private OpCallOption callOpt = new OpCallOption();
+
+    private ThingMetrics metrics = ThingMetrics.none();
+
     /**
      * 设备构造器
      *
@@ -63,6 +70,39 @@ public class ThingBuilder {
         return this;
     }
 
+    /**
+     * 设置调用选项
+     *
+     * @param callOpt 调用选项
+     * @return this
+     */
+    public ThingBuilder callOpt(OpCallOption callOpt) {
+        this.callOpt = callOpt;
+        return this;
+    }
+
+    /**
+     * 设置调用选项
+     *
+     * @param factory 调用选项加工函数
+     * @return this
+     */
+    public ThingBuilder callOpt(Function<OpCallOption, OpCallOption> factory) {
+        Objects.requireNonNull(factory);
+        return callOpt(factory.apply(callOpt));
+    }
+
+    /**
+     * 设置设备指标
+     *
+     * @param metrics 设备指标
+     * @return this
+     */
+    public ThingBuilder metrics(ThingMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
     /**
      * 构造设备
      *
@@ -73,23 +113,51 @@ public class ThingBuilder {
         return new ThingImpl(
                 path,
                 requireNonNull(mcFactory.make(path), "client is required!"),
-                requireNonNull(esFactory.make(path), "executor is required!")
+                requireNonNull(esFactory.make(path), "executor is required!"),
+                requireNonNull(callOpt, "callOpt is required!"),
+                requireNonNull(metrics, "metrics is required!")
         );
     }
 
     /**
      * 异步构造设备
+     * <p>MQTT客户端由{@link MqttClientFactory#makeAsync(ThingPath)}异步创建，连接期间不占用线程；取消构造操作将同时取消尚未完成的连接</p>
      *
      * @return 设备构造操作
      */
     public CompletableFuture<Thing> asyncBuild() {
-        return CompletableFuture.supplyAsync(() -> {
+        final var making = mcFactory.makeAsync(path);
+        final var building = new CompletableFuture<Thing>();
+        making.whenComplete((client, ex) -> {
+            if (null != ex) {
+                building.completeExceptionally(ex);
+                return;
+            }
+            final Thing thing;
             try {
-                return build();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+                thing = new ThingImpl(
+                        path,
+                        requireNonNull(client, "client is required!"),
+                        requireNonNull(esFactory.make(path), "executor is required!"),
+                        requireNonNull(callOpt, "callOpt is required!"),
+                        requireNonNull(metrics, "metrics is required!")
+                );
+            } catch (Exception cause) {
+                building.completeExceptionally(cause);
+                return;
+            }
+
+            // 构造期间操作被取消，销毁刚构造的设备
+            if (!building.complete(thing)) {
+                thing.destroy();
+            }
+        });
+        building.whenComplete((v, ex) -> {
+            if (building.isCancelled()) {
+                making.cancel(false);
             }
         });
+        return building;
     }
 
 }
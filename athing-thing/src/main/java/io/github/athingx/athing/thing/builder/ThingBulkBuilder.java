@@ -0,0 +1,332 @@
+package io.github.athingx.athing.thing.builder;
+
+import io.github.athingx.athing.thing.api.Thing;
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.builder.client.MqttClientFactory;
+import io.github.athingx.athing.thing.builder.executor.DefaultExecutorServiceFactory;
+import io.github.athingx.athing.thing.builder.executor.ExecutorServiceFactory;
+import io.github.athingx.athing.thing.builder.metrics.ThingMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 设备批量构造器
+ * <p>
+ * 同时构造一批设备：最多{@link #parallelism(int)}台设备同时处于构造中，一台构造结束（成功或失败）后立即开始下一台。
+ * 设备通过{@link ThingBuilder#asyncBuild()}构造，MQTT客户端工厂支持异步连接时连接期间不占用线程；
+ * 只有同步实现的工厂和连接策略在进程共享的有界线程池上执行，实际并行度同时受该线程池大小限制。
+ * 同一个客户端工厂（及其连接策略、连接准入）由整批设备共享。
+ * </p>
+ * <p>
+ * 单台设备构造失败不影响其他设备，失败原因通过{@link ProgressListener}通知；取消批量构造操作将停止构造剩余设备，
+ * 并销毁已经构造成功的设备。
+ * </p>
+ * <pre>{@code
+ * final var things = new ThingBulkBuilder(paths)
+ *         .client(new DefaultMqttClientFactory().remote(REMOTE).secrets(path -> SECRETS.get(path.toURN())))
+ *         .parallelism(256)
+ *         .listener((path, cause, costMs, booted, failed, total) -> ...)
+ *         .build()
+ *         .get();
+ * }</pre>
+ */
+public class ThingBulkBuilder {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final List<ThingPath> paths;
+
+    private ExecutorServiceFactory esFactory = new DefaultExecutorServiceFactory();
+
+    private MqttClientFactory mcFactory = path -> null;
+
+    private OpCallOption callOpt = new OpCallOption();
+
+    private ThingMetrics metrics = ThingMetrics.none();
+
+    private int parallelism = 64;
+
+    private ProgressListener listener = (path, cause, costMs, booted, failed, total) -> {
+    };
+
+    /**
+     * 设备批量构造器
+     *
+     * @param paths 设备路径，重复的设备只构造一次
+     */
+    public ThingBulkBuilder(Collection<ThingPath> paths) {
+        final Map<String, ThingPath> unique = new LinkedHashMap<>();
+        requireNonNull(paths, "paths is required!").forEach(path -> unique.putIfAbsent(path.toURN(), path));
+        this.paths = List.copyOf(unique.values());
+    }
+
+    /**
+     * 设置MQTT客户端
+     *
+     * @param mcFactory MQTT客户端工厂
+     * @return this
+     */
+    public ThingBulkBuilder client(MqttClientFactory mcFactory) {
+        this.mcFactory = mcFactory;
+        return this;
+    }
+
+    /**
+     * 设置线程池
+     * <p>
+     * 默认与{@link ThingBuilder}一致，每台设备独立线程池；设备数量较多时可使用{@link io.github.athingx.athing.thing.builder.executor.SharedExecutorServiceFactory}，
+     * 该工厂由调用方持有并负责关闭
+     * </p>
+     *
+     * @param esFactory 线程池工厂
+     * @return this
+     */
+    public ThingBulkBuilder executor(ExecutorServiceFactory esFactory) {
+        this.esFactory = esFactory;
+        return this;
+    }
+
+    /**
+     * 设置调用选项
+     *
+     * @param callOpt 调用选项
+     * @return this
+     */
+    public ThingBulkBuilder callOpt(OpCallOption callOpt) {
+        this.callOpt = callOpt;
+        return this;
+    }
+
+    /**
+     * 设置调用选项
+     *
+     * @param factory 调用选项加工函数
+     * @return this
+     */
+    public ThingBulkBuilder callOpt(Function<OpCallOption, OpCallOption> factory) {
+        Objects.requireNonNull(factory);
+        return callOpt(factory.apply(callOpt));
+    }
+
+    /**
+     * 设置设备指标
+     *
+     * @param metrics 设备指标
+     * @return this
+     */
+    public ThingBulkBuilder metrics(ThingMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * 设置并行度
+     *
+     * @param parallelism 同时构造中的设备数上限
+     * @return this
+     */
+    public ThingBulkBuilder parallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive!");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 设置构造进度监听器
+     *
+     * @param listener 构造进度监听器
+     * @return this
+     */
+    public ThingBulkBuilder listener(ProgressListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * 批量构造设备
+     *
+     * @return 批量构造操作，值为构造成功的设备（按设备路径的给出顺序）
+     */
+    public CompletableFuture<Map<ThingPath, Thing>> build() {
+        requireNonNull(mcFactory, "client is required!");
+        requireNonNull(esFactory, "executor is required!");
+        requireNonNull(callOpt, "callOpt is required!");
+        requireNonNull(metrics, "metrics is required!");
+        requireNonNull(listener, "listener is required!");
+        final var bulk = new Bulk();
+        bulk.dispatch();
+        return bulk.future;
+    }
+
+    /**
+     * 一次批量构造
+     */
+    private final class Bulk {
+
+        final CompletableFuture<Map<ThingPath, Thing>> future = new CompletableFuture<>();
+        final Map<ThingPath, Thing> things = new ConcurrentHashMap<>();
+        final Map<ThingPath, CompletableFuture<Thing>> building = new ConcurrentHashMap<>();
+
+        // 发起循环：构造可能同步结束，重入的发起请求合并到外层循环，避免递归
+        final AtomicInteger dispatching = new AtomicInteger();
+
+        // 以下由this保护
+        final Iterator<ThingPath> remaining = paths.iterator();
+        int running;
+        int booted;
+        int failed;
+
+        Bulk() {
+
+            // 批量构造被取消：停止构造中的设备，销毁已构造的设备
+            future.whenComplete((v, ex) -> {
+                if (future.isCancelled()) {
+                    building.values().forEach(f -> f.cancel(false));
+                    things.keySet().forEach(this::destroy);
+                }
+            });
+
+            // 没有设备需要构造
+            if (paths.isEmpty()) {
+                future.complete(Map.of());
+            }
+
+        }
+
+        void dispatch() {
+            if (dispatching.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                dispatchOnce();
+            } while ((missed = dispatching.addAndGet(-missed)) != 0);
+        }
+
+        // 在并行度内发起设备构造
+        void dispatchOnce() {
+            final List<ThingPath> launching = new ArrayList<>();
+            synchronized (this) {
+                while (!future.isDone() && running < parallelism && remaining.hasNext()) {
+                    running++;
+                    launching.add(remaining.next());
+                }
+            }
+            launching.forEach(this::launch);
+        }
+
+        void launch(ThingPath path) {
+            final long beginNanos = System.nanoTime();
+            CompletableFuture<Thing> f;
+            try {
+                f = new ThingBuilder(path)
+                        .client(mcFactory)
+                        .executor(esFactory)
+                        .callOpt(callOpt)
+                        .metrics(metrics)
+                        .asyncBuild();
+            } catch (RuntimeException cause) {
+                f = CompletableFuture.failedFuture(cause);
+            }
+            building.put(path, f);
+            f.whenComplete((thing, ex) -> complete(path, thing, ex, beginNanos));
+        }
+
+        void complete(ThingPath path, Thing thing, Throwable ex, long beginNanos) {
+            building.remove(path);
+            if (null == ex) {
+                things.put(path, thing);
+
+                // 构造期间批量构造已被取消
+                if (future.isCancelled()) {
+                    destroy(path);
+                    return;
+                }
+            }
+
+            final long costMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - beginNanos);
+            final int booted, failed;
+            synchronized (this) {
+                running--;
+                if (null == ex) {
+                    this.booted++;
+                } else {
+                    this.failed++;
+                }
+                booted = this.booted;
+                failed = this.failed;
+            }
+
+            try {
+                final var cause = ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex;
+                listener.onProgress(path, cause, costMs, booted, failed, paths.size());
+            } catch (Throwable cause) {
+                logger.warn("{}/bulk progress listener error!", path, cause);
+            }
+
+            if (booted + failed == paths.size()) {
+                final Map<ThingPath, Thing> result = new LinkedHashMap<>();
+                paths.forEach(p -> {
+                    final var t = things.get(p);
+                    if (null != t) {
+                        result.put(p, t);
+                    }
+                });
+                future.complete(result);
+            } else {
+                dispatch();
+            }
+        }
+
+        void destroy(ThingPath path) {
+            final var thing = things.remove(path);
+            if (null != thing) {
+                try {
+                    thing.destroy();
+                } catch (Exception cause) {
+                    logger.warn("{}/bulk destroy failure!", path, cause);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * 构造进度监听器
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * 构造进度
+         * <p>每台设备构造结束（成功或失败）后回调，在完成构造的线程上执行，不应阻塞</p>
+         *
+         * @param path   设备路径
+         * @param cause  失败原因，构造成功时为{@code null}
+         * @param costMs 该设备构造耗时(ms)
+         * @param booted 已构造成功的设备数
+         * @param failed 已构造失败的设备数
+         * @param total  设备总数
+         */
+        void onProgress(ThingPath path, Throwable cause, long costMs, int booted, int failed, int total);
+
+    }
+
+}
@@ -1,29 +1,33 @@
 package io.github.athingx.athing.thing.builder.client;
 
+import io.github.athingx.athing.common.util.HmacSigner;
 import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.impl.client.MqttReplayBuffer;
 import org.eclipse.paho.client.mqttv3.*;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.nio.file.Path;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
-import static io.github.athingx.athing.common.util.StringUtils.bytesToHexString;
 import static io.github.athingx.athing.thing.builder.client.MqttConnectStrategy.always;
-import static java.nio.charset.StandardCharsets.UTF_8;
+
 
 public class DefaultMqttClientFactory implements MqttClientFactory {
 
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
     private String remote;
-    private String secret;
+    private Function<ThingPath, String> secrets;
 
     private MqttConnectStrategy strategy = always(30 * 1000L, 3 * 60 * 1000L);
 
-    private MqttClientPersistence persistence = new MemoryPersistence();
+    private Function<ThingPath, MqttClientPersistence> persistences = path -> new MemoryPersistence();
 
     private MqttConnectOptions connOpt = new MqttConnectOptions() {{
         setCleanSession(false);         // 关闭清理会话
@@ -41,16 +45,48 @@ public class DefaultMqttClientFactory implements MqttClientFactory {
         setDeleteOldestMessages(true);  // 删除最旧的消息
     }};
 
+    private MqttReplayOption replayOpt;
+
     public DefaultMqttClientFactory strategy(MqttConnectStrategy strategy) {
         this.strategy = strategy;
         return this;
     }
 
+    /**
+     * 设置持久化
+     * <p>所有客户端共享同一个持久化实例，只适用于工厂只构造一台设备；构造多台设备时使用{@link #persistences(Function)}</p>
+     *
+     * @param persistence 持久化
+     * @return this
+     */
     public DefaultMqttClientFactory persistence(MqttClientPersistence persistence) {
-        this.persistence = persistence;
+        return persistences(path -> persistence);
+    }
+
+    /**
+     * 设置持久化
+     * <p>每个客户端创建时调用一次：客户端按消息ID存取持久化数据，关闭时关闭持久化，因此每个客户端需要自己的实例</p>
+     *
+     * @param persistences 持久化函数
+     * @return this
+     */
+    public DefaultMqttClientFactory persistences(Function<ThingPath, MqttClientPersistence> persistences) {
+        this.persistences = persistences;
         return this;
     }
 
+    /**
+     * 使用内存映射文件持久化在途消息和离线缓冲消息，进程重启后重新投递
+     * <p>创建客户端时同时开启离线缓冲区持久化；每台设备使用目录下的{@code 产品ID/设备ID}子目录</p>
+     *
+     * @param directory 持久化根目录
+     * @return this
+     */
+    public DefaultMqttClientFactory persistence(Path directory) {
+        Objects.requireNonNull(directory, "directory is required!");
+        return persistences(path -> new MappedFilePersistence(directory.resolve(path.getProductId()).resolve(path.getThingId())));
+    }
+
     public DefaultMqttClientFactory connOpt(MqttConnectOptions connOpt) {
         this.connOpt = connOpt;
         return this;
@@ -71,80 +107,287 @@ public class DefaultMqttClientFactory implements MqttClientFactory {
         return bufferOpt(factory.apply(bufferOpt));
     }
 
+    /**
+     * 设置离线消息重放选项，启用后取代离线缓冲区选项
+     * <p>重放缓冲区只在内存中，不能与{@link #persistence(Path)}等文件持久化同时使用，否则创建客户端时抛出{@link IllegalStateException}</p>
+     *
+     * @param replayOpt 离线消息重放选项
+     * @return this
+     */
+    public DefaultMqttClientFactory replayOpt(MqttReplayOption replayOpt) {
+        this.replayOpt = replayOpt;
+        return this;
+    }
+
+    public DefaultMqttClientFactory replayOpt(Function<MqttReplayOption, MqttReplayOption> factory) {
+        Objects.requireNonNull(factory);
+        return replayOpt(factory.apply(Objects.requireNonNullElseGet(replayOpt, MqttReplayOption::new)));
+    }
+
     public DefaultMqttClientFactory remote(String remote) {
         this.remote = remote;
         return this;
     }
 
     public DefaultMqttClientFactory secret(String secret) {
-        this.secret = secret;
+        return secrets(path -> secret);
+    }
+
+    /**
+     * 设置设备密钥
+     * <p>按设备取密钥，同一个工厂即可构造多台设备</p>
+     *
+     * @param secrets 设备密钥函数
+     * @return this
+     */
+    public DefaultMqttClientFactory secrets(Function<ThingPath, String> secrets) {
+        this.secrets = secrets;
         return this;
     }
 
     @Override
     public IMqttAsyncClient make(ThingPath path) throws MqttException {
+        final var client = create(path);
+
+        // 连接并返回MQTT客户端
+        strategy.connect(path, client, client.options, false);
+        return client;
+    }
+
+    /**
+     * 异步创建MQTT客户端
+     * <p>连接由策略异步完成，连接期间不占用线程；连接失败或凭证被取消时关闭客户端</p>
+     *
+     * @param path 设备路径
+     * @return 创建操作
+     */
+    @Override
+    public CompletableFuture<IMqttAsyncClient> makeAsync(ThingPath path) {
+        final MqttAsyncClientImpl client;
+        try {
+            client = create(path);
+        } catch (MqttException | RuntimeException cause) {
+            return CompletableFuture.failedFuture(cause);
+        }
+
+        final var connecting = strategy.connectAsync(path, client, client.options, false);
+        final var future = connecting.<IMqttAsyncClient>thenApply(v -> client);
+        future.whenComplete((v, ex) -> {
+            if (null != ex) {
+                connecting.cancel(false);
+                try {
+                    client.close(true);
+                } catch (MqttException cause) {
+                    logger.warn("{}/mqtt close failure!", path, cause);
+                }
+            }
+        });
+        return future;
+    }
+
+    // 创建尚未连接的MQTT客户端
+    private MqttAsyncClientImpl create(ThingPath path) throws MqttException {
 
         Objects.requireNonNull(remote, "remote is required");
-        Objects.requireNonNull(secret, "secret is required");
+        Objects.requireNonNull(secrets, "secret is required");
+        final var secret = Objects.requireNonNull(secrets.apply(path), "secret is required");
+
+        final var persistence = Objects.requireNonNull(persistences.apply(path), "persistence is required");
+
+        // 重放缓冲区只在内存中，与文件持久化同时使用会丢失离线缓冲消息的持久化
+        if (Objects.nonNull(replayOpt) && persistence instanceof MappedFilePersistence) {
+            throw new IllegalStateException("replayOpt can not be used with mapped file persistence!");
+        }
 
         final var sign = new MqttSign(path);
-        final var client = new MqttAsyncClient(remote, sign.getClientId(), persistence);
+        final var client = new MqttAsyncClientImpl(remote, sign.getClientId(), persistence);
 
-        // 设置离线缓存选项
-        if (Objects.nonNull(bufferOpt)) {
-            client.setBufferOpts(bufferOpt);
+        // 设置离线缓存选项：启用重放时由重放缓冲区接管
+        if (Objects.nonNull(replayOpt)) {
+            client.replay = new MqttReplayBuffer(path, client, client::publishDirectly, replayOpt, connOpt.getMaxInflight());
+        } else if (Objects.nonNull(bufferOpt)) {
+            client.setBufferOpts(copyOf(bufferOpt, persistence instanceof MappedFilePersistence || bufferOpt.isPersistBuffer()));
         }
 
-        // 设置连接选项
-        connOpt.setUserName(Objects.requireNonNullElse(connOpt.getUserName(), sign.getUsername()));
-        connOpt.setPassword(Objects.requireNonNullElse(connOpt.getPassword(), sign.getPassword(secret)));
+        // 设置连接选项：每个客户端持有自己的副本，工厂构造多台设备时帐号密码互不覆盖
+        final var options = copyOf(connOpt);
+        options.setUserName(Objects.requireNonNullElse(connOpt.getUserName(), sign.getUsername()));
+        options.setPassword(Objects.requireNonNullElse(connOpt.getPassword(), sign.getPassword(secret)));
+        client.options = options;
 
         // 设置连接回调
-        client.setCallback(new MqttCallbackExtended() {
+        client.setInternalCallback(new MqttCallbackExtended() {
 
             private final Logger logger = LoggerFactory.getLogger(getClass());
 
             @Override
             public void connectComplete(boolean isReconnect, String serverURI) {
                 logger.info("{}/mqtt {} success, remote={}", path, isReconnect ? "reconnect" : "connect", serverURI);
+                if (null != client.replay) {
+                    client.replay.resume();
+                }
+                if (client.downstream instanceof MqttCallbackExtended downstream) {
+                    downstream.connectComplete(isReconnect, serverURI);
+                }
             }
 
             @Override
             public void connectionLost(Throwable cause) {
 
+                // 暂停重放，积压消息等待下一次连接
+                if (null != client.replay) {
+                    client.replay.pause();
+                }
+
+                // 先通知下游回调，重连策略可能会长时间阻塞
+                final var downstream = client.downstream;
+                if (null != downstream) {
+                    downstream.connectionLost(cause);
+                }
+
                 // 连接丢失时，如果用户设置了自动重连，则不做任何处理
-                if (connOpt.isAutomaticReconnect()) {
+                if (options.isAutomaticReconnect()) {
                     logger.warn("{}/mqtt connection lost, will retry by automatic reconnect.", path);
                     return;
                 }
 
-                // 连接丢失时，如果用户没有设置自动重连，则启用策略进行重连
-                try {
-                    logger.warn("{}/mqtt connection lost, will retry by strategy.", path);
-                    strategy.connect(path, client, connOpt, true);
-                } catch (Exception sCause) {
-                    logger.error("{}/mqtt connection lost, retry by strategy failed!", path, sCause);
-                }
+                // 连接丢失时，如果用户没有设置自动重连，则启用策略进行重连；异步策略不阻塞回调线程
+                logger.warn("{}/mqtt connection lost, will retry by strategy.", path);
+                final var reconnecting = strategy.connectAsync(path, client, options, true);
+                client.reconnecting = reconnecting;
+                reconnecting.whenComplete((v, ex) -> {
+                    if (null != ex && !(ex instanceof CancellationException)) {
+                        logger.error("{}/mqtt connection lost, retry by strategy failed!", path, ex);
+                    }
+                });
 
             }
 
             @Override
-            public void messageArrived(String topic, MqttMessage message) {
-                // ignore
+            public void messageArrived(String topic, MqttMessage message) throws Exception {
+                final var downstream = client.downstream;
+                if (null != downstream) {
+                    downstream.messageArrived(topic, message);
+                }
             }
 
             @Override
             public void deliveryComplete(IMqttDeliveryToken token) {
-                // ignore
+                final var downstream = client.downstream;
+                if (null != downstream) {
+                    downstream.deliveryComplete(token);
+                }
             }
 
         });
 
-        // 连接并返回MQTT客户端
-        strategy.connect(path, client, connOpt, false);
         return client;
     }
 
+    // 复制离线缓冲区选项：使用文件持久化时缓冲区随之持久化，不修改调用方传入的选项
+    private static DisconnectedBufferOptions copyOf(DisconnectedBufferOptions source, boolean persistBuffer) {
+        final var target = new DisconnectedBufferOptions();
+        target.setBufferEnabled(source.isBufferEnabled());
+        target.setBufferSize(source.getBufferSize());
+        target.setDeleteOldestMessages(source.isDeleteOldestMessages());
+        target.setPersistBuffer(persistBuffer);
+        return target;
+    }
+
+    // 复制连接选项
+    private static MqttConnectOptions copyOf(MqttConnectOptions source) {
+        final var target = new MqttConnectOptions();
+        target.setCleanSession(source.isCleanSession());
+        target.setAutomaticReconnect(source.isAutomaticReconnect());
+        target.setKeepAliveInterval(source.getKeepAliveInterval());
+        target.setConnectionTimeout(source.getConnectionTimeout());
+        target.setMaxReconnectDelay(source.getMaxReconnectDelay());
+        target.setExecutorServiceTimeout(source.getExecutorServiceTimeout());
+        target.setMaxInflight(source.getMaxInflight());
+        target.setMqttVersion(source.getMqttVersion());
+        target.setSocketFactory(source.getSocketFactory());
+        target.setSSLProperties(source.getSSLProperties());
+        target.setSSLHostnameVerifier(source.getSSLHostnameVerifier());
+        target.setHttpsHostnameVerificationEnabled(source.isHttpsHostnameVerificationEnabled());
+        target.setCustomWebSocketHeaders(source.getCustomWebSocketHeaders());
+        if (null != source.getServerURIs()) {
+            target.setServerURIs(source.getServerURIs());
+        }
+        if (null != source.getWillDestination()) {
+            final var will = source.getWillMessage();
+            target.setWill(source.getWillDestination(), will.getPayload(), will.getQos(), will.isRetained());
+        }
+        return target;
+    }
+
+    /**
+     * MQTT客户端
+     * <p>工厂内置的连接回调负责断线重连，通过{@link #setCallback(MqttCallback)}设置的回调作为下游回调，在内置回调之后被通知</p>
+     * <p>启用离线消息重放时，未连接期间发布的消息进入重放缓冲区</p>
+     */
+    private static class MqttAsyncClientImpl extends MqttAsyncClient {
+
+        private volatile MqttCallback downstream;
+        private MqttConnectOptions options;
+        private MqttReplayBuffer replay;
+        private volatile CompletableFuture<Void> reconnecting;
+
+        MqttAsyncClientImpl(String serverURI, String clientId, MqttClientPersistence persistence) throws MqttException {
+            super(serverURI, clientId, persistence);
+        }
+
+        void setInternalCallback(MqttCallbackExtended callback) {
+            super.setCallback(callback);
+        }
+
+        @Override
+        public void setCallback(MqttCallback callback) {
+            this.downstream = callback;
+        }
+
+        @Override
+        public IMqttDeliveryToken publish(String topic, MqttMessage message, Object userContext, IMqttActionListener callback) throws MqttException {
+            if (null == replay) {
+                return super.publish(topic, message, userContext, callback);
+            }
+
+            // 已连接时实时消息直接发送，不排在积压消息之后
+            if (isConnected()) {
+                try {
+                    return super.publish(topic, message, userContext, callback);
+                } catch (MqttException cause) {
+                    if (cause.getReasonCode() != MqttException.REASON_CODE_CLIENT_NOT_CONNECTED) {
+                        throw cause;
+                    }
+                }
+            }
+            return replay.buffer(topic, message, userContext, callback);
+        }
+
+        IMqttDeliveryToken publishDirectly(String topic, MqttMessage message, Object userContext, IMqttActionListener callback) throws MqttException {
+            return super.publish(topic, message, userContext, callback);
+        }
+
+        @Override
+        public void close(boolean force) throws MqttException {
+
+            // 停止尚未完成的重连
+            final var reconnecting = this.reconnecting;
+            if (null != reconnecting) {
+                reconnecting.cancel(false);
+            }
+
+            try {
+                super.close(force);
+            } finally {
+                if (null != replay) {
+                    replay.close();
+                }
+            }
+        }
+
+    }
+
     /**
      * 阿里云MQTT签名
      */
@@ -184,13 +427,7 @@ public class DefaultMqttClientFactory implements MqttClientFactory {
                     path.getProductId(),
                     timestamp
             );
-            try {
-                final Mac mac = Mac.getInstance("HMACSHA1");
-                mac.init(new SecretKeySpec(secret.getBytes(UTF_8), mac.getAlgorithm()));
-                return bytesToHexString(mac.doFinal(content.getBytes(UTF_8))).toCharArray();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+            return HmacSigner.hmacSha1().signAsHex(secret, content).toCharArray();
         }
 
         /**
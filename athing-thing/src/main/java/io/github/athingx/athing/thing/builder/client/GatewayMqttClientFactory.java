@@ -0,0 +1,121 @@
+package io.github.athingx.athing.thing.builder.client;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.impl.client.GatewayConnection;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 网关MQTT客户端工厂
+ * <p>
+ * 网关模式（alink子设备拓扑）：由该工厂构造的所有设备共享网关的一条物理MQTT连接，
+ * 网关物理连接在首次构造设备时建立，子设备在构造时通过网关上线，销毁时下线。
+ * </p>
+ * <pre>{@code
+ * final var factory = new GatewayMqttClientFactory()
+ *         .gateway(gatewayPath, new DefaultMqttClientFactory().remote(REMOTE).secret(GATEWAY_SECRET))
+ *         .secrets(path -> SUB_DEVICE_SECRETS.get(path.toURN()));
+ * final var thing = new ThingBuilder(subDevicePath).client(factory).build();
+ * }</pre>
+ */
+public class GatewayMqttClientFactory implements MqttClientFactory {
+
+    private ThingPath gateway;
+    private MqttClientFactory gatewayFactory;
+    private Function<ThingPath, String> secrets;
+    private long timeoutMs = 30 * 1000L;
+    private volatile GatewayConnection connection;
+
+    /**
+     * 设置网关
+     *
+     * @param gateway        网关设备路径
+     * @param gatewayFactory 网关物理连接工厂
+     * @return this
+     */
+    public GatewayMqttClientFactory gateway(ThingPath gateway, MqttClientFactory gatewayFactory) {
+        this.gateway = gateway;
+        this.gatewayFactory = gatewayFactory;
+        return this;
+    }
+
+    /**
+     * 设置子设备密钥
+     *
+     * @param secrets 子设备密钥函数
+     * @return this
+     */
+    public GatewayMqttClientFactory secrets(Function<ThingPath, String> secrets) {
+        this.secrets = secrets;
+        return this;
+    }
+
+    /**
+     * 设置子设备上下线超时
+     *
+     * @param timeoutMs 超时时间（毫秒）
+     * @return this
+     */
+    public GatewayMqttClientFactory timeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        return this;
+    }
+
+    @Override
+    public IMqttAsyncClient make(ThingPath path) throws MqttException {
+        return connection().attach(path);
+    }
+
+    /**
+     * 异步创建MQTT客户端
+     * <p>子设备上线不占用调用线程；网关物理连接仍在首次构造设备时同步建立</p>
+     *
+     * @param path 设备路径
+     * @return 创建操作
+     */
+    @Override
+    public CompletableFuture<IMqttAsyncClient> makeAsync(ThingPath path) {
+        try {
+            return connection().attachAsync(path);
+        } catch (MqttException | RuntimeException cause) {
+            return CompletableFuture.failedFuture(cause);
+        }
+    }
+
+    private GatewayConnection connection() throws MqttException {
+        if (null == connection) {
+            synchronized (this) {
+                if (null == connection) {
+                    Objects.requireNonNull(gateway, "gateway is required");
+                    Objects.requireNonNull(gatewayFactory, "gatewayFactory is required");
+                    Objects.requireNonNull(secrets, "secrets is required");
+                    connection = new GatewayConnection(
+                            gateway,
+                            Objects.requireNonNull(gatewayFactory.make(gateway), "client is required"),
+                            secrets,
+                            timeoutMs
+                    );
+                }
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * 关闭网关物理连接
+     * <p>应在所有设备销毁之后调用</p>
+     *
+     * @throws MqttException 关闭失败
+     */
+    public void shutdown() throws MqttException {
+        final var connection = this.connection;
+        if (null != connection) {
+            connection.close();
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+package io.github.athingx.athing.thing.builder.client;
+
+import io.github.athingx.athing.thing.impl.client.MappedSegmentLog;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.eclipse.paho.client.mqttv3.MqttPersistenceException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 内存映射文件持久化
+ * <p>
+ * MQTT客户端的在途消息（QoS1/2）和离线缓冲消息（{@link org.eclipse.paho.client.mqttv3.DisconnectedBufferOptions#setPersistBuffer(boolean)}）
+ * 以追加日志写入内存映射的分段文件，进程重启后由客户端恢复并重新投递；消息内容保存在映射区而不在堆中，已删除的消息由日志压缩回收。
+ * </p>
+ * <p>
+ * 设备的客户端ID每次启动都不同，因此持久化不按客户端ID区分目录：一个目录只能供一台设备的一个客户端使用。
+ * 默认只依赖操作系统回写页缓存，进程崩溃不丢数据；需要抵御掉电时开启{@link #sync(boolean)}，代价是每条消息一次刷盘。
+ * </p>
+ */
+public class MappedFilePersistence implements MqttClientPersistence {
+
+    private final Path directory;
+    private int segmentSize = 4 * 1024 * 1024;
+    private boolean sync = false;
+    private MappedSegmentLog log;
+
+    /**
+     * 内存映射文件持久化
+     *
+     * @param directory 持久化目录
+     */
+    public MappedFilePersistence(Path directory) {
+        this.directory = requireNonNull(directory, "directory is required!");
+    }
+
+    /**
+     * 设置分段大小
+     *
+     * @param segmentSize 分段大小（字节）
+     * @return this
+     */
+    public MappedFilePersistence segmentSize(int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be positive!");
+        }
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    /**
+     * 设置是否每次写入后同步刷盘
+     *
+     * @param sync TRUE | FALSE
+     * @return this
+     */
+    public MappedFilePersistence sync(boolean sync) {
+        this.sync = sync;
+        return this;
+    }
+
+    @Override
+    public synchronized void open(String clientId, String serverURI) throws MqttPersistenceException {
+
+        // 客户端在构造和每次连接时都会打开持久化
+        if (null != log) {
+            return;
+        }
+
+        try {
+            log = new MappedSegmentLog(directory, segmentSize, sync);
+        } catch (IOException cause) {
+            throw new MqttPersistenceException(cause);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (null != log) {
+            log.close();
+            log = null;
+        }
+    }
+
+    @Override
+    public void put(String key, MqttPersistable persistable) throws MqttPersistenceException {
+        try {
+            checkOpen().put(
+                    key,
+                    persistable.getHeaderBytes(), persistable.getHeaderOffset(), persistable.getHeaderLength(),
+                    persistable.getPayloadBytes(), persistable.getPayloadOffset(), persistable.getPayloadLength()
+            );
+        } catch (IOException cause) {
+            throw new MqttPersistenceException(cause);
+        }
+    }
+
+    @Override
+    public MqttPersistable get(String key) throws MqttPersistenceException {
+        final byte[][] data = checkOpen().get(key);
+        return null == data ? null : new Persistable(data[0], data[1]);
+    }
+
+    @Override
+    public void remove(String key) throws MqttPersistenceException {
+        try {
+            checkOpen().remove(key);
+        } catch (IOException cause) {
+            throw new MqttPersistenceException(cause);
+        }
+    }
+
+    @Override
+    public Enumeration<String> keys() throws MqttPersistenceException {
+        return Collections.enumeration(checkOpen().keys());
+    }
+
+    @Override
+    public void clear() throws MqttPersistenceException {
+        try {
+            checkOpen().clear();
+        } catch (IOException cause) {
+            throw new MqttPersistenceException(cause);
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) throws MqttPersistenceException {
+        return checkOpen().contains(key);
+    }
+
+    private synchronized MappedSegmentLog checkOpen() throws MqttPersistenceException {
+        if (null == log) {
+            throw new MqttPersistenceException();
+        }
+        return log;
+    }
+
+    @Override
+    public String toString() {
+        return "mapped-persistence:%s".formatted(directory);
+    }
+
+    /**
+     * 持久化数据
+     *
+     * @param header  头部
+     * @param payload 负载
+     */
+    private record Persistable(byte[] header, byte[] payload) implements MqttPersistable {
+
+        @Override
+        public byte[] getHeaderBytes() {
+            return header;
+        }
+
+        @Override
+        public int getHeaderLength() {
+            return header.length;
+        }
+
+        @Override
+        public int getHeaderOffset() {
+            return 0;
+        }
+
+        @Override
+        public byte[] getPayloadBytes() {
+            return payload;
+        }
+
+        @Override
+        public int getPayloadLength() {
+            return payload.length;
+        }
+
+        @Override
+        public int getPayloadOffset() {
+            return 0;
+        }
+
+    }
+
+}
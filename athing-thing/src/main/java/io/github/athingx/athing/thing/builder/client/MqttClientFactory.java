@@ -1,11 +1,20 @@
 package io.github.athingx.athing.thing.builder.client;
 
 import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.impl.client.MqttBlockingExecutor;
 import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttException;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * MQTT客户端工厂
+ * <p>
+ * 约定：设备独占工厂创建的客户端，构造时通过{@link IMqttAsyncClient#setCallback(org.eclipse.paho.client.mqttv3.MqttCallback)}
+ * 安装自己的消息路由（订阅不再附带逐个的消息监听器，所有消息经该回调按主题分发），之前设置的回调将被替换。
+ * 工厂需要感知连接丢失等事件时，应在客户端内部持有自己的回调，把{@code setCallback}设置的回调作为下游转发，
+ * 参见{@link DefaultMqttClientFactory}。
+ * </p>
  */
 public interface MqttClientFactory {
 
@@ -18,4 +27,25 @@ public interface MqttClientFactory {
      */
     IMqttAsyncClient make(ThingPath path) throws MqttException;
 
+    /**
+     * 异步创建MQTT客户端
+     * <p>
+     * 默认在进程共享的有界线程池上执行{@link #make(ThingPath)}，不阻塞调用线程，同时阻塞中的创建数受线程池大小限制；
+     * 能够异步连接的工厂应覆盖该方法，连接期间不占用线程。创建操作被取消后才创建完成的客户端将被关闭
+     * </p>
+     *
+     * @param path 设备路径
+     * @return 创建操作
+     */
+    default CompletableFuture<IMqttAsyncClient> makeAsync(ThingPath path) {
+        return MqttBlockingExecutor.supplyAsync(() -> make(path), false, client -> {
+            try {
+                client.disconnectForcibly();
+                client.close();
+            } catch (MqttException cause) {
+                // 客户端已被丢弃，关闭失败无需处理
+            }
+        });
+    }
+
 }
@@ -0,0 +1,106 @@
+package io.github.athingx.athing.thing.builder.client;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.impl.client.MqttBackoffConnectStrategy;
+import io.github.athingx.athing.thing.impl.client.MqttConnectAdmission;
+
+import java.util.function.ToIntFunction;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * MQTT连接协调器
+ * <p>
+ * 进程内共用同一协调器的设备，连接和重连都要先经过准入：同时进行中的连接不超过并发上限，每秒发起的连接不超过速率上限，
+ * 排队时按设备权重从高到低放行。避免服务端抖动后大量设备同时重连，压垮本机（TLS握手）和服务端的连接配额。
+ * </p>
+ */
+public class MqttConnectCoordinator {
+
+    private static final MqttConnectCoordinator shared = new MqttConnectCoordinator();
+
+    private volatile int concurrency = 32;
+    private volatile double rate = 50;
+    private volatile ToIntFunction<ThingPath> weight = path -> 0;
+    private final MqttConnectAdmission admission = new MqttConnectAdmission(() -> concurrency, () -> rate);
+
+    /**
+     * 获取进程共享的协调器
+     *
+     * @return 协调器
+     */
+    public static MqttConnectCoordinator shared() {
+        return shared;
+    }
+
+    /**
+     * 设置连接并发上限
+     *
+     * @param concurrency 同时进行中的最大连接数
+     * @return this
+     */
+    public MqttConnectCoordinator concurrency(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive!");
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * 设置连接速率上限
+     *
+     * @param rate 每秒最大连接数
+     * @return this
+     */
+    public MqttConnectCoordinator rate(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive!");
+        }
+        this.rate = rate;
+        return this;
+    }
+
+    /**
+     * 设置设备权重
+     *
+     * @param weight 设备权重，越大越先连接
+     * @return this
+     */
+    public MqttConnectCoordinator weight(ToIntFunction<ThingPath> weight) {
+        this.weight = requireNonNull(weight, "weight is required!");
+        return this;
+    }
+
+    /**
+     * 受协调的退避重试连接策略
+     *
+     * @param limit          重试次数限制
+     * @param stepIntervalMs 退避基准间隔(ms)
+     * @param maxIntervalMs  退避最大间隔(ms)
+     * @return 连接策略
+     * @see MqttConnectStrategy#backoff(int, long, long)
+     */
+    public MqttConnectStrategy backoff(int limit, long stepIntervalMs, long maxIntervalMs) {
+        return new MqttBackoffConnectStrategy(limit, stepIntervalMs, maxIntervalMs, admission, path -> weight.applyAsInt(path));
+    }
+
+    /**
+     * 获取排队中的连接数
+     *
+     * @return 排队中的连接数
+     */
+    public int getWaiting() {
+        return admission.waiting();
+    }
+
+    /**
+     * 获取进行中的连接数
+     *
+     * @return 进行中的连接数
+     */
+    public int getRunning() {
+        return admission.running();
+    }
+
+}
@@ -1,12 +1,15 @@
 package io.github.athingx.athing.thing.builder.client;
 
 import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.impl.client.MqttBackoffConnectStrategy;
+import io.github.athingx.athing.thing.impl.client.MqttBlockingExecutor;
 import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
@@ -28,6 +31,26 @@ public interface MqttConnectStrategy {
      */
     void connect(ThingPath path, IMqttAsyncClient client, MqttConnectOptions options, boolean isReconnect) throws MqttException;
 
+    /**
+     * 异步连接
+     * <p>
+     * 默认在进程共享的有界线程池上执行{@link #connect(ThingPath, IMqttAsyncClient, MqttConnectOptions, boolean)}，不阻塞调用线程；
+     * 取消返回的凭证将中断连接线程，停止后续重试
+     * </p>
+     *
+     * @param path        设备路径
+     * @param client      Mqtt Client
+     * @param options     Mqtt Options
+     * @param isReconnect 是否重连
+     * @return 连接凭证
+     */
+    default CompletableFuture<Void> connectAsync(ThingPath path, IMqttAsyncClient client, MqttConnectOptions options, boolean isReconnect) {
+        return MqttBlockingExecutor.supplyAsync(() -> {
+            connect(path, client, options, isReconnect);
+            return null;
+        }, true, null);
+    }
+
     /**
      * 重试连接策略
      *
@@ -122,6 +145,22 @@ public interface MqttConnectStrategy {
     }
 
 
+    /**
+     * 退避重试连接策略
+     * <p>
+     * 连接和重试都不阻塞调用线程：失败后在共享时间轮上按去相关抖动退避（下次间隔在{@code [step, min(max, 上次间隔 * 3)]}内随机）调度下一次连接，
+     * 大量设备同时断线重连时不占用线程，重连时间也被打散。需要进程级的连接并发和速率控制时使用{@link MqttConnectCoordinator#backoff(int, long, long)}。
+     * </p>
+     *
+     * @param limit          重试次数限制
+     * @param stepIntervalMs 退避基准间隔(ms)
+     * @param maxIntervalMs  退避最大间隔(ms)
+     * @return 退避重试连接策略
+     */
+    static MqttConnectStrategy backoff(int limit, long stepIntervalMs, long maxIntervalMs) {
+        return new MqttBackoffConnectStrategy(limit, stepIntervalMs, maxIntervalMs, null, path -> 0);
+    }
+
     /**
      * 永久重试
      *
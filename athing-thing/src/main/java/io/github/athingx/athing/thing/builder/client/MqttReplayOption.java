@@ -0,0 +1,108 @@
+package io.github.athingx.athing.thing.builder.client;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+
+/**
+ * 离线消息重放选项
+ * <p>
+ * 启用后由客户端自行缓冲断线期间发布的消息，取代MQTT客户端的离线缓冲区（{@link org.eclipse.paho.client.mqttv3.DisconnectedBufferOptions}不再生效，
+ * 缓冲的消息只在内存中，因此不能与{@link MappedFilePersistence}同时使用）；重连成功后按限定速率重放，并只占用一部分在途窗口，
+ * 重连后新发布的实时消息直接发送、不排在积压消息之后。
+ * </p>
+ */
+public class MqttReplayOption {
+
+    private int capacity = 5000;
+    private double rate = 100;
+    private double headroom = 0.5;
+    private ProgressListener listener = (path, replayed, remaining) -> {
+    };
+
+    /**
+     * 设置缓冲容量，缓冲满时丢弃最早的消息
+     *
+     * @param capacity 最大缓冲消息数
+     * @return this
+     */
+    public MqttReplayOption capacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive!");
+        }
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * 设置重放速率
+     *
+     * @param rate 每秒重放消息数
+     * @return this
+     */
+    public MqttReplayOption rate(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive!");
+        }
+        this.rate = rate;
+        return this;
+    }
+
+    /**
+     * 设置重放可占用的在途窗口比例
+     *
+     * @param headroom 占{@link org.eclipse.paho.client.mqttv3.MqttConnectOptions#getMaxInflight()}的比例，(0,1]
+     * @return this
+     */
+    public MqttReplayOption headroom(double headroom) {
+        if (headroom <= 0 || headroom > 1) {
+            throw new IllegalArgumentException("headroom must be in (0,1]!");
+        }
+        this.headroom = headroom;
+        return this;
+    }
+
+    /**
+     * 设置重放进度监听器
+     *
+     * @param listener 重放进度监听器
+     * @return this
+     */
+    public MqttReplayOption listener(ProgressListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public double getHeadroom() {
+        return headroom;
+    }
+
+    public ProgressListener getListener() {
+        return listener;
+    }
+
+    /**
+     * 重放进度监听器
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * 重放进度
+         * <p>每条积压消息交给MQTT客户端后回调，在MQTT阻塞操作的共享线程池上执行，不能长时间阻塞</p>
+         *
+         * @param path      设备路径
+         * @param replayed  本次连接已重放消息数
+         * @param remaining 剩余积压消息数
+         */
+        void onProgress(ThingPath path, long replayed, int remaining);
+
+    }
+
+}
@@ -0,0 +1,61 @@
+package io.github.athingx.athing.thing.builder.executor;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.impl.util.LimitedExecutorService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 共享线程池工厂
+ * <p>
+ * 由该工厂构造的所有设备共享同一个固定大小的线程池，每个设备获得一条串行通道：
+ * 同一设备的任务严格按提交（消息到达）顺序执行，不同设备的任务并行执行。
+ * 设备销毁时只关闭自己的通道，共享线程池由{@link #shutdown()}关闭。
+ * </p>
+ * <p>
+ * 注意：设备的消息消费在自己的串行通道上执行，消费者中不能阻塞等待同一设备的后续消息
+ * （如在消费者中同步等待{@code call(...).get()}的应答），否则应答排在当前任务之后永远得不到执行，
+ * 只能等到调用超时；这类调用应改用异步回调。
+ * </p>
+ */
+public class SharedExecutorServiceFactory implements ExecutorServiceFactory {
+
+    private final ExecutorService shared;
+
+    /**
+     * 共享线程池工厂
+     *
+     * @param nThreads 共享线程数
+     */
+    public SharedExecutorServiceFactory(int nThreads) {
+        final var counter = new AtomicInteger(1000);
+        this.shared = Executors.newFixedThreadPool(nThreads, r ->
+                new Thread(r) {{
+                    setDaemon(true);
+                    setName("athing-executor-shared-%d".formatted(counter.incrementAndGet()));
+                }}
+        );
+    }
+
+    /**
+     * 共享线程池工厂（共享线程数为CPU核数）
+     */
+    public SharedExecutorServiceFactory() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public ExecutorService make(ThingPath path) {
+        return new LimitedExecutorService(shared, 1);
+    }
+
+    /**
+     * 关闭共享线程池
+     */
+    public void shutdown() {
+        shared.shutdown();
+    }
+
+}
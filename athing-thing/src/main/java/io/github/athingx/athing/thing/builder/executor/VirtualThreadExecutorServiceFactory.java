@@ -0,0 +1,69 @@
+package io.github.athingx.athing.thing.builder.executor;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.impl.util.LimitedExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 虚拟线程线程池工厂
+ * <p>
+ * 所有设备共享进程内唯一的虚拟线程执行器（每个任务一个虚拟线程），每个设备获得一条并发受限的通道，
+ * 避免单个繁忙设备占满调度资源；设备销毁时只关闭自己的通道。
+ * </p>
+ * <p>
+ * 虚拟线程需要JDK21及以上版本，低版本JDK将退化为进程内共享的平台线程池。
+ * </p>
+ */
+public class VirtualThreadExecutorServiceFactory implements ExecutorServiceFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadExecutorServiceFactory.class);
+    private static final ExecutorService carrier = newCarrier();
+
+    private final int concurrency;
+
+    /**
+     * 虚拟线程线程池工厂
+     *
+     * @param concurrency 单设备最大并发数
+     */
+    public VirtualThreadExecutorServiceFactory(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive!");
+        }
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * 虚拟线程线程池工厂（单设备最大并发数16）
+     */
+    public VirtualThreadExecutorServiceFactory() {
+        this(16);
+    }
+
+    // 项目以JDK17编译，通过反射获取虚拟线程执行器
+    private static ExecutorService newCarrier() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException cause) {
+            logger.warn("virtual thread is not supported, fallback to shared platform threads!");
+            final var counter = new AtomicInteger(1000);
+            return Executors.newFixedThreadPool(Math.max(16, Runtime.getRuntime().availableProcessors() * 4), r ->
+                    new Thread(r) {{
+                        setDaemon(true);
+                        setName("athing-executor-shared-%d".formatted(counter.incrementAndGet()));
+                    }}
+            );
+        }
+    }
+
+    @Override
+    public ExecutorService make(ThingPath path) {
+        return new LimitedExecutorService(carrier, concurrency);
+    }
+
+}
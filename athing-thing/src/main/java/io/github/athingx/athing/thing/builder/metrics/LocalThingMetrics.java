@@ -0,0 +1,127 @@
+package io.github.athingx.athing.thing.builder.metrics;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.impl.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * 本地设备指标
+ * <p>
+ * 不依赖任何指标库：发布和消费按（指标名、产品、主题模式、结果）分别记录到延迟直方图（计数为条带化的{@link java.util.concurrent.atomic.LongAdder}），
+ * 线程池排队任务数按产品汇总；通过{@link #getMeters()}和{@link #getQueueSize(String)}读取，由使用方定期采集。
+ * </p>
+ */
+public class LocalThingMetrics implements ThingMetrics {
+
+    private static final String[] CONSUME_RESULTS = Arrays.stream(ConsumeResult.values())
+            .map(result -> result.name().toLowerCase(Locale.ROOT))
+            .toArray(String[]::new);
+
+    private final Map<Key, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, Set<IntSupplier>> queues = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordPublish(ThingPath path, String topic, long nanos, boolean success) {
+        histogram(new Key("publish", path.getProductId(), topic, success ? "success" : "failure")).record(nanos);
+    }
+
+    @Override
+    public void recordConsume(ThingPath path, String topic, long nanos, ConsumeResult result) {
+        histogram(new Key("consume", path.getProductId(), topic, CONSUME_RESULTS[result.ordinal()])).record(nanos);
+    }
+
+    private LatencyHistogram histogram(Key key) {
+        final var exist = histograms.get(key);
+        return null != exist ? exist : histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
+
+    @Override
+    public Runnable bindExecutor(ThingPath path, IntSupplier queueSize) {
+        final var productId = path.getProductId();
+        queues.computeIfAbsent(productId, k -> ConcurrentHashMap.newKeySet()).add(queueSize);
+        return () -> {
+            final var suppliers = queues.get(productId);
+            if (null != suppliers) {
+                suppliers.remove(queueSize);
+            }
+        };
+    }
+
+    /**
+     * 获取指标快照
+     *
+     * @return 指标快照
+     */
+    public List<Meter> getMeters() {
+        final List<Meter> meters = new ArrayList<>();
+        histograms.forEach((key, histogram) -> meters.add(new Meter(
+                key.name(),
+                key.productId(),
+                key.topic(),
+                key.result(),
+                histogram.getCount(),
+                histogram.getTotalNanos(),
+                histogram.getPercentileNanos(50),
+                histogram.getPercentileNanos(99),
+                histogram.getMaxNanos()
+        )));
+        return meters;
+    }
+
+    /**
+     * 获取产品下所有设备线程池的排队任务数
+     *
+     * @param productId 产品ID
+     * @return 排队任务数
+     */
+    public int getQueueSize(String productId) {
+        final var suppliers = queues.get(productId);
+        if (null == suppliers) {
+            return 0;
+        }
+        int size = 0;
+        for (final var supplier : suppliers) {
+            size += supplier.getAsInt();
+        }
+        return size;
+    }
+
+    /**
+     * 指标键
+     *
+     * @param name      指标名
+     * @param productId 产品ID
+     * @param topic     主题模式
+     * @param result    结果
+     */
+    private record Key(String name, String productId, String topic, String result) {
+
+    }
+
+    /**
+     * 指标快照
+     *
+     * @param name       指标名：{@code publish}、{@code consume}
+     * @param productId  产品ID
+     * @param topic      主题模式
+     * @param result     结果
+     * @param count      次数
+     * @param totalNanos 总耗时(ns)
+     * @param p50Nanos   50分位耗时(ns)
+     * @param p99Nanos   99分位耗时(ns)
+     * @param maxNanos   最大耗时(ns)
+     */
+    public record Meter(String name, String productId, String topic, String result,
+                        long count, long totalNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+
+    }
+
+}
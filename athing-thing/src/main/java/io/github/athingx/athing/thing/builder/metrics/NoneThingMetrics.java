@@ -0,0 +1,33 @@
+package io.github.athingx.athing.thing.builder.metrics;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+
+import java.util.function.IntSupplier;
+
+/**
+ * 空指标
+ */
+final class NoneThingMetrics implements ThingMetrics {
+
+    static final NoneThingMetrics INSTANCE = new NoneThingMetrics();
+
+    private NoneThingMetrics() {
+    }
+
+    @Override
+    public void recordPublish(ThingPath path, String topic, long nanos, boolean success) {
+
+    }
+
+    @Override
+    public void recordConsume(ThingPath path, String topic, long nanos, ConsumeResult result) {
+
+    }
+
+    @Override
+    public Runnable bindExecutor(ThingPath path, IntSupplier queueSize) {
+        return () -> {
+        };
+    }
+
+}
@@ -0,0 +1,82 @@
+package io.github.athingx.athing.thing.builder.metrics;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+
+import java.util.function.IntSupplier;
+
+/**
+ * 设备指标
+ * <p>
+ * 设备操作在发布、消费和线程池上向指标报告，实现需保证线程安全且不阻塞（在MQTT回调线程和设备线程池上调用）。
+ * 报告的主题已归一化为主题模式：设备路径中的产品ID、设备ID以及纯数字层级替换为{@code +}，
+ * 指标按{@link ThingPath#getProductId()}和主题模式区分，不会随设备数和消息ID膨胀。
+ * </p>
+ */
+public interface ThingMetrics {
+
+    /**
+     * 记录发布
+     *
+     * @param path    设备路径
+     * @param topic   主题模式
+     * @param nanos   从发布到Broker确认（QOS1为PUBACK）的耗时(ns)
+     * @param success 是否成功
+     */
+    void recordPublish(ThingPath path, String topic, long nanos, boolean success);
+
+    /**
+     * 记录消费
+     *
+     * @param path   设备路径
+     * @param topic  订阅表达式的主题模式
+     * @param nanos  从消息到达到消费结束（含线程池排队）的耗时(ns)
+     * @param result 消费结果
+     */
+    void recordConsume(ThingPath path, String topic, long nanos, ConsumeResult result);
+
+    /**
+     * 绑定设备线程池
+     *
+     * @param path      设备路径
+     * @param queueSize 排队任务数
+     * @return 解除绑定动作，设备销毁时执行
+     */
+    Runnable bindExecutor(ThingPath path, IntSupplier queueSize);
+
+    /**
+     * 不记录任何指标
+     *
+     * @return 空指标
+     */
+    static ThingMetrics none() {
+        return NoneThingMetrics.INSTANCE;
+    }
+
+    /**
+     * 消费结果
+     */
+    enum ConsumeResult {
+
+        /**
+         * 消费成功
+         */
+        CONSUMED,
+
+        /**
+         * 解码跳过（{@link io.github.athingx.athing.thing.api.op.Decoder.DecodeSkipException}）
+         */
+        SKIPPED,
+
+        /**
+         * 解码失败
+         */
+        DECODE_FAILED,
+
+        /**
+         * 消费失败
+         */
+        FAILED
+
+    }
+
+}
@@ -5,8 +5,11 @@ import io.github.athingx.athing.thing.api.ThingPath;
 import io.github.athingx.athing.thing.api.op.Codec;
 import io.github.athingx.athing.thing.api.op.ThingOp;
 import io.github.athingx.athing.thing.api.plugin.ThingPlugins;
+import io.github.athingx.athing.thing.builder.OpCallOption;
+import io.github.athingx.athing.thing.builder.metrics.ThingMetrics;
 import io.github.athingx.athing.thing.impl.op.ThingOpImpl;
 import io.github.athingx.athing.thing.impl.plugin.ThingPluginsImpl;
+import io.github.athingx.athing.thing.impl.util.LimitedExecutorService;
 import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.slf4j.Logger;
@@ -15,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * 设备实现
@@ -27,14 +31,36 @@ public class ThingImpl implements Thing {
     private final ExecutorService executor;
     private final ThingOp<byte[], byte[]> thingOp;
     private final ThingPlugins plugins;
+    private final Runnable unbindExecutor;
     private final CompletableFuture<Void> destroyF = new CompletableFuture<>();
 
     public ThingImpl(ThingPath path, IMqttAsyncClient client, ExecutorService executor) {
+        this(path, client, executor, new OpCallOption(), ThingMetrics.none());
+    }
+
+    public ThingImpl(ThingPath path, IMqttAsyncClient client, ExecutorService executor, OpCallOption callOpt) {
+        this(path, client, executor, callOpt, ThingMetrics.none());
+    }
+
+    public ThingImpl(ThingPath path, IMqttAsyncClient client, ExecutorService executor, OpCallOption callOpt, ThingMetrics metrics) {
         this.path = path;
         this.client = client;
         this.executor = executor;
-        this.thingOp = new ThingOpImpl<>(path, client, executor, Codec.none());
+        this.thingOp = new ThingOpImpl<>(path, client, executor, Codec.none(), callOpt, metrics);
         this.plugins = new ThingPluginsImpl(this, destroyF);
+        this.unbindExecutor = bindExecutor(path, executor, metrics);
+    }
+
+    // 向指标报告线程池排队任务数，无法获取排队数的线程池不报告
+    private static Runnable bindExecutor(ThingPath path, ExecutorService executor, ThingMetrics metrics) {
+        if (executor instanceof ThreadPoolExecutor pool) {
+            return metrics.bindExecutor(path, () -> pool.getQueue().size());
+        }
+        if (executor instanceof LimitedExecutorService limited) {
+            return metrics.bindExecutor(path, limited::getQueueSize);
+        }
+        return () -> {
+        };
     }
 
     @Override
@@ -91,6 +117,7 @@ public class ThingImpl implements Thing {
 
         // 关闭线程池
         executor.shutdown();
+        unbindExecutor.run();
 
     }
 
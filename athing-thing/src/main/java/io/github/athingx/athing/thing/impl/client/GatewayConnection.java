@@ -0,0 +1,336 @@
+package io.github.athingx.athing.thing.impl.client;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.athingx.athing.common.util.HmacSigner;
+import io.github.athingx.athing.thing.api.ThingException;
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.impl.util.HashedWheelTimer;
+import io.github.athingx.athing.thing.impl.util.TokenSequencer;
+import org.eclipse.paho.client.mqttv3.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static io.github.athingx.athing.common.ThingCodes.OK;
+import static io.github.athingx.athing.common.util.JsonObjectUtils.getAsString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * 网关连接
+ * <p>
+ * 多个设备共享网关的一条物理MQTT连接（alink子设备拓扑）：子设备通过网关会话上线（{@code combine/login}）和下线（{@code combine/logout}），
+ * 物理连接上的消息按主题中的{@code productKey/deviceName}路由回对应设备的客户端视图。
+ * 物理连接断开重连后，所有在线子设备自动重新上线。
+ * </p>
+ * <p>子设备需预先添加到网关的拓扑关系中。</p>
+ */
+public class GatewayConnection implements MqttCallbackExtended {
+
+    // 子设备上线签名的复用期限，期限内重新上线（例如物理连接重连后）不再重新签名
+    private static final long SIGN_VALIDITY_MS = 10 * 60 * 1000L;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final ThingPath gateway;
+    private final IMqttAsyncClient client;
+    private final Function<ThingPath, String> secrets;
+    private final long timeoutMs;
+    private final Map<String, GatewayMqttClient> views = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<JsonObject>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, LoginSign> signs = new ConcurrentHashMap<>();
+    private final TokenSequencer sequencer = new TokenSequencer();
+
+    /**
+     * 网关连接
+     *
+     * @param gateway   网关设备路径
+     * @param client    网关物理MQTT客户端（已连接）
+     * @param secrets   子设备密钥
+     * @param timeoutMs 会话操作超时（毫秒）
+     * @throws MqttException 订阅会话应答失败
+     */
+    public GatewayConnection(ThingPath gateway, IMqttAsyncClient client, Function<ThingPath, String> secrets, long timeoutMs) throws MqttException {
+        this.gateway = gateway;
+        this.client = client;
+        this.secrets = secrets;
+        this.timeoutMs = timeoutMs;
+        client.setCallback(this);
+        client.subscribe(
+                new String[]{sessionTopic("login_reply"), sessionTopic("logout_reply")},
+                new int[]{1, 1},
+                new IMqttMessageListener[]{this::onSessionReply, this::onSessionReply}
+        ).waitForCompletion();
+    }
+
+    private String sessionTopic(String action) {
+        return "/ext/session/%s/combine/%s".formatted(gateway.toURN(), action);
+    }
+
+    /**
+     * 获取网关物理MQTT客户端
+     *
+     * @return MQTT客户端
+     */
+    IMqttAsyncClient client() {
+        return client;
+    }
+
+    /**
+     * 附着设备
+     * <p>为设备创建客户端视图，子设备将同步完成上线</p>
+     *
+     * @param path 设备路径
+     * @return 设备客户端视图
+     * @throws MqttException 上线失败
+     */
+    public IMqttAsyncClient attach(ThingPath path) throws MqttException {
+        final var view = new GatewayMqttClient(this, path, path.toURN().equals(gateway.toURN()));
+        if (null != views.putIfAbsent(path.toURN(), view)) {
+            throw new MqttException(MqttException.REASON_CODE_CLIENT_CONNECTED);
+        }
+        try {
+            view.connect().waitForCompletion();
+        } catch (MqttException cause) {
+            views.remove(path.toURN(), view);
+            throw cause;
+        }
+        return view;
+    }
+
+    /**
+     * 异步附着设备
+     * <p>为设备创建客户端视图，子设备上线完成时操作完成</p>
+     *
+     * @param path 设备路径
+     * @return 附着操作
+     */
+    public CompletableFuture<IMqttAsyncClient> attachAsync(ThingPath path) {
+        final var view = new GatewayMqttClient(this, path, path.toURN().equals(gateway.toURN()));
+        if (null != views.putIfAbsent(path.toURN(), view)) {
+            return CompletableFuture.failedFuture(new MqttException(MqttException.REASON_CODE_CLIENT_CONNECTED));
+        }
+        final var future = new CompletableFuture<IMqttAsyncClient>();
+        view.connect(null, new IMqttActionListener() {
+
+            @Override
+            public void onSuccess(IMqttToken token) {
+                future.complete(view);
+            }
+
+            @Override
+            public void onFailure(IMqttToken token, Throwable cause) {
+                views.remove(path.toURN(), view);
+                future.completeExceptionally(cause);
+            }
+
+        });
+        return future;
+    }
+
+    /**
+     * 脱离设备
+     *
+     * @param view 设备客户端视图
+     */
+    void detach(GatewayMqttClient view) {
+        views.remove(view.path().toURN(), view);
+        signs.remove(view.path().toURN());
+    }
+
+    /**
+     * 关闭网关连接
+     *
+     * @throws MqttException 关闭失败
+     */
+    public void close() throws MqttException {
+        try {
+            client.disconnect().waitForCompletion();
+        } finally {
+            client.close();
+        }
+    }
+
+    /**
+     * 子设备上线
+     *
+     * @param path 子设备路径
+     * @return 上线结果
+     */
+    CompletableFuture<Void> login(ThingPath path) {
+        final String secret;
+        try {
+            secret = secrets.apply(path);
+        } catch (Throwable cause) {
+            return CompletableFuture.failedFuture(cause);
+        }
+        if (null == secret) {
+            return CompletableFuture.failedFuture(new ThingException(path, "secret is required!"));
+        }
+        final var clientId = "%s&%s".formatted(path.getProductId(), path.getThingId());
+        final var sign = sign(path, clientId, secret);
+        final var params = new JsonObject();
+        params.addProperty("productKey", path.getProductId());
+        params.addProperty("deviceName", path.getThingId());
+        params.addProperty("clientId", clientId);
+        params.addProperty("timestamp", String.valueOf(sign.timestamp()));
+        params.addProperty("signMethod", "hmacsha1");
+        params.addProperty("sign", sign.sign());
+        params.addProperty("cleanSession", "false");
+        return session(path, "login", params);
+    }
+
+    /**
+     * 子设备下线
+     *
+     * @param path 子设备路径
+     * @return 下线结果
+     */
+    CompletableFuture<Void> logout(ThingPath path) {
+        final var params = new JsonObject();
+        params.addProperty("productKey", path.getProductId());
+        params.addProperty("deviceName", path.getThingId());
+        return session(path, "logout", params);
+    }
+
+    // 发起网关会话操作，等待会话应答
+    private CompletableFuture<Void> session(ThingPath path, String action, JsonObject params) {
+
+        final var token = sequencer.next();
+        final var request = new JsonObject();
+        request.addProperty("id", token);
+        request.add("params", params);
+
+        final var future = new CompletableFuture<JsonObject>();
+        sessions.put(token, future);
+        final var timeout = HashedWheelTimer.shared().schedule(() -> future.completeExceptionally(new TimeoutException(
+                "%s/gateway %s timeout! token=%s;".formatted(path, action, token)
+        )), timeoutMs, MILLISECONDS);
+        future.whenComplete((r, ex) -> {
+            sessions.remove(token, future);
+            timeout.cancel();
+        });
+
+        try {
+            client.publish(sessionTopic(action), request.toString().getBytes(UTF_8), 1, false);
+        } catch (MqttException cause) {
+            future.completeExceptionally(cause);
+        }
+
+        return future.thenAccept(reply -> {
+            final var code = reply.has("code") ? reply.get("code").getAsInt() : OK;
+            if (code != OK) {
+                throw new ThingException(path, "gateway %s failure! code=%s;message=%s;".formatted(
+                        action,
+                        code,
+                        getAsString(reply, "message")
+                ));
+            }
+            logger.info("{}/gateway {} success, gateway={}", path, action, gateway);
+        });
+    }
+
+    private void onSessionReply(String topic, MqttMessage message) {
+        try {
+            final var reply = JsonParser.parseString(new String(message.getPayload(), UTF_8)).getAsJsonObject();
+            final var future = sessions.get(getAsString(reply, "id"));
+            if (null != future) {
+                future.complete(reply);
+            }
+        } catch (Exception cause) {
+            logger.warn("{}/gateway session reply error! topic={};", gateway, topic, cause);
+        }
+    }
+
+    // 获取子设备上线签名，期限内且密钥未变时复用
+    private LoginSign sign(ThingPath path, String clientId, String secret) {
+        final var now = System.currentTimeMillis();
+        final var exist = signs.get(path.toURN());
+        if (null != exist && exist.secret().equals(secret) && now - exist.timestamp() < SIGN_VALIDITY_MS) {
+            return exist;
+        }
+        final var sign = new LoginSign(secret, now, HmacSigner.hmacSha1().signAsHex(secret, "clientId%sdeviceName%sproductKey%stimestamp%s".formatted(
+                clientId,
+                path.getThingId(),
+                path.getProductId(),
+                now
+        )));
+        signs.put(path.toURN(), sign);
+        return sign;
+    }
+
+    /**
+     * 按主题路由设备客户端视图
+     * <p>alink主题中总有相邻的{@code productKey/deviceName}两级，逐一尝试相邻两级组成的设备URN</p>
+     *
+     * @param topic 主题
+     * @return 设备客户端视图，未找到返回{@code null}
+     */
+    private GatewayMqttClient route(String topic) {
+        int begin = topic.indexOf('/') + 1;
+        int middle = topic.indexOf('/', begin);
+        while (middle > 0) {
+            int end = topic.indexOf('/', middle + 1);
+            if (end < 0) {
+                end = topic.length();
+            }
+            final var view = views.get(topic.substring(begin, end));
+            if (null != view) {
+                return view;
+            }
+            begin = middle + 1;
+            middle = end < topic.length() ? end : -1;
+        }
+        return null;
+    }
+
+    @Override
+    public void connectComplete(boolean isReconnect, String serverURI) {
+
+        // 物理连接恢复后，子设备需要重新上线
+        views.values().stream()
+                .filter(view -> !view.isGateway())
+                .forEach(view -> login(view.path()).whenComplete((v, ex) -> {
+                    if (null != ex) {
+                        logger.warn("{}/gateway re-login failure!", view.path(), ex);
+                    }
+                }));
+    }
+
+    @Override
+    public void connectionLost(Throwable cause) {
+        logger.warn("{}/gateway connection lost, sub-devices={}", gateway, views.size());
+    }
+
+    @Override
+    public void messageArrived(String topic, MqttMessage message) {
+        final var view = route(topic);
+        if (null == view) {
+            logger.debug("{}/gateway message unrouted, ignored! topic={};", gateway, topic);
+            return;
+        }
+        view.deliver(topic, message);
+    }
+
+    @Override
+    public void deliveryComplete(IMqttDeliveryToken token) {
+
+    }
+
+    /**
+     * 子设备上线签名
+     *
+     * @param secret    密钥
+     * @param timestamp 签名时间戳
+     * @param sign      签名
+     */
+    private record LoginSign(String secret, long timestamp, String sign) {
+
+    }
+
+}
@@ -0,0 +1,335 @@
+package io.github.athingx.athing.thing.impl.client;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import org.eclipse.paho.client.mqttv3.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 网关设备客户端视图
+ * <p>
+ * 发布、订阅直接经由网关物理连接完成，订阅的消息由网关连接按设备路由后在此按订阅表达式分发；
+ * 连接、断连对应子设备的上线、下线，关闭视图不会关闭物理连接。
+ * 离线缓冲、手动应答等连接级别的设置由网关物理连接统一管理。
+ * </p>
+ */
+class GatewayMqttClient implements IMqttAsyncClient {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final GatewayConnection connection;
+    private final IMqttAsyncClient client;
+    private final ThingPath path;
+    private final boolean isGateway;
+    private final Map<String, IMqttMessageListener> listeners = new ConcurrentHashMap<>();
+
+    // 经由视图订阅的全部主题表达式（含不带消息监听器的订阅），关闭时退订
+    private final Set<String> filters = ConcurrentHashMap.newKeySet();
+    private volatile MqttCallback callback;
+    private volatile boolean online;
+
+    /**
+     * 网关设备客户端视图
+     *
+     * @param connection 网关连接
+     * @param path       设备路径
+     * @param isGateway  是否网关自身
+     */
+    GatewayMqttClient(GatewayConnection connection, ThingPath path, boolean isGateway) {
+        this.connection = connection;
+        this.client = connection.client();
+        this.path = path;
+        this.isGateway = isGateway;
+    }
+
+    ThingPath path() {
+        return path;
+    }
+
+    boolean isGateway() {
+        return isGateway;
+    }
+
+    /**
+     * 投递网关连接路由过来的消息
+     *
+     * @param topic   主题
+     * @param message 消息
+     */
+    void deliver(String topic, MqttMessage message) {
+        try {
+            boolean delivered = false;
+            for (final var entry : listeners.entrySet()) {
+                if (MqttTopic.isMatched(entry.getKey(), topic)) {
+                    entry.getValue().messageArrived(topic, message);
+                    delivered = true;
+                }
+            }
+            final var callback = this.callback;
+            if (!delivered && null != callback) {
+                callback.messageArrived(topic, message);
+            }
+        }
+
+        // 单个设备的消费异常不能影响共享的物理连接
+        catch (Exception cause) {
+            logger.warn("{}/gateway message deliver error! topic={};", path, topic, cause);
+        }
+    }
+
+    private IMqttToken token(CompletableFuture<Void> future, Object userContext, IMqttActionListener callback) {
+        return new MqttFutureToken(this, future, userContext, callback);
+    }
+
+    @Override
+    public IMqttToken connect() {
+        return connect(null, null);
+    }
+
+    @Override
+    public IMqttToken connect(MqttConnectOptions options) {
+        return connect(null, null);
+    }
+
+    @Override
+    public IMqttToken connect(Object userContext, IMqttActionListener callback) {
+        final var future = isGateway
+                ? CompletableFuture.<Void>completedFuture(null)
+                : connection.login(path);
+        return token(future.thenRun(() -> online = true), userContext, callback);
+    }
+
+    @Override
+    public IMqttToken connect(MqttConnectOptions options, Object userContext, IMqttActionListener callback) {
+        return connect(userContext, callback);
+    }
+
+    @Override
+    public IMqttToken disconnect() {
+        return disconnect(null, null);
+    }
+
+    @Override
+    public IMqttToken disconnect(long quiesceTimeout) {
+        return disconnect(null, null);
+    }
+
+    @Override
+    public IMqttToken disconnect(Object userContext, IMqttActionListener callback) {
+        online = false;
+        final var future = isGateway
+                ? CompletableFuture.<Void>completedFuture(null)
+                : connection.logout(path);
+        return token(future, userContext, callback);
+    }
+
+    @Override
+    public IMqttToken disconnect(long quiesceTimeout, Object userContext, IMqttActionListener callback) {
+        return disconnect(userContext, callback);
+    }
+
+    @Override
+    public void disconnectForcibly() {
+        disconnect();
+    }
+
+    @Override
+    public void disconnectForcibly(long disconnectTimeout) {
+        disconnect();
+    }
+
+    @Override
+    public void disconnectForcibly(long quiesceTimeout, long disconnectTimeout) {
+        disconnect();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return online && client.isConnected();
+    }
+
+    @Override
+    public String getClientId() {
+        return "%s&%s".formatted(path.getProductId(), path.getThingId());
+    }
+
+    @Override
+    public String getServerURI() {
+        return client.getServerURI();
+    }
+
+    @Override
+    public IMqttDeliveryToken publish(String topic, byte[] payload, int qos, boolean retained) throws MqttException {
+        return client.publish(topic, payload, qos, retained);
+    }
+
+    @Override
+    public IMqttDeliveryToken publish(String topic, byte[] payload, int qos, boolean retained, Object userContext, IMqttActionListener callback) throws MqttException {
+        return client.publish(topic, payload, qos, retained, userContext, callback);
+    }
+
+    @Override
+    public IMqttDeliveryToken publish(String topic, MqttMessage message) throws MqttException {
+        return client.publish(topic, message);
+    }
+
+    @Override
+    public IMqttDeliveryToken publish(String topic, MqttMessage message, Object userContext, IMqttActionListener callback) throws MqttException {
+        return client.publish(topic, message, userContext, callback);
+    }
+
+    @Override
+    public IMqttToken subscribe(String topicFilter, int qos) throws MqttException {
+        filters.add(topicFilter);
+        return client.subscribe(topicFilter, qos);
+    }
+
+    @Override
+    public IMqttToken subscribe(String topicFilter, int qos, Object userContext, IMqttActionListener callback) throws MqttException {
+        filters.add(topicFilter);
+        return client.subscribe(topicFilter, qos, userContext, callback);
+    }
+
+    @Override
+    public IMqttToken subscribe(String[] topicFilters, int[] qos) throws MqttException {
+        filters.addAll(List.of(topicFilters));
+        return client.subscribe(topicFilters, qos);
+    }
+
+    @Override
+    public IMqttToken subscribe(String[] topicFilters, int[] qos, Object userContext, IMqttActionListener callback) throws MqttException {
+        filters.addAll(List.of(topicFilters));
+        return client.subscribe(topicFilters, qos, userContext, callback);
+    }
+
+    @Override
+    public IMqttToken subscribe(String topicFilter, int qos, Object userContext, IMqttActionListener callback, IMqttMessageListener messageListener) throws MqttException {
+        listeners.put(topicFilter, messageListener);
+        filters.add(topicFilter);
+        return client.subscribe(topicFilter, qos, userContext, callback);
+    }
+
+    @Override
+    public IMqttToken subscribe(String topicFilter, int qos, IMqttMessageListener messageListener) throws MqttException {
+        return subscribe(topicFilter, qos, null, null, messageListener);
+    }
+
+    @Override
+    public IMqttToken subscribe(String[] topicFilters, int[] qos, IMqttMessageListener[] messageListeners) throws MqttException {
+        return subscribe(topicFilters, qos, null, null, messageListeners);
+    }
+
+    @Override
+    public IMqttToken subscribe(String[] topicFilters, int[] qos, Object userContext, IMqttActionListener callback, IMqttMessageListener[] messageListeners) throws MqttException {
+        for (int index = 0; index < topicFilters.length; index++) {
+            listeners.put(topicFilters[index], messageListeners[index]);
+        }
+        filters.addAll(List.of(topicFilters));
+        return client.subscribe(topicFilters, qos, userContext, callback);
+    }
+
+    @Override
+    public IMqttToken unsubscribe(String topicFilter) throws MqttException {
+        return unsubscribe(topicFilter, null, null);
+    }
+
+    @Override
+    public IMqttToken unsubscribe(String[] topicFilters) throws MqttException {
+        return unsubscribe(topicFilters, null, null);
+    }
+
+    @Override
+    public IMqttToken unsubscribe(String topicFilter, Object userContext, IMqttActionListener callback) throws MqttException {
+        listeners.remove(topicFilter);
+        filters.remove(topicFilter);
+        return client.unsubscribe(topicFilter, userContext, callback);
+    }
+
+    @Override
+    public IMqttToken unsubscribe(String[] topicFilters, Object userContext, IMqttActionListener callback) throws MqttException {
+        for (final var topicFilter : topicFilters) {
+            listeners.remove(topicFilter);
+            filters.remove(topicFilter);
+        }
+        return client.unsubscribe(topicFilters, userContext, callback);
+    }
+
+    @Override
+    public boolean removeMessage(IMqttDeliveryToken token) throws MqttException {
+        return client.removeMessage(token);
+    }
+
+    @Override
+    public void setCallback(MqttCallback callback) {
+        this.callback = callback;
+    }
+
+    @Override
+    public IMqttDeliveryToken[] getPendingDeliveryTokens() {
+        return client.getPendingDeliveryTokens();
+    }
+
+    @Override
+    public void setManualAcks(boolean manualAcks) {
+        // 由网关物理连接统一管理
+    }
+
+    @Override
+    public void reconnect() {
+        connect();
+    }
+
+    @Override
+    public void messageArrivedComplete(int messageId, int qos) throws MqttException {
+        client.messageArrivedComplete(messageId, qos);
+    }
+
+    @Override
+    public void setBufferOpts(DisconnectedBufferOptions bufferOpts) {
+        // 由网关物理连接统一管理
+    }
+
+    @Override
+    public int getBufferedMessageCount() {
+        return client.getBufferedMessageCount();
+    }
+
+    @Override
+    public MqttMessage getBufferedMessage(int bufferIndex) {
+        return client.getBufferedMessage(bufferIndex);
+    }
+
+    @Override
+    public void deleteBufferedMessage(int bufferIndex) {
+        client.deleteBufferedMessage(bufferIndex);
+    }
+
+    @Override
+    public int getInFlightMessageCount() {
+        return client.getInFlightMessageCount();
+    }
+
+    @Override
+    public void close() {
+
+        // 退订剩余的订阅，避免物理连接继续投递已销毁设备的消息
+        listeners.clear();
+        if (!filters.isEmpty()) {
+            final var topicFilters = filters.toArray(new String[0]);
+            filters.clear();
+            try {
+                client.unsubscribe(topicFilters);
+            } catch (MqttException cause) {
+                logger.warn("{}/gateway unsubscribe on close failure!", path, cause);
+            }
+        }
+
+        connection.detach(this);
+    }
+
+}
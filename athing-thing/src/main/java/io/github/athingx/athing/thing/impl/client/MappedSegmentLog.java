@@ -0,0 +1,524 @@
+package io.github.athingx.athing.thing.impl.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * 内存映射分段日志
+ * <p>
+ * 键值记录（头部+负载）以追加方式写入内存映射的定长分段文件，删除写入删除标记；内存中只保留键到记录位置的索引，
+ * 数据本身留在映射区（页缓存）中，不占用堆。重启时按分段顺序重放记录恢复索引，校验失败的记录及其后的内容视为写入中断而忽略。
+ * </p>
+ * <p>
+ * 回收：全部键删除后先删除其余分段，再回绕到当前分段起点，任一步骤中断后重放都不会恢复已删除的键；最老分段的有效记录不足一半或日志整体废弃超过一半时，
+ * 将最老分段的有效记录搬到末尾后删除该分段。只回收最老的分段，因此其中的删除标记不再有需要覆盖的旧记录，可以直接丢弃。
+ * </p>
+ * <p>
+ * JDK没有公开的解除映射方法，删除的分段文件要等映射缓冲区被GC回收才真正释放地址空间和磁盘空间。
+ * 因此丢弃的标准大小分段改名为备用文件（重放时不识别）并保留映射，下次滚动时清空、改名后复用，
+ * 只有超大记录独占的分段和备用位已被占用时才删除文件，等待GC解除映射的分段最多为这两类。
+ * </p>
+ * <p>
+ * 记录格式：长度(4) CRC32C(4) 类型(1) 键长(2) 键 [头部长(4) 头部 负载长(4) 负载]，长度为0表示分段结束。线程安全。
+ * </p>
+ */
+public class MappedSegmentLog implements Closeable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("\\d{20}\\.seg");
+    private static final String SPARE_NAME = "segment.spare";
+
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_REMOVE = 2;
+
+    // 长度+校验和
+    private static final int RECORD_PREFIX = 8;
+
+    // 分段结束标记
+    private static final int TERMINATOR = 4;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean sync;
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final Map<String, Location> index = new HashMap<>();
+    private final CRC32C crc = new CRC32C();
+    private long nextSequence;
+    private boolean closed;
+
+    // 备用分段：已丢弃但保留映射，滚动时复用
+    private Segment spare;
+
+    /**
+     * 内存映射分段日志
+     *
+     * @param directory   日志目录
+     * @param segmentSize 分段大小（字节）
+     * @param sync        是否每次写入后同步刷盘
+     * @throws IOException 打开失败
+     */
+    public MappedSegmentLog(Path directory, int segmentSize, boolean sync) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    // 按分段顺序重放记录
+    private void recover() throws IOException {
+
+        // 上次遗留的备用文件不含有效记录
+        Files.deleteIfExists(directory.resolve(SPARE_NAME));
+
+        final List<Path> files;
+        try (final Stream<Path> stream = Files.list(directory)) {
+            files = stream
+                    .filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+
+        for (final Path file : files) {
+            final long sequence = Long.parseLong(file.getFileName().toString().substring(0, 20));
+            final Segment segment = Segment.map(file, (int) Files.size(file));
+            segments.addLast(segment);
+            nextSequence = sequence + 1;
+            replay(segment);
+        }
+
+        if (segments.isEmpty()) {
+            roll(segmentSize);
+        }
+
+        compact();
+        logger.debug("mapped-log/{} recovered, segments={};keys={};", directory, segments.size(), index.size());
+    }
+
+    private void replay(Segment segment) {
+        final MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (true) {
+            final int size = readRecordSize(buffer, offset);
+            if (size < 0) {
+                break;
+            }
+            final String key = readKey(buffer, offset);
+            if (buffer.get(offset + RECORD_PREFIX) == TYPE_PUT) {
+                link(key, new Location(segment, offset, size));
+            } else {
+                unlink(key);
+            }
+            offset += size;
+        }
+        segment.position = offset;
+    }
+
+    // 读取并校验记录，返回记录总长，无效时返回-1
+    private int readRecordSize(MappedByteBuffer buffer, int offset) {
+        if (offset + RECORD_PREFIX > buffer.capacity()) {
+            return -1;
+        }
+        final int length = buffer.getInt(offset);
+        if (length <= 0 || length > buffer.capacity() - offset - RECORD_PREFIX) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(buffer.slice(offset + RECORD_PREFIX, length));
+        if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+            return -1;
+        }
+        return RECORD_PREFIX + length;
+    }
+
+    private static String readKey(MappedByteBuffer buffer, int offset) {
+        final byte[] key = new byte[Short.toUnsignedInt(buffer.getShort(offset + RECORD_PREFIX + 1))];
+        buffer.get(offset + RECORD_PREFIX + 3, key);
+        return new String(key, UTF_8);
+    }
+
+    private void link(String key, Location location) {
+        unlink(key);
+        index.put(key, location);
+        location.segment.live += location.size;
+    }
+
+    private Location unlink(String key) {
+        final Location exist = index.remove(key);
+        if (null != exist) {
+            exist.segment.live -= exist.size;
+        }
+        return exist;
+    }
+
+    /**
+     * 写入记录
+     *
+     * @param key           键
+     * @param header        头部
+     * @param headerOffset  头部偏移
+     * @param headerLength  头部长度
+     * @param payload       负载，可为{@code null}
+     * @param payloadOffset 负载偏移
+     * @param payloadLength 负载长度
+     * @throws IOException 写入失败
+     */
+    public synchronized void put(String key,
+                                 byte[] header, int headerOffset, int headerLength,
+                                 byte[] payload, int payloadOffset, int payloadLength) throws IOException {
+        checkOpen();
+        final byte[] keyBytes = key.getBytes(UTF_8);
+        final int size = RECORD_PREFIX + 1 + 2 + keyBytes.length + 4 + headerLength + 4 + (null == payload ? 0 : payloadLength);
+        final Segment segment = reserve(size);
+        final int offset = segment.position;
+        final MappedByteBuffer buffer = segment.buffer;
+
+        int cursor = offset + RECORD_PREFIX;
+        buffer.put(cursor, TYPE_PUT);
+        buffer.putShort(cursor + 1, (short) keyBytes.length);
+        buffer.put(cursor + 3, keyBytes);
+        cursor += 3 + keyBytes.length;
+        buffer.putInt(cursor, headerLength);
+        buffer.put(cursor + 4, header, headerOffset, headerLength);
+        cursor += 4 + headerLength;
+        if (null == payload) {
+            buffer.putInt(cursor, 0);
+        } else {
+            buffer.putInt(cursor, payloadLength);
+            buffer.put(cursor + 4, payload, payloadOffset, payloadLength);
+        }
+
+        seal(segment, offset, size);
+        link(key, new Location(segment, offset, size));
+        compact();
+    }
+
+    /**
+     * 读取记录
+     *
+     * @param key 键
+     * @return 头部和负载，不存在时为{@code null}
+     */
+    public synchronized byte[][] get(String key) {
+        checkOpen();
+        final Location location = index.get(key);
+        if (null == location) {
+            return null;
+        }
+        final MappedByteBuffer buffer = location.segment.buffer;
+        int cursor = location.offset + RECORD_PREFIX + 3 + Short.toUnsignedInt(buffer.getShort(location.offset + RECORD_PREFIX + 1));
+        final byte[] header = new byte[buffer.getInt(cursor)];
+        buffer.get(cursor + 4, header);
+        cursor += 4 + header.length;
+        final byte[] payload = new byte[buffer.getInt(cursor)];
+        buffer.get(cursor + 4, payload);
+        return new byte[][]{header, payload};
+    }
+
+    /**
+     * 删除记录
+     *
+     * @param key 键
+     * @throws IOException 写入失败
+     */
+    public synchronized void remove(String key) throws IOException {
+        checkOpen();
+        if (null == unlink(key)) {
+            return;
+        }
+
+        // 先写删除标记：回绕时当前分段在结束标记写入前仍可能被重放
+        final byte[] keyBytes = key.getBytes(UTF_8);
+        final int size = RECORD_PREFIX + 1 + 2 + keyBytes.length;
+        final Segment segment = reserve(size);
+        final int offset = segment.position;
+        segment.buffer.put(offset + RECORD_PREFIX, TYPE_REMOVE);
+        segment.buffer.putShort(offset + RECORD_PREFIX + 1, (short) keyBytes.length);
+        segment.buffer.put(offset + RECORD_PREFIX + 3, keyBytes);
+        seal(segment, offset, size);
+
+        // 全部删除时回绕
+        if (index.isEmpty()) {
+            rewind();
+            return;
+        }
+
+        compact();
+    }
+
+    /**
+     * 是否包含记录
+     *
+     * @param key 键
+     * @return TRUE | FALSE
+     */
+    public synchronized boolean contains(String key) {
+        checkOpen();
+        return index.containsKey(key);
+    }
+
+    /**
+     * 获取全部键
+     *
+     * @return 键集合（快照）
+     */
+    public synchronized Set<String> keys() {
+        checkOpen();
+        return Set.copyOf(index.keySet());
+    }
+
+    /**
+     * 清空日志
+     *
+     * @throws IOException 清空失败
+     */
+    public synchronized void clear() throws IOException {
+        checkOpen();
+        index.clear();
+        segments.forEach(segment -> segment.live = 0);
+        rewind();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (final Segment segment : segments) {
+            segment.buffer.force();
+            closeQuietly(segment);
+        }
+        segments.clear();
+        index.clear();
+        if (null != spare) {
+            delete(spare);
+            spare = null;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("mapped-log is closed!");
+        }
+    }
+
+    // 为记录预留空间，当前分段放不下时滚动到新分段（超大记录独占一个分段）
+    private Segment reserve(int size) throws IOException {
+        final Segment active = segments.getLast();
+        if (active.position + size + TERMINATOR <= active.buffer.capacity()) {
+            return active;
+        }
+        return roll(Math.max(segmentSize, size + TERMINATOR));
+    }
+
+    // 先写结束标记，再写校验和和长度，长度生效前记录不可见
+    private void seal(Segment segment, int offset, int size) {
+        final MappedByteBuffer buffer = segment.buffer;
+        buffer.putInt(offset + size, 0);
+        crc.reset();
+        crc.update(buffer.slice(offset + RECORD_PREFIX, size - RECORD_PREFIX));
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.putInt(offset, size - RECORD_PREFIX);
+        segment.position = offset + size;
+        if (sync) {
+            buffer.force(offset, size + TERMINATOR);
+        }
+    }
+
+    private Segment roll(int size) throws IOException {
+        final Path file = directory.resolve("%020d.seg".formatted(nextSequence));
+        final Segment segment = null != spare && spare.buffer.capacity() == size
+                ? reuse(file)
+                : Segment.map(file, size);
+        nextSequence++;
+        segments.addLast(segment);
+        return segment;
+    }
+
+    // 删除其余分段后回绕到最新分段起点，调用时索引必须为空
+    // 先从最老的分段开始删除：中断时剩下的是较新的分段，其中的删除标记仍然覆盖其中的记录，已删除的键不会恢复
+    private void rewind() {
+        while (segments.size() > 1) {
+            drop(segments.removeFirst());
+        }
+        final Segment active = segments.getLast();
+        active.buffer.putInt(0, 0);
+        active.position = 0;
+        active.live = 0;
+        if (sync) {
+            active.buffer.force(0, TERMINATOR);
+        }
+    }
+
+    // 回收最老的分段
+    private void compact() throws IOException {
+        while (segments.size() > 1) {
+            final Segment oldest = segments.getFirst();
+            if (oldest.live > 0 && oldest.live * 2 > oldest.position && !isWasteful()) {
+                break;
+            }
+
+            // 搬运有效记录
+            if (oldest.live > 0) {
+                int offset = 0;
+                while (offset < oldest.position) {
+                    final int size = RECORD_PREFIX + oldest.buffer.getInt(offset);
+                    if (oldest.buffer.get(offset + RECORD_PREFIX) == TYPE_PUT) {
+                        final String key = readKey(oldest.buffer, offset);
+                        final Location location = index.get(key);
+                        if (null != location && location.segment == oldest && location.offset == offset) {
+                            move(key, oldest, offset, size);
+                        }
+                    }
+                    offset += size;
+                }
+            }
+
+            segments.removeFirst();
+            drop(oldest);
+        }
+    }
+
+    // 整体废弃超过一半
+    private boolean isWasteful() {
+        long used = 0, live = 0;
+        for (final Segment segment : segments) {
+            used += segment.position;
+            live += segment.live;
+        }
+        return live * 2 < used;
+    }
+
+    private void move(String key, Segment from, int offset, int size) throws IOException {
+        final Segment segment = reserve(size);
+        final int target = segment.position;
+        segment.buffer.put(target, from.buffer, offset, size);
+        seal(segment, target, size);
+        link(key, new Location(segment, target, size));
+    }
+
+    // 复用备用分段：先清空再改名，改名前中断时备用文件不会被重放；改名失败则删除备用分段并重新映射
+    private Segment reuse(Path file) throws IOException {
+        final Segment recycled = spare;
+        spare = null;
+        recycled.buffer.putInt(0, 0);
+        if (sync) {
+            recycled.buffer.force(0, TERMINATOR);
+        }
+        try {
+            Files.move(recycled.file, file, ATOMIC_MOVE);
+        } catch (IOException cause) {
+            logger.debug("mapped-log/{} reuse spare segment failed! file={};", directory, file, cause);
+            delete(recycled);
+            return Segment.map(file, recycled.buffer.capacity());
+        }
+        return new Segment(file, recycled.channel, recycled.buffer);
+    }
+
+    // 丢弃分段：标准大小的分段改名为备用文件并保留映射，其余关闭并删除文件
+    // 改名后的备用文件不会被重放，与删除等价；改名失败（例如平台不允许改名映射中的文件）时删除
+    private void drop(Segment segment) {
+        if (null == spare && segment.buffer.capacity() == segmentSize) {
+            final Path file = directory.resolve(SPARE_NAME);
+            try {
+                Files.move(segment.file, file, ATOMIC_MOVE);
+                spare = new Segment(file, segment.channel, segment.buffer);
+                return;
+            } catch (IOException cause) {
+                logger.debug("mapped-log/{} keep spare segment failed! file={};", directory, segment.file, cause);
+            }
+        }
+        delete(segment);
+    }
+
+    private void delete(Segment segment) {
+        closeQuietly(segment);
+        try {
+            Files.deleteIfExists(segment.file);
+        } catch (IOException cause) {
+            logger.warn("mapped-log/{} delete segment failed! file={};", directory, segment.file, cause);
+        }
+    }
+
+    private void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException cause) {
+            logger.warn("mapped-log/{} close segment failed! file={};", directory, segment.file, cause);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "mapped-log:%s".formatted(directory);
+    }
+
+    /**
+     * 记录位置
+     *
+     * @param segment 分段
+     * @param offset  记录起点
+     * @param size    记录总长
+     */
+    private record Location(Segment segment, int offset, int size) {
+
+    }
+
+    /**
+     * 分段
+     */
+    private static final class Segment {
+
+        final Path file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        // 写入位置
+        int position;
+
+        // 有效记录字节数
+        long live;
+
+        private Segment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment map(Path file, int size) throws IOException {
+            final FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE);
+            try {
+                return new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException cause) {
+                channel.close();
+                throw cause;
+            }
+        }
+
+    }
+
+}
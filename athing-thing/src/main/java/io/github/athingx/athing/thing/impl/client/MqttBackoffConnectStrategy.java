@@ -0,0 +1,215 @@
+package io.github.athingx.athing.thing.impl.client;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.builder.client.MqttConnectStrategy;
+import io.github.athingx.athing.thing.impl.util.HashedWheelTimer;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * 退避重试连接策略
+ * <p>
+ * 连接和重试都不阻塞调用线程：失败后在共享时间轮上按去相关抖动退避（下次间隔在{@code [step, min(max, 上次间隔 * 3)]}内随机）调度下一次连接，
+ * 大量设备同时断线时重连时间被逐次打散，不会形成同步的重连波峰。
+ * </p>
+ * <p>
+ * 时间轮和许可放行只负责唤醒，{@link IMqttAsyncClient#connect(MqttConnectOptions, Object, IMqttActionListener)}会同步打开持久化（可能映射并回放文件），
+ * 因此每次连接都转交{@link MqttBlockingExecutor}执行。
+ * </p>
+ * <p>
+ * 指定连接准入时，每次连接先按设备权重申请许可，连接结束（成功或失败）后归还。
+ * </p>
+ */
+public class MqttBackoffConnectStrategy implements MqttConnectStrategy {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final int limit;
+    private final long stepIntervalMs;
+    private final long maxIntervalMs;
+    private final MqttConnectAdmission admission;
+    private final ToIntFunction<ThingPath> weight;
+
+    /**
+     * 退避重试连接策略
+     *
+     * @param limit          重试次数限制
+     * @param stepIntervalMs 退避基准间隔(ms)
+     * @param maxIntervalMs  退避最大间隔(ms)
+     * @param admission      连接准入，为{@code null}时不限制
+     * @param weight         设备权重
+     */
+    public MqttBackoffConnectStrategy(int limit, long stepIntervalMs, long maxIntervalMs, MqttConnectAdmission admission, ToIntFunction<ThingPath> weight) {
+        if (stepIntervalMs <= 0 || maxIntervalMs <= 0) {
+            throw new IllegalArgumentException("stepIntervalMs and maxIntervalMs must be positive!");
+        }
+        this.limit = limit;
+        this.stepIntervalMs = stepIntervalMs;
+        this.maxIntervalMs = Math.max(stepIntervalMs, maxIntervalMs);
+        this.admission = admission;
+        this.weight = weight;
+    }
+
+    /**
+     * 计算退避间隔
+     *
+     * @param lastIntervalMs 上次间隔(ms)
+     * @return 退避间隔(ms)
+     */
+    private long computeIntervalMs(long lastIntervalMs) {
+        final long upper = Math.min(maxIntervalMs, Math.max(stepIntervalMs, lastIntervalMs) * 3);
+        return ThreadLocalRandom.current().nextLong(stepIntervalMs, upper + 1);
+    }
+
+    @Override
+    public void connect(ThingPath path, IMqttAsyncClient client, MqttConnectOptions options, boolean isReconnect) throws MqttException {
+        try {
+            connectAsync(path, client, options, isReconnect).get();
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+            throw new MqttException(cause);
+        } catch (ExecutionException cause) {
+            throw cause.getCause() instanceof MqttException mCause ? mCause : new MqttException(cause.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> connectAsync(ThingPath path, IMqttAsyncClient client, MqttConnectOptions options, boolean isReconnect) {
+        final var attempt = new Attempt(path, client, options, isReconnect);
+
+        // 凭证结束（含取消）时撤销尚未执行的重试和尚未得到的许可
+        attempt.future.whenComplete((v, ex) -> {
+            final var timeout = attempt.timeout;
+            if (null != timeout) {
+                timeout.cancel();
+            }
+            final var permit = attempt.permit;
+            if (null != permit) {
+                permit.cancel(false);
+            }
+        });
+
+        admit(attempt, 0, 0);
+        return attempt.future;
+    }
+
+    // 申请许可后转交阻塞执行器发起一次连接
+    private void admit(Attempt attempt, int retries, long lastIntervalMs) {
+        if (attempt.future.isDone()) {
+            return;
+        }
+        if (null == admission) {
+            MqttBlockingExecutor.execute(() -> connect(attempt, retries, lastIntervalMs, () -> {
+            }));
+            return;
+        }
+        final var permit = admission.acquire(weight.applyAsInt(attempt.path));
+        attempt.permit = permit;
+        permit.thenAcceptAsync(release -> connect(attempt, retries, lastIntervalMs, release), MqttBlockingExecutor::execute);
+
+        // 申请期间凭证被取消
+        if (attempt.future.isDone()) {
+            permit.cancel(false);
+        }
+    }
+
+    // 发起一次连接，结束后归还许可
+    private void connect(Attempt attempt, int retries, long lastIntervalMs, Runnable release) {
+        if (attempt.future.isDone()) {
+            release.run();
+            return;
+        }
+        try {
+            attempt.client.connect(attempt.options, null, new IMqttActionListener() {
+
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    release.run();
+                    attempt.future.complete(null);
+                }
+
+                @Override
+                public void onFailure(IMqttToken token, Throwable cause) {
+                    release.run();
+                    retry(attempt, retries, lastIntervalMs, cause);
+                }
+
+            });
+        } catch (MqttException cause) {
+            release.run();
+
+            // 已经连上（例如被其他路径连上）视为成功
+            if (cause.getReasonCode() == MqttException.REASON_CODE_CLIENT_CONNECTED) {
+                attempt.future.complete(null);
+            } else {
+                retry(attempt, retries, lastIntervalMs, cause);
+            }
+
+        }
+    }
+
+    // 调度下一次连接
+    private void retry(Attempt attempt, int retries, long lastIntervalMs, Throwable cause) {
+        if (attempt.future.isDone()) {
+            return;
+        }
+
+        // 动作标签
+        final var action = attempt.isReconnect ? "reconnect" : "connect";
+
+        // 如果到达重试次数限制，则不再重试
+        if (limit > 0 && retries >= limit) {
+            logger.warn("{}/mqtt {} reach limit, give up retry! retries={};limit={};", attempt.path, action, retries, limit);
+            attempt.future.completeExceptionally(cause);
+            return;
+        }
+
+        final var intervalMs = computeIntervalMs(lastIntervalMs);
+        logger.warn("{}/mqtt {} failure, will retry after {}ms. retries={};", attempt.path, action, intervalMs, retries, cause);
+
+        // 时间轮只负责到期唤醒，申请许可不阻塞，连接由admit转交阻塞执行器
+        attempt.timeout = HashedWheelTimer.shared().schedule(
+                () -> admit(attempt, retries + 1, intervalMs),
+                intervalMs,
+                TimeUnit.MILLISECONDS
+        );
+
+        // 调度期间凭证被取消，撤销刚调度的重试
+        if (attempt.future.isDone()) {
+            attempt.timeout.cancel();
+        }
+    }
+
+    /**
+     * 一次连接（含重试）的上下文
+     */
+    private static final class Attempt {
+
+        final ThingPath path;
+        final IMqttAsyncClient client;
+        final MqttConnectOptions options;
+        final boolean isReconnect;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        volatile HashedWheelTimer.Timeout timeout;
+        volatile CompletableFuture<Runnable> permit;
+
+        Attempt(ThingPath path, IMqttAsyncClient client, MqttConnectOptions options, boolean isReconnect) {
+            this.path = path;
+            this.client = client;
+            this.options = options;
+            this.isReconnect = isReconnect;
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+package io.github.athingx.athing.thing.impl.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * MQTT阻塞操作执行器
+ * <p>
+ * 只提供同步实现的客户端工厂和连接策略，其异步接口的默认实现在这里执行：进程共享的有界线程池，
+ * 线程数决定同时阻塞中的创建和连接上限，超出的操作排队等待；空闲线程自动回收。
+ * </p>
+ */
+public final class MqttBlockingExecutor {
+
+    private static final ThreadPoolExecutor shared;
+
+    static {
+        final var counter = new AtomicInteger(1000);
+        final int nThreads = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+        shared = new ThreadPoolExecutor(nThreads, nThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r ->
+                new Thread(r) {{
+                    setDaemon(true);
+                    setName("athing-mqtt-blocking-%d".formatted(counter.incrementAndGet()));
+                }}
+        );
+        shared.allowCoreThreadTimeOut(true);
+    }
+
+    private MqttBlockingExecutor() {
+
+    }
+
+    /**
+     * 执行阻塞操作
+     * <p>时间轮、许可放行等不能阻塞的线程通过这里转交连接等阻塞操作</p>
+     *
+     * @param task 阻塞操作
+     */
+    public static void execute(Runnable task) {
+        shared.execute(task);
+    }
+
+    /**
+     * 异步执行阻塞操作
+     * <p>
+     * 操作排队期间取消将不再执行；执行期间取消时，{@code interruptible}为{@code true}则中断执行线程，
+     * 操作在取消后才返回的结果交给{@code discard}清理
+     * </p>
+     *
+     * @param task          阻塞操作
+     * @param interruptible 取消时是否中断执行线程
+     * @param discard       取消后返回结果的清理动作，可为{@code null}
+     * @param <T>           结果类型
+     * @return 操作凭证
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Callable<T> task, boolean interruptible, Consumer<T> discard) {
+        final var future = new CompletableFuture<T>();
+        final var runner = new Runner();
+        shared.execute(() -> {
+            if (future.isDone() || !runner.enter()) {
+                return;
+            }
+            try {
+                final T value = task.call();
+                if (!future.complete(value) && null != discard) {
+                    discard.accept(value);
+                }
+            } catch (Throwable cause) {
+                future.completeExceptionally(cause);
+            } finally {
+                runner.exit();
+            }
+        });
+        if (interruptible) {
+            future.whenComplete((v, ex) -> {
+                if (future.isCancelled()) {
+                    runner.interrupt();
+                }
+            });
+        }
+        return future;
+    }
+
+    /**
+     * 执行中的线程：中断只作用于执行期间，不会波及线程随后执行的其他操作
+     */
+    private static final class Runner {
+
+        private Thread thread;
+        private boolean interrupted;
+
+        synchronized boolean enter() {
+            if (interrupted) {
+                return false;
+            }
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        void exit() {
+            synchronized (this) {
+                thread = null;
+            }
+            Thread.interrupted();
+        }
+
+        synchronized void interrupt() {
+            interrupted = true;
+            if (null != thread) {
+                thread.interrupt();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,183 @@
+package io.github.athingx.athing.thing.impl.client;
+
+import io.github.athingx.athing.thing.impl.util.HashedWheelTimer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * MQTT连接准入
+ * <p>
+ * 所有连接先排队申请许可：同时进行中的连接数不超过并发上限，每秒放行的连接数不超过速率上限（GCRA，只容忍100ms的突发，放行时刻均匀分布），
+ * 排队的连接按权重从高到低、同权重按申请顺序放行。速率不足时在共享时间轮上等待下一个放行时刻，不占用线程。
+ * </p>
+ */
+public class MqttConnectAdmission {
+
+    private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final IntSupplier concurrency;
+    private final DoubleSupplier rate;
+
+    // 放行循环：许可归还可能在放行过程中同步发生，重入的放行请求合并到外层循环，避免递归
+    private final AtomicInteger dispatching = new AtomicInteger();
+
+    // 以下由this保护
+    private final PriorityQueue<Ticket> tickets = new PriorityQueue<>();
+    private long sequence;
+    private int running;
+    private long theoreticalNanos;
+    private HashedWheelTimer.Timeout wakeup;
+
+    /**
+     * MQTT连接准入
+     *
+     * @param concurrency 并发上限
+     * @param rate        每秒放行上限
+     */
+    public MqttConnectAdmission(IntSupplier concurrency, DoubleSupplier rate) {
+        this.concurrency = concurrency;
+        this.rate = rate;
+    }
+
+    /**
+     * 申请连接许可
+     * <p>凭证完成时得到许可，连接结束后必须执行许可归还；排队期间取消凭证即放弃申请</p>
+     *
+     * @param weight 权重，越大越先放行
+     * @return 许可凭证，值为许可归还动作
+     */
+    public CompletableFuture<Runnable> acquire(int weight) {
+        final Ticket ticket;
+        synchronized (this) {
+            ticket = new Ticket(weight, sequence++);
+            tickets.add(ticket);
+        }
+
+        // 排队期间取消的申请立即出队，不计入排队数
+        ticket.future.whenComplete((v, ex) -> {
+            if (ticket.future.isCancelled()) {
+                synchronized (this) {
+                    tickets.remove(ticket);
+                }
+            }
+        });
+
+        dispatch();
+        return ticket.future;
+    }
+
+    /**
+     * 获取排队中的申请数
+     *
+     * @return 排队中的申请数
+     */
+    public synchronized int waiting() {
+        return tickets.size();
+    }
+
+    /**
+     * 获取进行中的连接数
+     *
+     * @return 进行中的连接数
+     */
+    public synchronized int running() {
+        return running;
+    }
+
+    private void dispatch() {
+        if (dispatching.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            dispatchOnce();
+        } while ((missed = dispatching.addAndGet(-missed)) != 0);
+    }
+
+    // 放行排队的申请，凭证在锁外完成
+    private void dispatchOnce() {
+        final List<Ticket> admitted = new ArrayList<>();
+        synchronized (this) {
+            final long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate.getAsDouble());
+            final long burstNanos = BURST_NANOS;
+            while (running < concurrency.getAsInt() && !tickets.isEmpty()) {
+
+                // 已取消的申请直接丢弃
+                if (tickets.peek().future.isDone()) {
+                    tickets.poll();
+                    continue;
+                }
+
+                // 速率不足，等到下一个放行时刻再试
+                final long now = System.nanoTime();
+                final long tat = Math.max(theoreticalNanos, now);
+                if (tat - now > burstNanos) {
+                    if (null == wakeup) {
+                        wakeup = HashedWheelTimer.shared().schedule(this::wakeup, tat - burstNanos - now, TimeUnit.NANOSECONDS);
+                    }
+                    break;
+                }
+
+                theoreticalNanos = tat + intervalNanos;
+                running++;
+                admitted.add(tickets.poll());
+            }
+        }
+
+        for (final Ticket ticket : admitted) {
+            final AtomicBoolean released = new AtomicBoolean(false);
+            final Runnable release = () -> {
+                if (released.compareAndSet(false, true)) {
+                    synchronized (this) {
+                        running--;
+                    }
+                    dispatch();
+                }
+            };
+
+            // 放行时申请已被取消，立即归还
+            if (!ticket.future.complete(release)) {
+                release.run();
+            }
+        }
+    }
+
+    private void wakeup() {
+        synchronized (this) {
+            wakeup = null;
+        }
+        dispatch();
+    }
+
+    /**
+     * 许可申请
+     */
+    private static final class Ticket implements Comparable<Ticket> {
+
+        final int weight;
+        final long sequence;
+        final CompletableFuture<Runnable> future = new CompletableFuture<>();
+
+        Ticket(int weight, long sequence) {
+            this.weight = weight;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Ticket o) {
+            return weight != o.weight
+                    ? Integer.compare(o.weight, weight)
+                    : Long.compare(sequence, o.sequence);
+        }
+
+    }
+
+}
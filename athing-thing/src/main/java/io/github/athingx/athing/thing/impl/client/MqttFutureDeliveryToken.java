@@ -0,0 +1,37 @@
+package io.github.athingx.athing.thing.impl.client;
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 以{@link CompletableFuture}驱动的MQTT投递令牌
+ * <p>用于尚未交给MQTT客户端的消息（如离线缓冲中等待重放的消息），令牌在消息最终投递完成时完成</p>
+ */
+class MqttFutureDeliveryToken extends MqttFutureToken implements IMqttDeliveryToken {
+
+    private final MqttMessage message;
+
+    /**
+     * MQTT投递令牌
+     *
+     * @param client      MQTT客户端
+     * @param future      投递
+     * @param message     MQTT消息
+     * @param userContext 用户上下文
+     * @param callback    动作回调
+     */
+    MqttFutureDeliveryToken(IMqttAsyncClient client, CompletableFuture<Void> future, MqttMessage message, Object userContext, IMqttActionListener callback) {
+        super(client, future, userContext, callback);
+        this.message = message;
+    }
+
+    @Override
+    public MqttMessage getMessage() {
+        return message;
+    }
+
+}
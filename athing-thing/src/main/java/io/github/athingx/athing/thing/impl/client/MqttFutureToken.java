@@ -0,0 +1,154 @@
+package io.github.athingx.athing.thing.impl.client;
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.internal.wire.MqttWireMessage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 以{@link CompletableFuture}驱动的MQTT令牌
+ * <p>用于没有对应MQTT报文的客户端动作（如子设备上线、下线），令牌在操作完成时完成并通知动作回调</p>
+ */
+class MqttFutureToken implements IMqttToken {
+
+    private final IMqttAsyncClient client;
+    private final CompletableFuture<Void> future;
+    private volatile Object userContext;
+    private volatile IMqttActionListener callback;
+
+    /**
+     * MQTT令牌
+     *
+     * @param client      MQTT客户端
+     * @param future      操作
+     * @param userContext 用户上下文
+     * @param callback    动作回调
+     */
+    MqttFutureToken(IMqttAsyncClient client, CompletableFuture<Void> future, Object userContext, IMqttActionListener callback) {
+        this.client = client;
+        this.future = future;
+        this.userContext = userContext;
+        this.callback = callback;
+        future.whenComplete((v, ex) -> {
+            final var listener = this.callback;
+            if (null == listener) {
+                return;
+            }
+            if (null == ex) {
+                listener.onSuccess(this);
+            } else {
+                listener.onFailure(this, toMqttException(ex));
+            }
+        });
+    }
+
+    private static MqttException toMqttException(Throwable cause) {
+        final var target = cause instanceof CompletionException || cause instanceof ExecutionException
+                ? cause.getCause()
+                : cause;
+        if (target instanceof MqttException mCause) {
+            return mCause;
+        }
+        if (target instanceof TimeoutException) {
+            return new MqttException(MqttException.REASON_CODE_CLIENT_TIMEOUT, target);
+        }
+        return new MqttException(target);
+    }
+
+    @Override
+    public void waitForCompletion() throws MqttException {
+        waitForCompletion(-1);
+    }
+
+    @Override
+    public void waitForCompletion(long timeout) throws MqttException {
+        try {
+            if (timeout < 0) {
+                future.get();
+            } else {
+                future.get(timeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+            throw new MqttException(cause);
+        } catch (ExecutionException | TimeoutException cause) {
+            throw toMqttException(cause);
+        }
+    }
+
+    @Override
+    public boolean isComplete() {
+        return future.isDone();
+    }
+
+    @Override
+    public MqttException getException() {
+        if (!future.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            future.join();
+            return null;
+        } catch (Throwable cause) {
+            return toMqttException(cause);
+        }
+    }
+
+    @Override
+    public void setActionCallback(IMqttActionListener listener) {
+        this.callback = listener;
+    }
+
+    @Override
+    public IMqttActionListener getActionCallback() {
+        return callback;
+    }
+
+    @Override
+    public IMqttAsyncClient getClient() {
+        return client;
+    }
+
+    @Override
+    public String[] getTopics() {
+        return null;
+    }
+
+    @Override
+    public void setUserContext(Object userContext) {
+        this.userContext = userContext;
+    }
+
+    @Override
+    public Object getUserContext() {
+        return userContext;
+    }
+
+    @Override
+    public int getMessageId() {
+        return 0;
+    }
+
+    @Override
+    public int[] getGrantedQos() {
+        return null;
+    }
+
+    @Override
+    public boolean getSessionPresent() {
+        return false;
+    }
+
+    @Override
+    public MqttWireMessage getResponse() {
+        return null;
+    }
+
+}
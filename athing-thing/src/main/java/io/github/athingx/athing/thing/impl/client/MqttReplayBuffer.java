@@ -0,0 +1,306 @@
+package io.github.athingx.athing.thing.impl.client;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.builder.client.MqttReplayOption;
+import io.github.athingx.athing.thing.impl.util.HashedWheelTimer;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * MQTT离线消息重放缓冲区
+ * <p>
+ * 断线期间发布的消息进入缓冲区，立即返回投递令牌；连接恢复后按限定速率逐条交给MQTT客户端，
+ * 且只在客户端在途消息数低于重放窗口时发送，为同时发布的实时消息留出在途窗口。
+ * 重放期间断线的消息放回队首，等待下一次连接。
+ * </p>
+ * <p>
+ * 重放不占用常驻线程：共享时间轮在下一个放行时刻唤醒，发布（可能写入持久化）转交{@link MqttBlockingExecutor}执行，
+ * 同一缓冲区同时最多只有一个重放步骤在调度或执行中。
+ * </p>
+ */
+public class MqttReplayBuffer implements AutoCloseable {
+
+    // 时间轮刻度内到期的消息在同一步骤中发出，刻度大于放行间隔时不降低重放速率
+    private static final long BURST_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final ThingPath path;
+    private final MqttAsyncClient client;
+    private final Publisher publisher;
+    private final int capacity;
+    private final long intervalNanos;
+    private final int window;
+    private final MqttReplayOption.ProgressListener listener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 以下由lock保护
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    private boolean connected;
+    private boolean closed;
+    private boolean scheduled;
+    private HashedWheelTimer.Timeout timeout;
+    private long replayed;
+    private long nextNanos;
+
+    /**
+     * MQTT离线消息重放缓冲区
+     *
+     * @param path        设备路径
+     * @param client      MQTT客户端
+     * @param publisher   绕过缓冲区的发布
+     * @param option      重放选项
+     * @param maxInflight 客户端最大在途消息数
+     */
+    public MqttReplayBuffer(ThingPath path, MqttAsyncClient client, Publisher publisher, MqttReplayOption option, int maxInflight) {
+        this.path = path;
+        this.client = client;
+        this.publisher = publisher;
+        this.capacity = option.getCapacity();
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / option.getRate());
+        this.window = Math.max(1, (int) (maxInflight * option.getHeadroom()));
+        this.listener = option.getListener();
+    }
+
+    /**
+     * 缓冲消息
+     *
+     * @param topic       主题
+     * @param message     消息
+     * @param userContext 用户上下文
+     * @param callback    动作回调
+     * @return 投递令牌，消息重放并投递完成时完成
+     * @throws MqttException 缓冲区已关闭
+     */
+    public IMqttDeliveryToken buffer(String topic, MqttMessage message, Object userContext, IMqttActionListener callback) throws MqttException {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        final MqttFutureDeliveryToken token = new MqttFutureDeliveryToken(client, future, message, userContext, callback);
+        final Entry discard;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new MqttException(MqttException.REASON_CODE_CLIENT_CLOSED);
+            }
+            entries.addLast(new Entry(topic, message, future));
+            discard = entries.size() > capacity ? entries.pollFirst() : null;
+            schedule();
+        } finally {
+            lock.unlock();
+        }
+
+        // 缓冲满时丢弃最早的消息
+        if (null != discard) {
+            logger.warn("{}/mqtt/replay buffer full, discard oldest! topic={};", path, discard.topic);
+            discard.future.completeExceptionally(new MqttException(MqttException.REASON_CODE_DISCONNECTED_BUFFER_FULL));
+        }
+        return token;
+    }
+
+    /**
+     * 连接恢复，开始重放
+     */
+    public void resume() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            connected = true;
+            replayed = 0;
+            schedule();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 连接断开，暂停重放
+     */
+    public void pause() {
+        lock.lock();
+        try {
+            connected = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取积压消息数
+     *
+     * @return 积压消息数
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 调度下一个重放步骤：已连接、有积压且尚未调度时，在共享时间轮上等到下一个放行时刻，调用时必须持有lock
+    private void schedule() {
+        if (closed || !connected || entries.isEmpty() || scheduled) {
+            return;
+        }
+        scheduled = true;
+        final long delayNanos = nextNanos - System.nanoTime();
+        if (delayNanos <= 0) {
+            MqttBlockingExecutor.execute(this::replay);
+        } else {
+            timeout = HashedWheelTimer.shared().schedule(() -> MqttBlockingExecutor.execute(this::replay), delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // 一个重放步骤：发出已到放行时刻的积压消息，在途窗口已满时等待一个放行间隔
+    private void replay() {
+        try {
+            while (true) {
+
+                final Entry entry;
+                final int remaining;
+                lock.lock();
+                try {
+                    final long now = System.nanoTime();
+                    if (closed || !connected || entries.isEmpty() || nextNanos - now > 0) {
+                        break;
+                    }
+                    if (client.getInFlightMessageCount() >= window) {
+                        nextNanos = now + intervalNanos;
+                        break;
+                    }
+                    entry = entries.pollFirst();
+                    remaining = entries.size();
+                    nextNanos = Math.max(nextNanos, now - BURST_NANOS) + intervalNanos;
+                } finally {
+                    lock.unlock();
+                }
+
+                if (publish(entry)) {
+                    listener.onProgress(path, progress(), remaining);
+                }
+
+            }
+        } finally {
+            lock.lock();
+            try {
+                scheduled = false;
+                timeout = null;
+                schedule();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private long progress() {
+        lock.lock();
+        try {
+            return ++replayed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 交给MQTT客户端，断线时放回队首并暂停
+    private boolean publish(Entry entry) {
+        try {
+            publisher.publish(entry.topic, entry.message, null, new IMqttActionListener() {
+
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    entry.future.complete(null);
+                }
+
+                @Override
+                public void onFailure(IMqttToken token, Throwable cause) {
+                    entry.future.completeExceptionally(cause);
+                }
+
+            });
+            return true;
+        } catch (MqttException cause) {
+            if (cause.getReasonCode() == MqttException.REASON_CODE_CLIENT_NOT_CONNECTED) {
+                lock.lock();
+                try {
+                    entries.addFirst(entry);
+                    connected = false;
+                } finally {
+                    lock.unlock();
+                }
+            } else {
+                logger.warn("{}/mqtt/replay publish failed! topic={};", path, entry.topic, cause);
+                entry.future.completeExceptionally(cause);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 关闭缓冲区，尚未重放的消息以{@link MqttException#REASON_CODE_CLIENT_CLOSED}结束
+     */
+    @Override
+    public void close() {
+        final Deque<Entry> remains;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            remains = new ArrayDeque<>(entries);
+            entries.clear();
+            if (null != timeout) {
+                timeout.cancel();
+            }
+        } finally {
+            lock.unlock();
+        }
+        remains.forEach(entry -> entry.future.completeExceptionally(new MqttException(MqttException.REASON_CODE_CLIENT_CLOSED)));
+    }
+
+    /**
+     * 绕过缓冲区的发布
+     */
+    @FunctionalInterface
+    public interface Publisher {
+
+        /**
+         * 发布消息
+         *
+         * @param topic       主题
+         * @param message     消息
+         * @param userContext 用户上下文
+         * @param callback    动作回调
+         * @return 投递令牌
+         * @throws MqttException 发布失败
+         */
+        IMqttDeliveryToken publish(String topic, MqttMessage message, Object userContext, IMqttActionListener callback) throws MqttException;
+
+    }
+
+    /**
+     * 积压消息
+     *
+     * @param topic   主题
+     * @param message 消息
+     * @param future  投递
+     */
+    private record Entry(String topic, MqttMessage message, CompletableFuture<Void> future) {
+
+    }
+
+}
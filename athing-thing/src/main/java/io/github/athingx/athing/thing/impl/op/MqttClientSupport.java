@@ -1,33 +1,44 @@
 package io.github.athingx.athing.thing.impl.op;
 
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.builder.metrics.ThingMetrics;
 import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
-import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
 import org.eclipse.paho.client.mqttv3.MqttException;
 
 import java.util.concurrent.CompletableFuture;
 
 class MqttClientSupport {
 
+    private final ThingPath path;
     private final IMqttAsyncClient client;
+    private final ThingMetrics metrics;
 
-    protected MqttClientSupport(IMqttAsyncClient client) {
+    protected MqttClientSupport(ThingPath path, IMqttAsyncClient client, ThingMetrics metrics) {
+        this.path = path;
         this.client = client;
+        this.metrics = metrics;
     }
 
     protected CompletableFuture<Void> pahoMqttPublish(String topic, int qos, byte[] payload) {
+        final var beginNanos = System.nanoTime();
         final var future = new MqttActionListenerFuture<Void>();
         try {
             client.publish(topic, payload, qos, false, null, future);
         } catch (MqttException cause) {
             future.completeExceptionally(cause);
         }
+
+        // 记录发布到Broker确认的耗时
+        if (metrics != ThingMetrics.none()) {
+            future.whenComplete((v, ex) -> metrics.recordPublish(path, pattern(topic), System.nanoTime() - beginNanos, null == ex));
+        }
         return future;
     }
 
-    protected CompletableFuture<Void> pahoMqttSubscribe(String express, int qos, IMqttMessageListener listener) {
+    protected CompletableFuture<Void> pahoMqttSubscribe(String express, int qos) {
         final var future = new MqttActionListenerFuture<Void>();
         try {
-            client.subscribe(express, qos, null, future, listener);
+            client.subscribe(express, qos, null, future);
         } catch (MqttException cause) {
             future.completeExceptionally(cause);
         }
@@ -44,4 +55,54 @@ class MqttClientSupport {
         return future;
     }
 
+    /**
+     * 主题归一化为主题模式：产品ID、设备ID以及纯数字层级替换为{@code +}
+     *
+     * @param topic 主题或订阅表达式
+     * @return 主题模式
+     */
+    protected String pattern(String topic) {
+        StringBuilder pattern = null;
+        int begin = 0;
+        for (int index = 0; index <= topic.length(); index++) {
+            if (index < topic.length() && topic.charAt(index) != '/') {
+                continue;
+            }
+            if (isVariable(topic, begin, index)) {
+                if (null == pattern) {
+                    pattern = new StringBuilder(topic.length()).append(topic, 0, begin);
+                }
+                pattern.append('+');
+            } else if (null != pattern) {
+                pattern.append(topic, begin, index);
+            }
+            if (null != pattern && index < topic.length()) {
+                pattern.append('/');
+            }
+            begin = index + 1;
+        }
+        return null == pattern ? topic : pattern.toString();
+    }
+
+    // 层级是否为变量
+    private boolean isVariable(String topic, int begin, int end) {
+        final int length = end - begin;
+        if (length == 0) {
+            return false;
+        }
+        if (isSegment(topic, begin, length, path.getProductId()) || isSegment(topic, begin, length, path.getThingId())) {
+            return true;
+        }
+        for (int index = begin; index < end; index++) {
+            if (!Character.isDigit(topic.charAt(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSegment(String topic, int begin, int length, String segment) {
+        return segment.length() == length && topic.regionMatches(begin, segment, 0, length);
+    }
+
 }
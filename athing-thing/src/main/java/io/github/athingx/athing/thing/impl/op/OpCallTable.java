@@ -0,0 +1,223 @@
+package io.github.athingx.athing.thing.impl.op;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.builder.OpCallOption;
+import io.github.athingx.athing.thing.impl.util.HashedWheelTimer;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.athingx.athing.thing.builder.OpCallOption.RejectPolicy.DISCARD_OLDEST;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * 调用关联表
+ * <p>
+ * 按令牌关联请求与应答。每个在途调用都带有截止时间，由共享的时间轮统一驱动超时，
+ * 调用在应答、超时、失败或取消时立即从表中移除，表容量有上限，满时按拒绝策略处理。
+ * </p>
+ *
+ * @param <R> 应答类型
+ */
+class OpCallTable<R> {
+
+    private final ThingPath path;
+    private final OpCallOption option;
+    private final HashedWheelTimer timer;
+    private final Map<String, Call> calls = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    // 在途调用的登记顺序，仅在DISCARD_OLDEST策略下维护，由自身保护，调用结束时立即移除
+    private final Set<Call> sequence;
+
+    /**
+     * 调用关联表
+     *
+     * @param path   设备路径
+     * @param option 调用选项
+     * @param timer  时间轮
+     */
+    OpCallTable(ThingPath path, OpCallOption option, HashedWheelTimer timer) {
+        this.path = path;
+        this.option = option;
+        this.timer = timer;
+        this.sequence = option.getPolicy() == DISCARD_OLDEST ? new LinkedHashSet<>() : null;
+    }
+
+    /**
+     * 登记调用
+     *
+     * @param token 调用令牌
+     * @return 调用应答
+     */
+    CompletableFuture<R> register(String token) {
+
+        if (!acquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "%s/op/call rejected, too many pending calls! capacity=%s;".formatted(path, option.getCapacity())
+            ));
+        }
+
+        final var call = new Call(token);
+        if (null != calls.putIfAbsent(token, call)) {
+            pending.decrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "%s/op/call duplicate token! token=%s;".formatted(path, token)
+            ));
+        }
+
+        // 调用可能在登记顺序前就已结束（应答先到），此时补偿移除
+        if (null != sequence) {
+            synchronized (sequence) {
+                sequence.add(call);
+            }
+            if (call.isDone()) {
+                unsequence(call);
+            }
+        }
+
+        // 调用可能在定时登记前就已结束，此时需要补偿取消
+        call.timeout = timer.schedule(call::expire, option.getTimeoutMs(), MILLISECONDS);
+        if (call.isDone()) {
+            call.timeout.cancel();
+        }
+        return call;
+    }
+
+    /**
+     * 完成调用
+     *
+     * @param token 调用令牌
+     * @param r     调用应答
+     * @return TRUE | FALSE
+     */
+    boolean complete(String token, R r) {
+        final var call = calls.get(token);
+        return null != call && call.complete(r);
+    }
+
+    /**
+     * @return 在途调用数
+     */
+    int size() {
+        return pending.get();
+    }
+
+    private boolean acquire() {
+        while (true) {
+            final int current = pending.get();
+            if (current < option.getCapacity()) {
+                if (pending.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            } else if (null == sequence || !discardOldest()) {
+                return false;
+            }
+        }
+    }
+
+    private boolean discardOldest() {
+        while (true) {
+            final Call call;
+            synchronized (sequence) {
+                final Iterator<Call> iterator = sequence.iterator();
+                if (!iterator.hasNext()) {
+                    return false;
+                }
+                call = iterator.next();
+                iterator.remove();
+            }
+            if (call.completeExceptionally(new RejectedExecutionException(
+                    "%s/op/call discarded, too many pending calls! token=%s;".formatted(path, call.token)))) {
+                return true;
+            }
+        }
+    }
+
+    private void unsequence(Call call) {
+        synchronized (sequence) {
+            sequence.remove(call);
+        }
+    }
+
+    /**
+     * 在途调用，调用结束时自行出表
+     * <p>先出表再结束调用，调用方观察到调用结束时其占用的容量已经释放；出表可重复执行</p>
+     */
+    private class Call extends CompletableFuture<R> {
+
+        private final String token;
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        private Call(String token) {
+            this.token = token;
+        }
+
+        // 出表并释放容量
+        private void leave() {
+            if (calls.remove(token, this)) {
+                pending.decrementAndGet();
+            }
+        }
+
+        private void release() {
+            leave();
+            if (null != sequence) {
+                unsequence(this);
+            }
+            final var timeout = this.timeout;
+            if (null != timeout) {
+                timeout.cancel();
+            }
+        }
+
+        // 超时回调在时间轮线程中触发，调用结束通知转交公共线程池，避免阻塞时间轮；
+        // 不能使用设备线程池：消费者在设备线程上阻塞等待调用时，排在其后的超时通知永远得不到执行
+        private void expire() {
+            final Runnable task = () -> completeExceptionally(new TimeoutException(
+                    "%s/op/call timeout! token=%s;timeout=%sms;".formatted(path, token, option.getTimeoutMs())
+            ));
+            try {
+                ForkJoinPool.commonPool().execute(task);
+            } catch (RejectedExecutionException cause) {
+                task.run();
+            }
+        }
+
+        @Override
+        public boolean complete(R value) {
+            leave();
+            final boolean completed = super.complete(value);
+            if (completed) {
+                release();
+            }
+            return completed;
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            leave();
+            final boolean completed = super.completeExceptionally(ex);
+            if (completed) {
+                release();
+            }
+            return completed;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            leave();
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                release();
+            }
+            return cancelled;
+        }
+
+    }
+
+}
@@ -0,0 +1,126 @@
+package io.github.athingx.athing.thing.impl.op;
+
+import io.github.athingx.athing.common.util.TopicTrie;
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.api.op.OpBinder;
+import io.github.athingx.athing.thing.builder.metrics.ThingMetrics;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+
+/**
+ * 主题路由
+ * <p>
+ * 设备的所有消费者共享一个路由：同一订阅表达式只向Broker订阅一次并按引用计数退订，
+ * 到达的消息由本地主题前缀树按层级匹配后分发给消费者，不再依赖Paho逐个匹配订阅监听器。
+ * </p>
+ * <p>
+ * 路由作为客户端的回调安装，会替换客户端已有的回调，这是{@link io.github.athingx.athing.thing.builder.client.MqttClientFactory}的约定。
+ * </p>
+ */
+class OpTopicRouter extends MqttClientSupport implements MqttCallback {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final ThingPath path;
+    private final TopicTrie<BiConsumer<String, MqttMessage>> trie = new TopicTrie<>();
+    private final Map<String, Subscription> subscriptions = new HashMap<>();
+
+    /**
+     * 主题路由
+     *
+     * @param path   设备路径
+     * @param client MQTT客户端
+     */
+    OpTopicRouter(ThingPath path, IMqttAsyncClient client) {
+        super(path, client, ThingMetrics.none());
+        this.path = path;
+        client.setCallback(this);
+    }
+
+    /**
+     * 绑定消费者
+     *
+     * @param express  订阅表达式
+     * @param qos      QOS
+     * @param consumer 消费者
+     * @return 绑定结果
+     */
+    CompletableFuture<OpBinder> bind(String express, int qos, BiConsumer<String, MqttMessage> consumer) {
+
+        final CompletableFuture<Void> subscribeF;
+        synchronized (this) {
+            final var subscription = subscriptions.computeIfAbsent(express, key -> new Subscription(pahoMqttSubscribe(key, qos)));
+            subscription.references++;
+            subscribeF = subscription.future;
+            trie.add(express, consumer);
+        }
+
+        return subscribeF.handle((v, ex) -> {
+            if (null != ex) {
+                release(express, consumer);
+                throw ex instanceof CompletionException cex ? cex : new CompletionException(ex);
+            }
+            return () -> release(express, consumer);
+        });
+    }
+
+    // 解除绑定，最后一个消费者解除时向Broker退订
+    private CompletableFuture<Void> release(String express, BiConsumer<String, MqttMessage> consumer) {
+        synchronized (this) {
+            if (!trie.remove(express, consumer)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            final var subscription = subscriptions.get(express);
+            if (null == subscription || --subscription.references > 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            subscriptions.remove(express);
+        }
+        return pahoMqttUnsubscribe(express);
+    }
+
+    @Override
+    public void messageArrived(String topic, MqttMessage message) {
+        trie.match(topic, consumer -> {
+            try {
+                consumer.accept(topic, message);
+            } catch (Throwable cause) {
+                logger.warn("{}/op/router dispatch error! topic={};", path, topic, cause);
+            }
+        });
+    }
+
+    @Override
+    public void connectionLost(Throwable cause) {
+
+    }
+
+    @Override
+    public void deliveryComplete(IMqttDeliveryToken token) {
+
+    }
+
+    /**
+     * Broker订阅
+     */
+    private static class Subscription {
+
+        private final CompletableFuture<Void> future;
+        private int references;
+
+        private Subscription(CompletableFuture<Void> future) {
+            this.future = future;
+        }
+
+    }
+
+}
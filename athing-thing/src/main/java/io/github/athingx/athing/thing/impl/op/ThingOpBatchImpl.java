@@ -0,0 +1,223 @@
+package io.github.athingx.athing.thing.impl.op;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.api.op.*;
+import io.github.athingx.athing.thing.impl.util.HashedWheelTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * 设备操作批量投递实现
+ * <p>
+ * 按主题缓冲投递数据，窗口到期（由时间轮驱动）、达到单批上限或新数据不能与已缓冲数据合并时合并投递，
+ * 合并投递完成后逐个完成各投递
+ * </p>
+ */
+class ThingOpBatchImpl<T, R> implements ThingOp<T, R> {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final ThingPath path;
+    private final ThingOp<T, R> target;
+    private final Executor executor;
+    private final OpBatch<T> batch;
+    private final HashedWheelTimer timer;
+    private final Map<String, Buffer> buffers = new ConcurrentHashMap<>();
+
+    /**
+     * 设备操作批量投递实现
+     *
+     * @param path     设备路径
+     * @param target   目标设备操作
+     * @param executor 线程池
+     * @param batch    批量投递策略
+     * @param timer    时间轮
+     */
+    ThingOpBatchImpl(ThingPath path, ThingOp<T, R> target, Executor executor, OpBatch<T> batch, HashedWheelTimer timer) {
+        this.path = path;
+        this.target = target;
+        this.executor = executor;
+        this.batch = batch;
+        this.timer = timer;
+    }
+
+    @Override
+    public String genToken() {
+        return target.genToken();
+    }
+
+    @Override
+    public long nextToken() {
+        return target.nextToken();
+    }
+
+    @Override
+    public CompletableFuture<Void> post(String topic, T data) {
+        return buffers.computeIfAbsent(topic, Buffer::new).append(data);
+    }
+
+    @Override
+    public CompletableFuture<OpBinder> consumer(String express, BiConsumer<String, R> consumer) {
+        return target.consumer(express, consumer);
+    }
+
+    @Override
+    public <UT extends OpData, UR extends OpData>
+    CompletableFuture<OpTopicCaller<UT, UR>> caller(String express, Codec<T, R, UT, UR> codec) {
+        return target.caller(express, codec);
+    }
+
+    @Override
+    public <UT, UR> ThingOp<UT, UR> codec(Codec<T, R, UT, UR> codec) {
+        return target.codec(codec);
+    }
+
+    @Override
+    public ThingOp<T, R> batch(OpBatch<T> batch) {
+        return target.batch(batch);
+    }
+
+    /**
+     * 主题缓冲
+     * <p>
+     * 批次在锁内按截取顺序进入投递队列，同一时刻只有一个投递者按队列顺序交给目标设备操作，
+     * 先截取的批次总是先投递，同名属性的新值不会被旧值覆盖。
+     * </p>
+     */
+    private class Buffer {
+
+        private final String topic;
+        private final Deque<Cut<T>> cuts = new ArrayDeque<>();
+        private List<T> datas = new ArrayList<>();
+        private List<CompletableFuture<Void>> futures = new ArrayList<>();
+        private HashedWheelTimer.Timeout timeout;
+        private boolean posting;
+
+        private Buffer(String topic) {
+            this.topic = topic;
+        }
+
+        CompletableFuture<Void> append(T data) {
+            final var future = new CompletableFuture<Void>();
+            synchronized (this) {
+
+                // 不能合并：已缓冲的数据先截取为一批
+                if (!datas.isEmpty() && !batch.mergeable().test(datas, data)) {
+                    cut();
+                }
+
+                datas.add(data);
+                futures.add(future);
+                if (datas.size() >= batch.maxSize()) {
+                    cancel();
+                    cut();
+                } else if (null == timeout) {
+                    timeout = timer.schedule(this::expire, batch.windowMs(), MILLISECONDS);
+                }
+            }
+            drain();
+            return future;
+        }
+
+        // 窗口到期回调在时间轮线程中触发，合并投递转交线程池
+        private void expire() {
+            try {
+                executor.execute(this::flush);
+            } catch (RejectedExecutionException cause) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            synchronized (this) {
+                cancel();
+                if (!datas.isEmpty()) {
+                    cut();
+                }
+            }
+            drain();
+        }
+
+        // 取消窗口定时，需持有锁
+        private void cancel() {
+            if (null != timeout) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+
+        // 截取当前批次进入投递队列，需持有锁
+        private void cut() {
+            cuts.add(new Cut<>(datas, futures));
+            datas = new ArrayList<>();
+            futures = new ArrayList<>();
+        }
+
+        // 按截取顺序投递，已有投递者时由其代为投递
+        private void drain() {
+            synchronized (this) {
+                if (posting || cuts.isEmpty()) {
+                    return;
+                }
+                posting = true;
+            }
+            while (true) {
+                final Cut<T> cut;
+                synchronized (this) {
+                    cut = cuts.poll();
+                    if (null == cut) {
+                        posting = false;
+                        return;
+                    }
+                }
+                post(cut);
+            }
+        }
+
+        private void post(Cut<T> cut) {
+
+            final CompletableFuture<Void> postF;
+            try {
+                postF = target.post(topic, batch.merger().apply(cut.datas()));
+            } catch (Throwable cause) {
+                logger.warn("{}/op/batch merge error! topic={};size={};", path, topic, cut.datas().size(), cause);
+                cut.futures().forEach(future -> future.completeExceptionally(cause));
+                return;
+            }
+
+            postF.whenComplete((v, ex) -> {
+                if (null != ex) {
+                    cut.futures().forEach(future -> future.completeExceptionally(ex));
+                } else {
+                    cut.futures().forEach(future -> future.complete(null));
+                }
+            });
+
+        }
+
+    }
+
+    /**
+     * 截取的批次
+     *
+     * @param datas   投递数据
+     * @param futures 投递凭证
+     * @param <T>     投递数据类型
+     */
+    private record Cut<T>(List<T> datas, List<CompletableFuture<Void>> futures) {
+
+    }
+
+}
@@ -3,13 +3,16 @@ package io.github.athingx.athing.thing.impl.op;
 import io.github.athingx.athing.common.util.CompletableFutureUtils;
 import io.github.athingx.athing.thing.api.ThingPath;
 import io.github.athingx.athing.thing.api.op.*;
+import io.github.athingx.athing.thing.builder.OpCallOption;
+import io.github.athingx.athing.thing.builder.metrics.ThingMetrics;
+import io.github.athingx.athing.thing.builder.metrics.ThingMetrics.ConsumeResult;
+import io.github.athingx.athing.thing.impl.util.HashedWheelTimer;
 import io.github.athingx.athing.thing.impl.util.TokenSequencer;
 import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.function.BiConsumer;
 
@@ -25,8 +28,10 @@ public class ThingOpImpl<T, R> extends MqttClientSupport implements ThingOp<T, R
     private final IMqttAsyncClient client;
     private final ExecutorService executor;
     private final Codec<byte[], byte[], T, R> codec;
-    private final TokenSequencer sequencer = new TokenSequencer();
-
+    private final OpCallOption callOpt;
+    private final TokenSequencer sequencer;
+    private final OpTopicRouter router;
+    private final ThingMetrics metrics;
 
     /**
      * 设备操作实现
@@ -34,13 +39,50 @@ public class ThingOpImpl<T, R> extends MqttClientSupport implements ThingOp<T, R
      * @param path     设备路径
      * @param client   MQTT客户端
      * @param executor 线程池
+     * @param codec    编解码器
      */
     public ThingOpImpl(ThingPath path, IMqttAsyncClient client, ExecutorService executor, Codec<byte[], byte[], T, R> codec) {
-        super(client);
+        this(path, client, executor, codec, new OpCallOption(), ThingMetrics.none());
+    }
+
+    /**
+     * 设备操作实现
+     *
+     * @param path     设备路径
+     * @param client   MQTT客户端
+     * @param executor 线程池
+     * @param codec    编解码器
+     * @param callOpt  调用选项
+     */
+    public ThingOpImpl(ThingPath path, IMqttAsyncClient client, ExecutorService executor, Codec<byte[], byte[], T, R> codec, OpCallOption callOpt) {
+        this(path, client, executor, codec, callOpt, ThingMetrics.none());
+    }
+
+    /**
+     * 设备操作实现
+     *
+     * @param path     设备路径
+     * @param client   MQTT客户端
+     * @param executor 线程池
+     * @param codec    编解码器
+     * @param callOpt  调用选项
+     * @param metrics  设备指标
+     */
+    public ThingOpImpl(ThingPath path, IMqttAsyncClient client, ExecutorService executor, Codec<byte[], byte[], T, R> codec, OpCallOption callOpt, ThingMetrics metrics) {
+        this(path, client, executor, codec, callOpt, new TokenSequencer(), new OpTopicRouter(path, client), metrics);
+    }
+
+    // 编解码派生的设备操作与原操作共享令牌序列和主题路由，保证同一设备内令牌唯一、订阅不重复
+    private ThingOpImpl(ThingPath path, IMqttAsyncClient client, ExecutorService executor, Codec<byte[], byte[], T, R> codec, OpCallOption callOpt, TokenSequencer sequencer, OpTopicRouter router, ThingMetrics metrics) {
+        super(path, client, metrics);
         this.path = path;
         this.client = client;
         this.executor = executor;
         this.codec = codec;
+        this.callOpt = callOpt;
+        this.sequencer = sequencer;
+        this.router = router;
+        this.metrics = metrics;
     }
 
     @Override
@@ -48,6 +90,11 @@ public class ThingOpImpl<T, R> extends MqttClientSupport implements ThingOp<T, R
         return sequencer.next();
     }
 
+    @Override
+    public long nextToken() {
+        return sequencer.nextToken();
+    }
+
     @Override
     public CompletableFuture<Void> post(String topic, T data) {
         return CompletableFutureUtils
@@ -57,47 +104,58 @@ public class ThingOpImpl<T, R> extends MqttClientSupport implements ThingOp<T, R
 
     @Override
     public CompletableFuture<OpBinder> consumer(String express, BiConsumer<String, R> consumer) {
-        return pahoMqttSubscribe(express, 1, (topic, message) ->
-                executor.execute(() -> {
-                    try {
-                        final var data = codec.decoder().decode(topic, message.getPayload());
-                        consumer.accept(topic, data);
-                    } catch (Decoder.DecodeSkipException dsEx) {
-                        logger.debug("{}/op message decode none, ignored! topic={};", path, topic);
-                    } catch (Throwable ex) {
-                        logger.warn("{}/op message consume error! topic={};", path, topic, ex);
-                    }
-                }))
-                .thenApply(v -> () -> pahoMqttUnsubscribe(express));
+        final var pattern = pattern(express);
+        return router.bind(express, 1, (topic, message) -> {
+            final var arrivedNanos = System.nanoTime();
+            executor.execute(() -> {
+                final var result = consume(topic, message.getPayload(), consumer);
+                metrics.recordConsume(path, pattern, System.nanoTime() - arrivedNanos, result);
+            });
+        });
+    }
+
+    // 解码并消费消息
+    private ConsumeResult consume(String topic, byte[] payload, BiConsumer<String, R> consumer) {
+        final R data;
+        try {
+            data = codec.decoder().decode(topic, payload);
+        } catch (Decoder.DecodeSkipException dsEx) {
+            logger.debug("{}/op message decode none, ignored! topic={};", path, topic);
+            return ConsumeResult.SKIPPED;
+        } catch (Throwable ex) {
+            logger.warn("{}/op message decode error! topic={};", path, topic, ex);
+            return ConsumeResult.DECODE_FAILED;
+        }
+        try {
+            consumer.accept(topic, data);
+            return ConsumeResult.CONSUMED;
+        } catch (Throwable ex) {
+            logger.warn("{}/op message consume error! topic={};", path, topic, ex);
+            return ConsumeResult.FAILED;
+        }
     }
 
     @Override
     public <UT extends OpData, UR extends OpData>
     CompletableFuture<OpTopicCaller<UT, UR>> caller(String express, Codec<T, R, UT, UR> codec) {
         final var impl = codec(codec);
-        final var futureMap = new ConcurrentHashMap<String, CompletableFuture<UR>>();
+        final var table = new OpCallTable<UR>(path, callOpt, HashedWheelTimer.shared());
         return impl.consumer(express, (topic, ur) -> {
 
-                    // 获取操作
-                    final var future = futureMap.remove(ur.token());
-                    if (null == future) {
-                        logger.debug("{}/op/call maybe timeout! token={};topic={};", path, ur.token(), topic);
-                        return;
-                    }
-
                     // 完成操作
-                    if (!future.complete(ur)) {
-                        logger.debug("{}/op/call maybe expired! token={};topic={};", path, ur.token(), topic);
+                    if (!table.complete(ur.token(), ur)) {
+                        logger.debug("{}/op/call maybe timeout or expired! token={};topic={};", path, ur.token(), topic);
                     }
 
                 })
                 .thenApply(consumer -> new OpTopicCaller<UT, UR>() {
                     @Override
                     public CompletableFuture<UR> call(String topic, UT ut) {
-                        final var future = new CompletableFuture<UR>();
-                        futureMap.put(ut.token(), future);
-                        impl.post(topic, ut).whenComplete((r, ex) -> ofNullable(ex).ifPresent(future::completeExceptionally));
-                        return future.whenComplete((r, ex) -> futureMap.remove(ut.token()));
+                        final var future = table.register(ut.token());
+                        if (!future.isDone()) {
+                            impl.post(topic, ut).whenComplete((r, ex) -> ofNullable(ex).ifPresent(future::completeExceptionally));
+                        }
+                        return future;
                     }
 
                     @Override
@@ -109,7 +167,12 @@ public class ThingOpImpl<T, R> extends MqttClientSupport implements ThingOp<T, R
 
     @Override
     public <UT, UR> ThingOp<UT, UR> codec(Codec<T, R, UT, UR> codec) {
-        return new ThingOpImpl<>(path, client, executor, this.codec.chain(codec));
+        return new ThingOpImpl<>(path, client, executor, this.codec.chain(codec), callOpt, sequencer, router, metrics);
+    }
+
+    @Override
+    public ThingOp<T, R> batch(OpBatch<T> batch) {
+        return new ThingOpBatchImpl<>(path, this, executor, batch, HashedWheelTimer.shared());
     }
 
 }
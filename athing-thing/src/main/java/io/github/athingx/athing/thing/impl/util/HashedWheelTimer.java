@@ -0,0 +1,260 @@
+package io.github.athingx.athing.thing.impl.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 哈希时间轮定时器
+ * <p>
+ * 单线程驱动，新增和取消的定时任务先进入无锁队列，由时间轮线程在每个刻度批量迁移到对应槽位，
+ * 调度和取消均为{@code O(1)}，适合大量短命且多数会被取消的超时任务（如调用应答超时）。
+ * </p>
+ * <p>
+ * 到期任务在时间轮线程中执行，任务必须短小且不能阻塞，耗时逻辑应自行转交线程池。
+ * </p>
+ */
+public class HashedWheelTimer {
+
+    private static final HashedWheelTimer shared = new HashedWheelTimer("athing-timer", 10, TimeUnit.MILLISECONDS, 512);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<TimeoutImpl> adds = new ConcurrentLinkedQueue<>();
+    private final Queue<TimeoutImpl> cancels = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    // 时间基准在构造时确定，首次调度可能与启动并发，不能依赖启动时赋值
+    private final long startNanos = System.nanoTime();
+    private long tick;
+
+    /**
+     * 哈希时间轮定时器
+     *
+     * @param name      名称（同时作为线程名）
+     * @param tick      刻度时长
+     * @param unit      刻度时长单位
+     * @param wheelSize 槽位数量，会被调整为2的幂
+     */
+    public HashedWheelTimer(String name, long tick, TimeUnit unit, int wheelSize) {
+        if (tick <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tick and wheelSize must be positive!");
+        }
+        this.name = name;
+        this.tickNanos = unit.toNanos(tick);
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int index = 0; index < wheel.length; index++) {
+            wheel[index] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+    }
+
+    /**
+     * 获取进程共享的时间轮（10ms刻度）
+     *
+     * @return 时间轮
+     */
+    public static HashedWheelTimer shared() {
+        return shared;
+    }
+
+    /**
+     * 调度定时任务
+     *
+     * @param task  任务
+     * @param delay 延时
+     * @param unit  延时单位
+     * @return 定时句柄
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        start();
+        final var timeout = new TimeoutImpl(task, System.nanoTime() - startNanos + Math.max(0, unit.toNanos(delay)));
+        adds.offer(timeout);
+        return timeout;
+    }
+
+    private void start() {
+        if (started.get() || !started.compareAndSet(false, true)) {
+            return;
+        }
+        // 从当前刻度开始转动，不追赶构造到启动之间的空转刻度
+        tick = (System.nanoTime() - startNanos) / tickNanos;
+        final var worker = new Thread(this::loop, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // 时间轮线程主循环
+    private void loop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final long deadline = waitForNextTick();
+            transferCancels();
+            transferAdds();
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    // 休眠直至下一刻度，返回当前相对时间
+    private long waitForNextTick() {
+        final long deadline = tickNanos * (tick + 1);
+        while (true) {
+            final long current = System.nanoTime() - startNanos;
+            final long sleepNanos = deadline - current;
+            if (sleepNanos <= 0) {
+                return current;
+            }
+            LockSupport.parkNanos(this, sleepNanos);
+        }
+    }
+
+    private void transferCancels() {
+        TimeoutImpl timeout;
+        while ((timeout = cancels.poll()) != null) {
+            if (null != timeout.bucket) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferAdds() {
+        TimeoutImpl timeout;
+        while ((timeout = adds.poll()) != null) {
+            if (timeout.state.get() != TimeoutImpl.ST_INIT) {
+                continue;
+            }
+            final long calculated = timeout.deadline / tickNanos;
+            timeout.rounds = (calculated - tick) / wheel.length;
+            wheel[(int) (Math.max(calculated, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * 定时句柄
+     */
+    public interface Timeout {
+
+        /**
+         * 取消定时任务
+         *
+         * @return 是否取消成功，任务已执行或已取消时返回{@code false}
+         */
+        boolean cancel();
+
+    }
+
+    private class TimeoutImpl implements Timeout {
+
+        static final int ST_INIT = 0;
+        static final int ST_CANCELLED = 1;
+        static final int ST_EXPIRED = 2;
+
+        final Runnable task;
+        final long deadline;
+        final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+        // 以下字段仅由时间轮线程访问
+        long rounds;
+        Bucket bucket;
+        TimeoutImpl prev;
+        TimeoutImpl next;
+
+        TimeoutImpl(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            cancels.offer(this);
+            return true;
+        }
+
+        void expire() {
+            if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable cause) {
+                logger.warn("{}/timer task error!", name, cause);
+            }
+        }
+
+    }
+
+    // 槽位：双向链表，仅由时间轮线程访问
+    private static class Bucket {
+
+        TimeoutImpl head;
+        TimeoutImpl tail;
+
+        void add(TimeoutImpl timeout) {
+            timeout.bucket = this;
+            if (null == head) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        TimeoutImpl remove(TimeoutImpl timeout) {
+            final var next = timeout.next;
+            if (null != timeout.prev) {
+                timeout.prev.next = next;
+            }
+            if (null != timeout.next) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                if (timeout == tail) {
+                    head = tail = null;
+                } else {
+                    head = next;
+                }
+            } else if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        void expire(long current) {
+            var timeout = head;
+            while (null != timeout) {
+                if (timeout.rounds <= 0 && timeout.deadline <= current) {
+                    final var next = remove(timeout);
+                    timeout.expire();
+                    timeout = next;
+                } else if (timeout.state.get() == TimeoutImpl.ST_CANCELLED) {
+                    timeout = remove(timeout);
+                } else {
+                    if (timeout.rounds > 0) {
+                        timeout.rounds--;
+                    }
+                    timeout = timeout.next;
+                }
+            }
+        }
+
+    }
+
+}
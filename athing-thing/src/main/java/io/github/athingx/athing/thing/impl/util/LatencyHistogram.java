@@ -0,0 +1,125 @@
+package io.github.athingx.athing.thing.impl.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 延迟直方图
+ * <p>
+ * HDR风格的对数-线性分桶：每个2的幂区间再均分为16个子桶，相对误差不超过1/16，覆盖1ns到约73分钟；
+ * 计数按线程分散到多条条带，记录无锁且不分配对象，读取时合并各条带。
+ * </p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXP = 41;
+    private static final long LIMIT = 1L << (MAX_EXP + 1);
+    private static final int BUCKETS = (MAX_EXP - SUB_BITS + 2) * SUB_COUNT;
+    private static final int STRIPES = 4;
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录耗时
+     *
+     * @param nanos 耗时(ns)
+     */
+    public void record(long nanos) {
+        final long value = Math.max(0, nanos);
+        final int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        counts.incrementAndGet(stripe * BUCKETS + index(value));
+        count.increment();
+        total.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 获取记录次数
+     *
+     * @return 记录次数
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 获取总耗时
+     *
+     * @return 总耗时(ns)
+     */
+    public long getTotalNanos() {
+        return total.sum();
+    }
+
+    /**
+     * 获取最大耗时
+     *
+     * @return 最大耗时(ns)
+     */
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * 获取分位耗时
+     *
+     * @param percentile 分位，取值{@code [0, 100]}
+     * @return 分位耗时(ns)，所在分桶的上界；没有记录时返回0
+     */
+    public long getPercentileNanos(double percentile) {
+        final long[] merged = new long[BUCKETS];
+        long sum = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                merged[bucket] += counts.get(stripe * BUCKETS + bucket);
+            }
+            sum += merged[bucket];
+        }
+        if (sum == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(sum * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += merged[bucket];
+            if (seen >= rank) {
+                return Math.min(highest(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // 耗时所在分桶
+    static int index(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        if (value >= LIMIT) {
+            return BUCKETS - 1;
+        }
+        final int exp = 63 - Long.numberOfLeadingZeros(value);
+        final int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    // 分桶上界
+    static long highest(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        final int exp = index / SUB_COUNT + SUB_BITS - 1;
+        final int sub = index % SUB_COUNT;
+        return ((long) (SUB_COUNT + sub + 1) << (exp - SUB_BITS)) - 1;
+    }
+
+}
@@ -0,0 +1,148 @@
+package io.github.athingx.athing.thing.impl.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 限流线程池
+ * <p>
+ * 在共享的底层线程池之上划出一条并发受限的通道：通道内同时执行的任务数不超过{@code limit}，
+ * 超出的任务在通道内排队；{@code limit=1}时通道内的任务严格按提交顺序串行执行。
+ * </p>
+ * <p>
+ * 关闭通道只影响通道本身：不再接收新任务，已排队的任务继续执行完毕，底层线程池不受影响。
+ * 通道每次最多连续执行{@value #BATCH}个任务后让出底层线程，避免繁忙的通道长期占用共享线程。
+ * </p>
+ */
+public class LimitedExecutorService extends AbstractExecutorService {
+
+    // 单次占用底层线程最多执行的任务数
+    private static final int BATCH = 64;
+
+    private final Executor executor;
+    private final int limit;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final Object terminationLock = new Object();
+    private volatile boolean shutdown;
+
+    /**
+     * 限流线程池
+     *
+     * @param executor 底层线程池
+     * @param limit    通道最大并发数
+     */
+    public LimitedExecutorService(Executor executor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive!");
+        }
+        this.executor = executor;
+        this.limit = limit;
+    }
+
+    /**
+     * @return 通道内排队的任务数
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (shutdown) {
+            throw new RejectedExecutionException("executor is shutdown!");
+        }
+        queue.offer(command);
+        schedule();
+    }
+
+    // 在并发许可内启动通道工作者
+    private void schedule() {
+        while (!queue.isEmpty()) {
+            final int current = running.get();
+            if (current >= limit) {
+                return;
+            }
+            if (running.compareAndSet(current, current + 1)) {
+                try {
+                    executor.execute(this::work);
+                } catch (RejectedExecutionException cause) {
+                    running.decrementAndGet();
+                    throw cause;
+                }
+            }
+        }
+    }
+
+    private void work() {
+        try {
+            Runnable task;
+            int count = 0;
+            while (count++ < BATCH && null != (task = queue.poll())) {
+                task.run();
+            }
+        } finally {
+            running.decrementAndGet();
+            try {
+                schedule();
+            } finally {
+                signalIfTerminated();
+            }
+        }
+    }
+
+    private void signalIfTerminated() {
+        if (isTerminated()) {
+            synchronized (terminationLock) {
+                terminationLock.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        signalIfTerminated();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        final var tasks = new ArrayList<Runnable>();
+        Runnable task;
+        while (null != (task = queue.poll())) {
+            tasks.add(task);
+        }
+        signalIfTerminated();
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && running.get() == 0 && queue.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (terminationLock) {
+            while (!isTerminated()) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(terminationLock, remaining);
+            }
+            return true;
+        }
+    }
+
+}
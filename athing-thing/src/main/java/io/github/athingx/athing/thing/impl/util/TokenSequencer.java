@@ -1,6 +1,6 @@
 package io.github.athingx.athing.thing.impl.util;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.lang.System.currentTimeMillis;
 
@@ -8,21 +8,38 @@ import static java.lang.System.currentTimeMillis;
  * 令牌序列
  * <p>alink协议要求：设备操作令牌必须在{@code 0~4294967295}之间，为32位无符号整型，并且在当前设备中具有唯一性。</p>
  * <p>但协议并未说明唯一性的范围，这里做一个假设：令牌在设备通讯有效窗口周期（7天）内不出现重复令牌号。令牌序列将会按照这个假设完成设计。</p>
- * <p>7天毫秒数为：{@code 7*24*3600*1000 = 604800000}为9位数，满足令牌最大值的限定设计</p>
+ * <p>
+ * 7天毫秒数为：{@code 7*24*3600*1000 = 604800000}，令牌空间可以为每毫秒分配{@value #SLOTS}个令牌，
+ * 周期为{@code 604800000*7 = 4233600000}，满足令牌最大值的限定设计。
+ * 序列以{@code 时间戳*7}为下限单调递增：同一毫秒内的突发令牌预支后续毫秒的令牌空间，无需自旋等待下一毫秒；
+ * 时钟回拨时序列继续递增，不会产生重复令牌。
+ * </p>
+ * <p>当长期生成速率超过每毫秒{@value #SLOTS}个时，序列持续领先时钟，唯一性窗口将相应缩短。</p>
  */
 public class TokenSequencer {
 
-    // 唯一约束屏障，因为令牌在生成过程为单调递增，所以只用通过判断本次生成和上次是否相同即可完成唯一约束
-    private final AtomicInteger uniqueRef = new AtomicInteger(0);
+    // 每毫秒令牌数
+    private static final long SLOTS = 7;
+
+    // 令牌周期：7天毫秒数 * 每毫秒令牌数
+    private static final long PERIOD = 7L * 24 * 3600 * 1000 * SLOTS;
+
+    private final AtomicLong sequence = new AtomicLong(0);
 
     /**
-     * 取时间戳（毫秒）后9位数，考虑到部分机器时钟可能被重置，不足位前补0
+     * 生成令牌
      *
-     * @return 种子（9位数字的字符串）
+     * @return 令牌，取值范围{@code 0~4233599999}
      */
-    private static int seed() {
-        final String seed = "%09d".formatted(currentTimeMillis());
-        return Integer.valueOf(seed.substring(seed.length() - 9), 10);
+    public long nextToken() {
+        final long floor = currentTimeMillis() * SLOTS;
+        while (true) {
+            final long last = sequence.get();
+            final long next = Math.max(last + 1, floor);
+            if (sequence.compareAndSet(last, next)) {
+                return next % PERIOD;
+            }
+        }
     }
 
     /**
@@ -31,15 +48,7 @@ public class TokenSequencer {
      * @return 令牌序列
      */
     public String next() {
-        while (true) {
-            final int seed = seed();
-            final int last = uniqueRef.get();
-            if (seed == last || !uniqueRef.compareAndSet(last, seed)) {
-                Thread.yield();
-                continue;
-            }
-            return String.valueOf(seed);
-        }
+        return Long.toString(nextToken());
     }
 
 }
@@ -2,6 +2,7 @@ module athing.thing {
 
     exports io.github.athingx.athing.thing.builder.executor;
     exports io.github.athingx.athing.thing.builder.client;
+    exports io.github.athingx.athing.thing.builder.metrics;
     exports io.github.athingx.athing.thing.builder;
 
     requires transitive athing.thing.api;
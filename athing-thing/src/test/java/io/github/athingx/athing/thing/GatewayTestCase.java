@@ -0,0 +1,86 @@
+package io.github.athingx.athing.thing;
+
+import com.google.gson.JsonParser;
+import io.github.athingx.athing.thing.api.Thing;
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.builder.ThingBuilder;
+import io.github.athingx.athing.thing.builder.client.GatewayMqttClientFactory;
+import io.github.athingx.athing.thing.mock.MockMqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 网关模式测试用例
+ */
+public class GatewayTestCase {
+
+    private static final ThingPath GATEWAY = new ThingPath("mock-product", "mock-gateway");
+
+    /**
+     * 模拟网关物理连接：子设备上下线请求立即得到成功应答
+     */
+    private static class GatewayMqttClient extends MockMqttClient {
+
+        @Override
+        public IMqttDeliveryToken publish(String topic, byte[] payload, int qos, boolean retained) {
+            final var token = super.publish(topic, payload, qos, retained);
+            if (topic.endsWith("/combine/login") || topic.endsWith("/combine/logout")) {
+                final var id = JsonParser.parseString(new String(payload, UTF_8)).getAsJsonObject().get("id").getAsString();
+                try {
+                    arrive(topic + "_reply", "{\"id\":\"%s\",\"code\":200}".formatted(id).getBytes(UTF_8));
+                } catch (Exception cause) {
+                    throw new IllegalStateException(cause);
+                }
+            }
+            return token;
+        }
+
+    }
+
+    private final GatewayMqttClient client = new GatewayMqttClient();
+    private GatewayMqttClientFactory factory;
+
+    @Before
+    public void before() {
+        factory = new GatewayMqttClientFactory()
+                .gateway(GATEWAY, path -> client)
+                .secrets(path -> "mock-secret");
+    }
+
+    @After
+    public void after() throws Exception {
+        factory.shutdown();
+    }
+
+    @Test
+    public void test$gateway$unsubscribe_on_destroy() throws Exception {
+        final ThingPath path = new ThingPath("mock-product", "mock-sub");
+        final Thing thing = new ThingBuilder(path)
+                .client(factory)
+                .build();
+
+        // 经由不带消息监听器的订阅方式订阅子设备主题
+        final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        final String topic = "/sys/%s/thing/mock/downstream".formatted(path.toURN());
+        thing.op().consumer(topic, (t, data) -> received.add(new String(data, UTF_8))).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(client.subscriptions().contains(topic));
+
+        client.arrive(topic, "hello".getBytes(UTF_8));
+        Assert.assertEquals("hello", received.poll(5, TimeUnit.SECONDS));
+
+        // 销毁子设备后退订其全部主题，网关会话主题保持订阅
+        thing.destroy();
+        Assert.assertTrue(client.subscriptions().stream().noneMatch(subscription -> subscription.contains(path.toURN())));
+        Assert.assertEquals(2, client.subscriptions().size());
+    }
+
+}
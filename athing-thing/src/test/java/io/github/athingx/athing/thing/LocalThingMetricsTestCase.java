@@ -0,0 +1,113 @@
+package io.github.athingx.athing.thing;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.builder.metrics.LocalThingMetrics;
+import io.github.athingx.athing.thing.builder.metrics.ThingMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地设备指标测试用例
+ * <p>延迟直方图的分位为所在分桶的上界，相对误差不超过1/16</p>
+ */
+public class LocalThingMetricsTestCase {
+
+    private static final ThingPath PATH = new ThingPath("mock-product", "mock-thing");
+    private static final String TOPIC = "/mock/topic";
+
+    private static LocalThingMetrics.Meter meter(LocalThingMetrics metrics, String name, String result) {
+        return metrics.getMeters().stream()
+                .filter(meter -> meter.name().equals(name) && meter.result().equals(result))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void assertApprox(long expect, long actual) {
+        Assert.assertTrue("expect=%s;actual=%s;".formatted(expect, actual), actual >= expect && actual <= expect + expect / 16);
+    }
+
+    @Test
+    public void test$metrics$percentile() {
+        final var metrics = new LocalThingMetrics();
+        long total = 0;
+        for (long nanos = 1; nanos <= 10000; nanos++) {
+            metrics.recordPublish(PATH, TOPIC, nanos * 1000, true);
+            total += nanos * 1000;
+        }
+
+        final var meter = meter(metrics, "publish", "success");
+        Assert.assertEquals(PATH.getProductId(), meter.productId());
+        Assert.assertEquals(TOPIC, meter.topic());
+        Assert.assertEquals(10000, meter.count());
+        Assert.assertEquals(total, meter.totalNanos());
+        Assert.assertEquals(10000 * 1000, meter.maxNanos());
+        assertApprox(5000 * 1000, meter.p50Nanos());
+        assertApprox(9900 * 1000, meter.p99Nanos());
+    }
+
+    @Test
+    public void test$metrics$bounds() {
+        final var metrics = new LocalThingMetrics();
+
+        // 小于16ns的耗时精确记录，负数按0记录
+        for (int nanos = 0; nanos < 16; nanos++) {
+            metrics.recordPublish(PATH, TOPIC, nanos, false);
+        }
+        metrics.recordPublish(PATH, TOPIC, -1, false);
+        final var small = meter(metrics, "publish", "failure");
+        Assert.assertEquals(17, small.count());
+        Assert.assertEquals(7, small.p50Nanos());
+        Assert.assertEquals(15, small.maxNanos());
+
+        // 超出覆盖范围的耗时落入最后一个分桶，分位不超过最大耗时
+        metrics.recordConsume(PATH, TOPIC, Long.MAX_VALUE, ThingMetrics.ConsumeResult.FAILED);
+        final var large = meter(metrics, "consume", "failed");
+        Assert.assertEquals(1, large.count());
+        Assert.assertEquals(Long.MAX_VALUE, large.maxNanos());
+        Assert.assertTrue(large.p99Nanos() > 0 && large.p99Nanos() <= Long.MAX_VALUE);
+    }
+
+    @Test
+    public void test$metrics$concurrent() throws Exception {
+        final var metrics = new LocalThingMetrics();
+        final int nThreads = 8, count = 10000;
+        final ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+        try {
+            for (int index = 0; index < nThreads; index++) {
+                pool.execute(() -> {
+                    for (int i = 1; i <= count; i++) {
+                        metrics.recordConsume(PATH, TOPIC, i, ThingMetrics.ConsumeResult.CONSUMED);
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+        Assert.assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        final var meter = meter(metrics, "consume", "consumed");
+        Assert.assertEquals((long) nThreads * count, meter.count());
+        Assert.assertEquals((long) nThreads * count * (count + 1) / 2, meter.totalNanos());
+        Assert.assertEquals(count, meter.maxNanos());
+        assertApprox(count / 2, meter.p50Nanos());
+    }
+
+    @Test
+    public void test$metrics$queue() {
+        final var metrics = new LocalThingMetrics();
+        final var unbind1 = metrics.bindExecutor(PATH, () -> 3);
+        final var unbind2 = metrics.bindExecutor(new ThingPath(PATH.getProductId(), "other"), () -> 4);
+        Assert.assertEquals(7, metrics.getQueueSize(PATH.getProductId()));
+        Assert.assertEquals(0, metrics.getQueueSize("none"));
+
+        unbind1.run();
+        Assert.assertEquals(4, metrics.getQueueSize(PATH.getProductId()));
+        unbind2.run();
+        Assert.assertEquals(0, metrics.getQueueSize(PATH.getProductId()));
+    }
+
+}
@@ -0,0 +1,239 @@
+package io.github.athingx.athing.thing;
+
+import io.github.athingx.athing.thing.builder.client.MappedFilePersistence;
+import org.eclipse.paho.client.mqttv3.MqttPersistable;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 内存映射文件持久化测试用例
+ */
+public class MappedFilePersistenceTestCase {
+
+    private Path directory;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("athing-persistence-");
+    }
+
+    @After
+    public void after() throws IOException {
+        try (final Stream<Path> stream = Files.walk(directory)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private MappedFilePersistence open(int segmentSize) throws Exception {
+        final var persistence = new MappedFilePersistence(directory).segmentSize(segmentSize);
+        persistence.open("client", "tcp://localhost:1883");
+        return persistence;
+    }
+
+    private long segments() throws IOException {
+        try (final Stream<Path> stream = Files.list(directory)) {
+            return stream.filter(file -> file.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+
+    private static Set<String> keys(MappedFilePersistence persistence) throws Exception {
+        return new HashSet<>(Collections.list(persistence.keys()));
+    }
+
+    private static String payload(MappedFilePersistence persistence, String key) throws Exception {
+        final var persistable = persistence.get(key);
+        return null == persistable ? null : new String(persistable.getPayloadBytes(), UTF_8);
+    }
+
+    @Test
+    public void test$persistence$recover() throws Exception {
+        final var persistence = open(4096);
+        persistence.put("s-1", new Persistable("h1", "p1"));
+        persistence.put("s-2", new Persistable("h2", "p2"));
+        persistence.put("s-3", new Persistable("h3", "p3"));
+        persistence.put("s-1", new Persistable("h1", "p1-new"));
+        persistence.remove("s-2");
+        persistence.close();
+
+        final var reopened = open(4096);
+        try {
+            Assert.assertEquals(Set.of("s-1", "s-3"), keys(reopened));
+            Assert.assertEquals("h1", new String(reopened.get("s-1").getHeaderBytes(), UTF_8));
+            Assert.assertEquals("p1-new", payload(reopened, "s-1"));
+            Assert.assertEquals("p3", payload(reopened, "s-3"));
+            Assert.assertNull(reopened.get("s-2"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void test$persistence$compact() throws Exception {
+        final var persistence = open(256);
+        persistence.put("sb-0", new Persistable("h", "keep"));
+        for (int index = 0; index < 1000; index++) {
+            persistence.put("s-" + index % 4, new Persistable("h", "v" + index));
+            if (index % 4 == 3) {
+                for (int removing = 0; removing < 4; removing++) {
+                    persistence.remove("s-" + removing);
+                }
+            }
+        }
+        persistence.put("s-9", new Persistable("h", "last"));
+
+        // 废弃记录被回收，分段数不随写入次数增长
+        Assert.assertTrue(segments() <= 4);
+        persistence.close();
+
+        final var reopened = open(256);
+        try {
+            Assert.assertEquals(Set.of("sb-0", "s-9"), keys(reopened));
+            Assert.assertEquals("keep", payload(reopened, "sb-0"));
+            Assert.assertEquals("last", payload(reopened, "s-9"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void test$persistence$rewind() throws Exception {
+        final var persistence = open(256);
+        for (int index = 0; index < 32; index++) {
+            persistence.put("s-" + index, new Persistable("h", "v" + index));
+        }
+        Assert.assertTrue(segments() > 1);
+        for (int index = 0; index < 32; index++) {
+            persistence.remove("s-" + index);
+        }
+
+        // 全部删除后只保留一个分段
+        Assert.assertEquals(1, segments());
+        Assert.assertTrue(keys(persistence).isEmpty());
+        persistence.close();
+
+        final var reopened = open(256);
+        try {
+            Assert.assertTrue(keys(reopened).isEmpty());
+            reopened.put("s-100", new Persistable("h", "after"));
+        } finally {
+            reopened.close();
+        }
+
+        final var again = open(256);
+        try {
+            Assert.assertEquals(Set.of("s-100"), keys(again));
+            Assert.assertEquals("after", payload(again, "s-100"));
+        } finally {
+            again.close();
+        }
+    }
+
+    @Test
+    public void test$persistence$clear() throws Exception {
+        final var persistence = open(256);
+        for (int index = 0; index < 32; index++) {
+            persistence.put("s-" + index, new Persistable("h", "v" + index));
+        }
+        persistence.clear();
+        Assert.assertEquals(1, segments());
+        persistence.close();
+
+        final var reopened = open(256);
+        try {
+            Assert.assertTrue(keys(reopened).isEmpty());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void test$persistence$spare() throws Exception {
+        final var spare = directory.resolve("segment.spare");
+        final var persistence = open(256);
+        for (int index = 0; index < 32; index++) {
+            persistence.put("s-" + index, new Persistable("h", "v" + index));
+        }
+        for (int index = 0; index < 32; index++) {
+            persistence.remove("s-" + index);
+        }
+
+        // 丢弃的分段留作备用，不再计入分段
+        Assert.assertEquals(1, segments());
+        Assert.assertTrue(Files.exists(spare));
+
+        // 滚动时复用备用分段，其中的旧记录不会被重放
+        for (int index = 0; index < 16; index++) {
+            persistence.put("n-" + index, new Persistable("h", "n" + index));
+        }
+        Assert.assertTrue(segments() > 1);
+        Assert.assertFalse(Files.exists(spare));
+        persistence.close();
+
+        final var reopened = open(256);
+        try {
+            final Set<String> expect = new HashSet<>();
+            for (int index = 0; index < 16; index++) {
+                expect.add("n-" + index);
+            }
+            Assert.assertEquals(expect, keys(reopened));
+            Assert.assertEquals("n15", payload(reopened, "n-15"));
+        } finally {
+            reopened.close();
+        }
+        Assert.assertFalse(Files.exists(spare));
+    }
+
+    /**
+     * 持久化数据
+     *
+     * @param header  头部
+     * @param payload 负载
+     */
+    private record Persistable(String header, String payload) implements MqttPersistable {
+
+        @Override
+        public byte[] getHeaderBytes() {
+            return header.getBytes(UTF_8);
+        }
+
+        @Override
+        public int getHeaderLength() {
+            return getHeaderBytes().length;
+        }
+
+        @Override
+        public int getHeaderOffset() {
+            return 0;
+        }
+
+        @Override
+        public byte[] getPayloadBytes() {
+            return payload.getBytes(UTF_8);
+        }
+
+        @Override
+        public int getPayloadLength() {
+            return getPayloadBytes().length;
+        }
+
+        @Override
+        public int getPayloadOffset() {
+            return 0;
+        }
+
+    }
+
+}
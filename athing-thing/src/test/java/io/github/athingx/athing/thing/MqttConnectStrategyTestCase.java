@@ -0,0 +1,185 @@
+package io.github.athingx.athing.thing;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.builder.client.MqttConnectCoordinator;
+import io.github.athingx.athing.thing.builder.client.MqttConnectStrategy;
+import io.github.athingx.athing.thing.mock.MockMqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MQTT连接策略测试用例
+ */
+public class MqttConnectStrategyTestCase {
+
+    private static final ThingPath PATH = new ThingPath("mock-product", "mock-thing");
+
+    /**
+     * 模拟连接的MQTT客户端：前{@code failures}次连接失败，记录每次连接所在的线程
+     */
+    private static class ConnectingMqttClient extends MockMqttClient {
+
+        private final int failures;
+        private final AtomicInteger connects = new AtomicInteger();
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        ConnectingMqttClient(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public IMqttToken connect(MqttConnectOptions options, Object userContext, IMqttActionListener callback) {
+            threads.add(Thread.currentThread().getName());
+            if (connects.incrementAndGet() <= failures) {
+                callback.onFailure(null, new MqttException(MqttException.REASON_CODE_SERVER_CONNECT_ERROR));
+            } else {
+                callback.onSuccess(null);
+            }
+            return null;
+        }
+
+    }
+
+    /**
+     * 模拟连接的MQTT客户端：连接挂起，由测试决定何时成功
+     */
+    private static class HoldingMqttClient extends MockMqttClient {
+
+        private final ThingPath path;
+        private final BlockingQueue<HoldingMqttClient> connecting;
+        private volatile IMqttActionListener callback;
+
+        HoldingMqttClient(ThingPath path, BlockingQueue<HoldingMqttClient> connecting) {
+            this.path = path;
+            this.connecting = connecting;
+        }
+
+        @Override
+        public IMqttToken connect(MqttConnectOptions options, Object userContext, IMqttActionListener callback) {
+            this.callback = callback;
+            connecting.add(this);
+            return null;
+        }
+
+        void connected() {
+            callback.onSuccess(null);
+        }
+
+    }
+
+    @Test
+    public void test$backoff$retry() throws Exception {
+        final var client = new ConnectingMqttClient(3);
+        MqttConnectStrategy.backoff(-1, 10L, 20L)
+                .connectAsync(PATH, client, new MqttConnectOptions(), false)
+                .get(5, TimeUnit.SECONDS);
+
+        // 失败3次后连上；重试由时间轮唤醒，连接都在阻塞执行器上进行
+        Assert.assertEquals(4, client.connects.get());
+        for (final String thread : client.threads) {
+            Assert.assertTrue(thread, thread.startsWith("athing-mqtt-blocking-"));
+        }
+    }
+
+    @Test
+    public void test$backoff$limit() throws Exception {
+        final var client = new ConnectingMqttClient(Integer.MAX_VALUE);
+        try {
+            MqttConnectStrategy.backoff(2, 10L, 20L)
+                    .connectAsync(PATH, client, new MqttConnectOptions(), true)
+                    .get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException cause) {
+            Assert.assertTrue(cause.getCause() instanceof MqttException);
+        }
+
+        // 首次连接加2次重试
+        Assert.assertEquals(3, client.connects.get());
+    }
+
+    @Test
+    public void test$backoff$cancel() throws Exception {
+        final var client = new ConnectingMqttClient(Integer.MAX_VALUE);
+        final var future = MqttConnectStrategy.backoff(-1, 200L, 200L)
+                .connectAsync(PATH, client, new MqttConnectOptions(), false);
+
+        // 首次连接失败后取消，等待中的重试被撤销
+        while (client.connects.get() < 1) {
+            Thread.onSpinWait();
+        }
+        future.cancel(false);
+        TimeUnit.MILLISECONDS.sleep(500);
+        Assert.assertEquals(1, client.connects.get());
+    }
+
+    @Test
+    public void test$admission$concurrency() throws Exception {
+        final var coordinator = new MqttConnectCoordinator()
+                .concurrency(2)
+                .rate(1000)
+                .weight(path -> path.getProductId().equals("vip") ? 10 : 0);
+        final var strategy = coordinator.backoff(-1, 10L, 20L);
+        final BlockingQueue<HoldingMqttClient> connecting = new LinkedBlockingQueue<>();
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        final List<ThingPath> paths = new ArrayList<>();
+        for (int index = 0; index < 6; index++) {
+            paths.add(new ThingPath(index == 5 ? "vip" : "mock-product", "thing-%d".formatted(index)));
+        }
+        for (final ThingPath path : paths) {
+            futures.add(strategy.connectAsync(path, new HoldingMqttClient(path, connecting), new MqttConnectOptions(), false));
+        }
+
+        // 同时进行中的连接不超过并发上限，先申请的先放行
+        final var first = connecting.poll(5, TimeUnit.SECONDS);
+        final var second = connecting.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+        Assert.assertEquals(Set.of(paths.get(0), paths.get(1)), Set.of(first.path, second.path));
+        Assert.assertNull(connecting.poll(100, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(2, coordinator.getRunning());
+        Assert.assertEquals(4, coordinator.getWaiting());
+
+        // 排队中的连接取消后立即出队
+        final var cancelled = futures.get(2);
+        cancelled.cancel(false);
+        Assert.assertEquals(3, coordinator.getWaiting());
+
+        // 归还许可后按权重放行，权重高的设备先连接
+        first.connected();
+        final var next = connecting.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(next);
+        Assert.assertEquals("vip", next.path.getProductId());
+        Assert.assertEquals(2, coordinator.getWaiting());
+
+        // 其余连接依次完成，被取消的连接不再发起
+        second.connected();
+        next.connected();
+        for (int index = 0; index < 2; index++) {
+            connecting.poll(5, TimeUnit.SECONDS).connected();
+        }
+        for (final var future : futures) {
+            if (future != cancelled) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        }
+        Assert.assertNull(connecting.poll(100, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(0, coordinator.getRunning());
+        Assert.assertEquals(0, coordinator.getWaiting());
+    }
+
+}
@@ -0,0 +1,155 @@
+package io.github.athingx.athing.thing;
+
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.builder.client.DefaultMqttClientFactory;
+import io.github.athingx.athing.thing.builder.client.MqttConnectStrategy;
+import io.github.athingx.athing.thing.mock.MockMqttBroker;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 离线消息重放测试用例
+ */
+public class MqttReplayTestCase {
+
+    private static final ThingPath PATH = new ThingPath("mock-product", "mock-thing");
+
+    private MockMqttBroker broker;
+    private IMqttAsyncClient client;
+
+    @Before
+    public void before() throws Exception {
+        broker = new MockMqttBroker();
+    }
+
+    @After
+    public void after() throws Exception {
+        if (null != client) {
+            client.disconnectForcibly(0, 100);
+            client.close();
+        }
+        broker.close();
+    }
+
+    private DefaultMqttClientFactory factory() {
+        return new DefaultMqttClientFactory()
+                .remote(broker.remote())
+                .secret("mock-secret")
+                .strategy(MqttConnectStrategy.backoff(-1, 50L, 100L));
+    }
+
+    private static CompletableFuture<Void> publish(IMqttAsyncClient client, String topic, String payload) throws Exception {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        client.publish(topic, payload.getBytes(UTF_8), 1, false, null, new IMqttActionListener() {
+
+            @Override
+            public void onSuccess(IMqttToken token) {
+                future.complete(null);
+            }
+
+            @Override
+            public void onFailure(IMqttToken token, Throwable cause) {
+                future.completeExceptionally(cause);
+            }
+
+        });
+        return future;
+    }
+
+    @Test
+    public void test$replay$rate() throws Exception {
+        final List<Long> progresses = new CopyOnWriteArrayList<>();
+        final List<Integer> remains = new CopyOnWriteArrayList<>();
+        client = factory()
+                .replayOpt(opt -> opt
+                        .rate(100)
+                        .listener((path, replayed, remaining) -> {
+                            progresses.add(replayed);
+                            remains.add(remaining);
+                        }))
+                .makeAsync(PATH)
+                .get(10, TimeUnit.SECONDS);
+
+        // 服务端断开且暂不接受连接
+        broker.accepting(false);
+        broker.disconnect();
+        while (client.isConnected()) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        // 断线期间发布的消息进入重放缓冲区
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int index = 0; index < 20; index++) {
+            futures.add(publish(client, "/mock/replay", String.valueOf(index)));
+        }
+        Assert.assertTrue(futures.stream().noneMatch(CompletableFuture::isDone));
+
+        // 重连后按速率依次重放
+        final long beginNanos = System.nanoTime();
+        broker.accepting(true);
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        final long costMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - beginNanos);
+
+        final List<String> payloads = new ArrayList<>();
+        for (final var published : broker.publishes()) {
+            payloads.add(new String(published.payload(), UTF_8));
+        }
+        final List<String> expect = new ArrayList<>();
+        for (int index = 0; index < 20; index++) {
+            expect.add(String.valueOf(index));
+        }
+        Assert.assertEquals(expect, payloads);
+        Assert.assertTrue("cost=%dms".formatted(costMs), costMs >= 150);
+
+        // 进度在消息交给客户端后回调，可能晚于投递完成
+        while (progresses.size() < 20) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assert.assertEquals(20L, progresses.get(progresses.size() - 1).longValue());
+        Assert.assertEquals(0, remains.get(remains.size() - 1).intValue());
+
+        // 重放不占用常驻线程
+        Assert.assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(thread -> thread.getName().startsWith("athing-mqtt-replay")));
+    }
+
+    @Test
+    public void test$replay$persistence() throws Exception {
+        final var directory = Files.createTempDirectory("athing-replay-");
+        try {
+            factory()
+                    .persistence(directory)
+                    .replayOpt(opt -> opt)
+                    .makeAsync(PATH)
+                    .get(10, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException cause) {
+
+            // 重放缓冲区只在内存中，不能与文件持久化同时使用
+            Assert.assertTrue(cause.getCause() instanceof IllegalStateException);
+        } finally {
+            try (final Stream<Path> stream = Files.walk(directory)) {
+                stream.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+}
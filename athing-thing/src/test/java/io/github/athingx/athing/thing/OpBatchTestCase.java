@@ -0,0 +1,175 @@
+package io.github.athingx.athing.thing;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.athingx.athing.thing.api.Thing;
+import io.github.athingx.athing.thing.api.op.*;
+import io.github.athingx.athing.thing.api.util.MapData;
+import io.github.athingx.athing.thing.builder.ThingBuilder;
+import io.github.athingx.athing.thing.mock.MockMqttClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static io.github.athingx.athing.thing.api.op.Encoder.encodeJsonToBytes;
+import static io.github.athingx.athing.thing.api.op.Encoder.encodeTypeToJson;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 批量投递测试用例
+ */
+public class OpBatchTestCase {
+
+    private static final String TOPIC = "/mock/post";
+
+    private final MockMqttClient client = new MockMqttClient();
+    private Thing thing;
+
+    @Before
+    public void before() throws Exception {
+        thing = new ThingBuilder("mock-product", "mock-thing")
+                .client(path -> client)
+                .build();
+    }
+
+    @After
+    public void after() {
+        thing.destroy();
+    }
+
+    private static byte[] concat(List<byte[]> datas) {
+        final var output = new ByteArrayOutputStream();
+        datas.forEach(output::writeBytes);
+        return output.toByteArray();
+    }
+
+    // 已发布的数据按发布顺序拼接
+    private List<Integer> published() {
+        final List<Integer> values = new ArrayList<>();
+        for (final var published : client.publishes()) {
+            for (final var value : new String(published.payload(), UTF_8).split(";")) {
+                values.add(Integer.parseInt(value));
+            }
+        }
+        return values;
+    }
+
+    @Test
+    public void test$op_batch$merge() throws Exception {
+        final ThingOp<byte[], byte[]> op = thing.op().batch(new OpBatch<>(60000L, 3, OpBatchTestCase::concat));
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int index = 1; index <= 3; index++) {
+            futures.add(op.post(TOPIC, "%d;".formatted(index).getBytes(UTF_8)));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        // 达到单批上限立即合并为一次发布
+        Assert.assertEquals(1, client.publishes().size());
+        Assert.assertEquals(List.of(1, 2, 3), published());
+    }
+
+    @Test
+    public void test$op_batch$order() throws Exception {
+
+        // 每条数据都不能与前一批合并，窗口极短，截取与窗口到期并发
+        final ThingOp<byte[], byte[]> op = thing.op().batch(new OpBatch<>(1L, 64, OpBatchTestCase::concat, (datas, data) -> false));
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int index = 1; index <= 5000; index++) {
+            futures.add(op.post(TOPIC, "%d;".formatted(index).getBytes(UTF_8)));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        // 先截取的批次先发布
+        final List<Integer> values = published();
+        Assert.assertEquals(5000, values.size());
+        for (int index = 0; index < values.size(); index++) {
+            Assert.assertEquals(index + 1, values.get(index).intValue());
+        }
+    }
+
+    @Test
+    public void test$op_batch$property() throws Exception {
+        final ThingOp<OpMapData, byte[]> op = thing.op()
+                .encode(encodeJsonToBytes(UTF_8).compose(encodeTypeToJson(OpMapData.class)))
+                .batch(OpBatch.batchPropertyPost(60000L, 10));
+
+        // 同名属性的多个采样分批上报，不同名属性合并
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (final var params : List.of(
+                new MapData().putProperty("temperature", 1),
+                new MapData().putProperty("humidity", 50),
+                new MapData().putProperty("temperature", 2),
+                new MapData().putProperty("temperature", 3)
+        )) {
+            final var token = op.genToken();
+            futures.add(op.post(TOPIC, new OpMapData(token, new MapData()
+                    .putProperty("id", token)
+                    .putProperty("method", "thing.event.property.post")
+                    .putProperty("params", params)
+            )));
+        }
+
+        // 前两批因同名属性立即截取发布，最后一批等待窗口
+        CompletableFuture.allOf(futures.subList(0, 3).toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        Assert.assertFalse(futures.get(3).isDone());
+
+        final List<JsonObject> posted = new ArrayList<>();
+        for (final var published : client.publishes()) {
+            posted.add(JsonParser.parseString(new String(published.payload(), UTF_8)).getAsJsonObject().getAsJsonObject("params"));
+        }
+        Assert.assertEquals(2, posted.size());
+        Assert.assertEquals(1, posted.get(0).get("temperature").getAsInt());
+        Assert.assertEquals(50, posted.get(0).get("humidity").getAsInt());
+        Assert.assertEquals(2, posted.get(1).get("temperature").getAsInt());
+    }
+
+    @Test
+    public void test$op_batch$default() {
+        final ThingOp<byte[], byte[]> op = new ThingOp<>() {
+
+            @Override
+            public String genToken() {
+                return thing.op().genToken();
+            }
+
+            @Override
+            public long nextToken() {
+                return thing.op().nextToken();
+            }
+
+            @Override
+            public CompletableFuture<Void> post(String topic, byte[] data) {
+                return thing.op().post(topic, data);
+            }
+
+            @Override
+            public CompletableFuture<OpBinder> consumer(String express, BiConsumer<String, byte[]> consumer) {
+                return thing.op().consumer(express, consumer);
+            }
+
+            @Override
+            public <UT extends OpData, UR extends OpData>
+            CompletableFuture<OpTopicCaller<UT, UR>> caller(String express, Codec<byte[], byte[], UT, UR> codec) {
+                return thing.op().caller(express, codec);
+            }
+
+            @Override
+            public <UT, UR> ThingOp<UT, UR> codec(Codec<byte[], byte[], UT, UR> codec) {
+                return thing.op().codec(codec);
+            }
+
+        };
+
+        // 未实现批量投递的设备操作默认逐条投递
+        Assert.assertSame(op, op.batch(new OpBatch<>(1000L, 10, OpBatchTestCase::concat)));
+    }
+
+}
@@ -0,0 +1,185 @@
+package io.github.athingx.athing.thing;
+
+import io.github.athingx.athing.thing.api.Thing;
+import io.github.athingx.athing.thing.api.op.OpCaller;
+import io.github.athingx.athing.thing.api.op.OpReply;
+import io.github.athingx.athing.thing.api.op.OpRequest;
+import io.github.athingx.athing.thing.api.util.MapData;
+import io.github.athingx.athing.thing.builder.OpCallOption;
+import io.github.athingx.athing.thing.builder.ThingBuilder;
+import io.github.athingx.athing.thing.mock.MockMqttClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static io.github.athingx.athing.thing.api.op.Codec.codecBytesToJson;
+import static io.github.athingx.athing.thing.api.op.Codec.codecJsonToOpCaller;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 设备调用测试用例
+ * <p>使用模拟MQTT客户端，覆盖调用关联（应答、超时、容量与拒绝策略）和令牌序列</p>
+ */
+public class OpCallTestCase {
+
+    private static final String PRODUCT_ID = "mock-product";
+    private static final String THING_ID = "mock-thing";
+    private static final String REQUEST_TOPIC = "/mock/request";
+    private static final String REPLY_TOPIC = "/mock/reply";
+
+    private final MockMqttClient client = new MockMqttClient();
+    private Thing thing;
+
+    private OpCaller<OpRequest<MapData>, OpReply<MapData>> caller(OpCallOption option) throws Exception {
+        thing = new ThingBuilder(PRODUCT_ID, THING_ID)
+                .client(path -> client)
+                .callOpt(option)
+                .build();
+        return thing.op()
+                .codec(codecBytesToJson(UTF_8))
+                .caller(REPLY_TOPIC, codecJsonToOpCaller(MapData.class, MapData.class))
+                .thenApply(v -> v.topics(REQUEST_TOPIC))
+                .get();
+    }
+
+    private CompletableFuture<OpReply<MapData>> call(OpCaller<OpRequest<MapData>, OpReply<MapData>> caller, String token) {
+        return caller.call(new OpRequest<>(token, "thing.mock", new MapData()));
+    }
+
+    private void reply(String token) throws Exception {
+        client.arrive(REPLY_TOPIC, "{\"id\":\"%s\",\"code\":200,\"data\":{}}".formatted(token).getBytes(UTF_8));
+    }
+
+    private static Throwable failure(CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException cause) {
+            return cause.getCause();
+        }
+        throw new AssertionError("expect failure!");
+    }
+
+    @After
+    public void after() {
+        if (null != thing) {
+            thing.destroy();
+        }
+    }
+
+    @Test
+    public void test$op_call$reply() throws Exception {
+        final var caller = caller(new OpCallOption());
+        final var token = thing.op().genToken();
+        final var future = call(caller, token);
+
+        final var published = client.publishes().poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(published);
+        Assert.assertEquals(REQUEST_TOPIC, published.topic());
+        Assert.assertTrue(new String(published.payload(), UTF_8).contains(token));
+
+        reply(token);
+        final var reply = future.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(token, reply.token());
+        Assert.assertTrue(reply.isSuccess());
+    }
+
+    @Test
+    public void test$op_call$timeout() throws Exception {
+        final var caller = caller(new OpCallOption().timeoutMs(100));
+        final var token = thing.op().genToken();
+        final var future = call(caller, token);
+        Assert.assertTrue(failure(future) instanceof TimeoutException);
+
+        // 超时后到达的应答被忽略
+        reply(token);
+        Assert.assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void test$op_call$duplicate() throws Exception {
+        final var caller = caller(new OpCallOption());
+        final var token = thing.op().genToken();
+        final var future = call(caller, token);
+        Assert.assertTrue(failure(call(caller, token)) instanceof IllegalStateException);
+
+        // 重复的调用不影响已登记的调用
+        reply(token);
+        Assert.assertEquals(token, future.get(5, TimeUnit.SECONDS).token());
+    }
+
+    @Test
+    public void test$op_call$abort() throws Exception {
+        final var caller = caller(new OpCallOption().capacity(2).policy(OpCallOption.RejectPolicy.ABORT));
+        final var token1 = thing.op().genToken();
+        final var future1 = call(caller, token1);
+        final var future2 = call(caller, thing.op().genToken());
+        Assert.assertTrue(failure(call(caller, thing.op().genToken())) instanceof RejectedExecutionException);
+        Assert.assertFalse(future1.isDone());
+        Assert.assertFalse(future2.isDone());
+
+        // 应答后释放容量
+        reply(token1);
+        future1.get(5, TimeUnit.SECONDS);
+        Assert.assertFalse(call(caller, thing.op().genToken()).isDone());
+    }
+
+    @Test
+    public void test$op_call$discard_oldest() throws Exception {
+        final var caller = caller(new OpCallOption().capacity(2).policy(OpCallOption.RejectPolicy.DISCARD_OLDEST));
+        final var future1 = call(caller, thing.op().genToken());
+        final var future2 = call(caller, thing.op().genToken());
+
+        // 已结束的调用不占用登记顺序，丢弃的是仍在途的最早调用
+        future1.cancel(true);
+        final var future3 = call(caller, thing.op().genToken());
+        Assert.assertFalse(future2.isDone());
+        final var future4 = call(caller, thing.op().genToken());
+        Assert.assertTrue(failure(future2) instanceof RejectedExecutionException);
+        Assert.assertFalse(future3.isDone());
+        Assert.assertFalse(future4.isDone());
+    }
+
+    @Test
+    public void test$op_token$unique() throws Exception {
+        thing = new ThingBuilder(PRODUCT_ID, THING_ID)
+                .client(path -> client)
+                .build();
+
+        final int nThreads = 8, count = 20000;
+        final var pool = Executors.newFixedThreadPool(nThreads);
+        try {
+            final List<Future<long[]>> futures = new ArrayList<>();
+            for (int index = 0; index < nThreads; index++) {
+                futures.add(pool.submit(() -> {
+                    final long[] tokens = new long[count];
+                    for (int i = 0; i < count; i++) {
+                        tokens[i] = thing.op().nextToken();
+                    }
+                    return tokens;
+                }));
+            }
+
+            final Set<Long> unique = new HashSet<>();
+            for (final var future : futures) {
+                final long[] tokens = future.get();
+                for (int i = 0; i < tokens.length; i++) {
+                    Assert.assertTrue(tokens[i] >= 0 && tokens[i] <= 0xFFFFFFFFL);
+                    if (i > 0) {
+                        Assert.assertTrue(tokens[i] > tokens[i - 1]);
+                    }
+                    Assert.assertTrue(unique.add(tokens[i]));
+                }
+            }
+            Assert.assertEquals(nThreads * count, unique.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package io.github.athingx.athing.thing;
+
+import io.github.athingx.athing.thing.api.Thing;
+import io.github.athingx.athing.thing.api.ThingPath;
+import io.github.athingx.athing.thing.builder.ThingBulkBuilder;
+import io.github.athingx.athing.thing.builder.client.MqttClientFactory;
+import io.github.athingx.athing.thing.mock.MockMqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 设备批量构造测试用例
+ */
+public class ThingBulkTestCase {
+
+    /**
+     * 模拟异步连接的MQTT客户端工厂：创建操作挂起，由测试决定何时完成；记录同时创建中的客户端数峰值
+     */
+    private static class HoldingMqttClientFactory implements MqttClientFactory {
+
+        private final BlockingQueue<Making> making = new LinkedBlockingQueue<>();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+
+        @Override
+        public IMqttAsyncClient make(ThingPath path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<IMqttAsyncClient> makeAsync(ThingPath path) {
+            final var future = new CompletableFuture<IMqttAsyncClient>();
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            making.add(new Making(path, future));
+            return future;
+        }
+
+    }
+
+    /**
+     * 创建中的MQTT客户端
+     *
+     * @param path   设备路径
+     * @param future 创建操作
+     */
+    private record Making(ThingPath path, CompletableFuture<IMqttAsyncClient> future) {
+
+    }
+
+    private static List<String> urns(Collection<ThingPath> paths) {
+        return paths.stream().map(ThingPath::toURN).toList();
+    }
+
+    private static List<ThingPath> paths(int count) {
+        final List<ThingPath> paths = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            paths.add(new ThingPath("mock-product", "thing-%d".formatted(index)));
+        }
+        return paths;
+    }
+
+    @Test
+    public void test$bulk$parallelism() throws Exception {
+        final var factory = new HoldingMqttClientFactory();
+        final List<String> progresses = new CopyOnWriteArrayList<>();
+        final List<ThingPath> paths = new ArrayList<>(paths(6));
+        paths.add(paths.get(0));
+        final var future = new ThingBulkBuilder(paths)
+                .client(factory)
+                .parallelism(2)
+                .listener((path, cause, costMs, booted, failed, total) ->
+                        progresses.add("%s:%d/%d/%d".formatted(path.getThingId(), booted, failed, total)))
+                .build();
+
+        // 同时构造中的设备不超过并行度，一台结束后才开始下一台；重复的设备只构造一次
+        final List<ThingPath> launched = new ArrayList<>();
+        for (int index = 0; index < 6; index++) {
+            final var making = factory.making.poll(5, TimeUnit.SECONDS);
+            Assert.assertNotNull(making);
+            launched.add(making.path());
+
+            // 先计数再完成：完成时批量构造立即在当前线程发起下一台
+            factory.running.decrementAndGet();
+
+            // thing-3构造失败，不影响其他设备
+            if (making.path().getThingId().equals("thing-3")) {
+                making.future().completeExceptionally(new MqttException(MqttException.REASON_CODE_SERVER_CONNECT_ERROR));
+            } else {
+                making.future().complete(new MockMqttClient());
+            }
+        }
+        Assert.assertNull(factory.making.poll(50, TimeUnit.MILLISECONDS));
+
+        final Map<ThingPath, Thing> things = future.get(5, TimeUnit.SECONDS);
+        try {
+            Assert.assertEquals(urns(paths(6)), urns(launched));
+            Assert.assertEquals(2, factory.peak.get());
+            Assert.assertEquals(urns(List.of(paths.get(0), paths.get(1), paths.get(2), paths.get(4), paths.get(5))), urns(things.keySet()));
+            Assert.assertEquals(6, progresses.size());
+            Assert.assertEquals("thing-5:5/1/6", progresses.get(5));
+        } finally {
+            things.values().forEach(Thing::destroy);
+        }
+    }
+
+    @Test
+    public void test$bulk$cancel() throws Exception {
+        final var factory = new HoldingMqttClientFactory();
+        final var future = new ThingBulkBuilder(paths(4))
+                .client(factory)
+                .parallelism(2)
+                .build();
+
+        // 第一台构造成功，第二台仍在连接中
+        final var first = factory.making.poll(5, TimeUnit.SECONDS);
+        final var second = factory.making.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+        final var client = new MockMqttClient();
+        first.future().complete(client);
+        final var third = factory.making.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(third);
+
+        // 取消批量构造：停止构造中的设备，销毁已构造的设备，不再发起剩余设备
+        future.cancel(false);
+        Assert.assertTrue(second.future().isCancelled());
+        Assert.assertTrue(third.future().isCancelled());
+        Assert.assertFalse(client.isConnected());
+        Assert.assertNull(factory.making.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+}
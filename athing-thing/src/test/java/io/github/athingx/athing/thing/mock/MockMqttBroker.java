@@ -0,0 +1,176 @@
+package io.github.athingx.athing.thing.mock;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 模拟MQTT服务端
+ * <p>
+ * 只实现MQTT 3.1.1中客户端连接、发布（QoS0/1）、心跳和断开所需的报文，发布的消息依次记录；
+ * 不接受连接时握手前直接断开，模拟服务端不可用。
+ * </p>
+ */
+public class MockMqttBroker implements Closeable {
+
+    private final ServerSocket server;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<Published> publishes = new LinkedBlockingQueue<>();
+    private volatile boolean accepting = true;
+
+    /**
+     * 模拟MQTT服务端，监听本机随机端口
+     *
+     * @throws IOException 监听失败
+     */
+    public MockMqttBroker() throws IOException {
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        new Thread(this::accept) {{
+            setDaemon(true);
+            setName("mock-mqtt-broker");
+        }}.start();
+    }
+
+    /**
+     * @return 服务端地址
+     */
+    public String remote() {
+        return "tcp://127.0.0.1:%d".formatted(server.getLocalPort());
+    }
+
+    /**
+     * @return 已收到的发布消息
+     */
+    public BlockingQueue<Published> publishes() {
+        return publishes;
+    }
+
+    /**
+     * 设置是否接受连接
+     *
+     * @param accepting TRUE | FALSE
+     */
+    public void accepting(boolean accepting) {
+        this.accepting = accepting;
+    }
+
+    /**
+     * 断开全部已连接的客户端
+     */
+    public void disconnect() {
+        sockets.forEach(MockMqttBroker::closeQuietly);
+        sockets.clear();
+    }
+
+    @Override
+    public void close() {
+        disconnect();
+        closeQuietly(server);
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                final Socket socket = server.accept();
+                if (!accepting) {
+                    closeQuietly(socket);
+                    continue;
+                }
+                sockets.add(socket);
+                new Thread(() -> serve(socket)) {{
+                    setDaemon(true);
+                    setName("mock-mqtt-session");
+                }}.start();
+            } catch (IOException cause) {
+                // 服务端已关闭
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            final DataInputStream input = new DataInputStream(socket.getInputStream());
+            final OutputStream output = socket.getOutputStream();
+            while (true) {
+                final int header = input.readUnsignedByte();
+                final byte[] body = new byte[readRemainingLength(input)];
+                input.readFully(body);
+                switch (header >>> 4) {
+
+                    // CONNECT -> CONNACK
+                    case 1 -> output.write(new byte[]{0x20, 0x02, 0x00, 0x00});
+
+                    // PUBLISH -> PUBACK（QoS1）
+                    case 3 -> {
+                        final int qos = header >>> 1 & 0x03;
+                        final int topicLength = (body[0] & 0xFF) << 8 | body[1] & 0xFF;
+                        final String topic = new String(body, 2, topicLength, UTF_8);
+                        final int offset = 2 + topicLength + (qos > 0 ? 2 : 0);
+                        final byte[] payload = new byte[body.length - offset];
+                        System.arraycopy(body, offset, payload, 0, payload.length);
+                        publishes.add(new Published(topic, payload));
+                        if (qos == 1) {
+                            output.write(new byte[]{0x40, 0x02, body[2 + topicLength], body[3 + topicLength]});
+                        }
+                    }
+
+                    // PINGREQ -> PINGRESP
+                    case 12 -> output.write(new byte[]{(byte) 0xD0, 0x00});
+
+                    // DISCONNECT
+                    case 14 -> {
+                        return;
+                    }
+
+                    default -> {
+                    }
+
+                }
+                output.flush();
+            }
+        } catch (IOException cause) {
+            // 连接已断开
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    private static int readRemainingLength(DataInputStream input) throws IOException {
+        int length = 0, shift = 0, digit;
+        do {
+            digit = input.readUnsignedByte();
+            length |= (digit & 0x7F) << shift;
+            shift += 7;
+        } while ((digit & 0x80) != 0);
+        return length;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException cause) {
+            // ignore
+        }
+    }
+
+    /**
+     * 已收到的发布消息
+     *
+     * @param topic   主题
+     * @param payload 消息内容
+     */
+    public record Published(String topic, byte[] payload) {
+
+    }
+
+}
@@ -0,0 +1,304 @@
+package io.github.athingx.athing.thing.mock;
+
+import org.eclipse.paho.client.mqttv3.*;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * 模拟MQTT客户端
+ * <p>订阅、退订和发布总是立即成功，发布的消息依次记录，由{@link #arrive(String, byte[])}模拟Broker投递消息：
+ * 匹配到带消息监听器的订阅时交给监听器，否则交给回调</p>
+ */
+public class MockMqttClient implements IMqttAsyncClient {
+
+    private final BlockingQueue<Published> publishes = new LinkedBlockingQueue<>();
+    private final Set<String> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<String, IMqttMessageListener> listeners = new ConcurrentHashMap<>();
+    private volatile MqttCallback callback;
+    private volatile boolean connected = true;
+
+    /**
+     * @return 已发布的消息
+     */
+    public BlockingQueue<Published> publishes() {
+        return publishes;
+    }
+
+    /**
+     * @return 当前订阅的主题表达式
+     */
+    public Set<String> subscriptions() {
+        return subscriptions;
+    }
+
+    // 立即完成的令牌
+    private static IMqttToken completed() {
+        return (IMqttToken) Proxy.newProxyInstance(MockMqttClient.class.getClassLoader(), new Class<?>[]{IMqttDeliveryToken.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "isComplete" -> true;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> "mock-token";
+            default -> null;
+        });
+    }
+
+    /**
+     * 模拟Broker投递消息
+     *
+     * @param topic   主题
+     * @param payload 消息内容
+     * @throws Exception 回调失败
+     */
+    public void arrive(String topic, byte[] payload) throws Exception {
+        for (final var entry : listeners.entrySet()) {
+            if (MqttTopic.isMatched(entry.getKey(), topic)) {
+                entry.getValue().messageArrived(topic, new MqttMessage(payload));
+                return;
+            }
+        }
+        callback.messageArrived(topic, new MqttMessage(payload));
+    }
+
+    @Override
+    public IMqttToken connect() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttToken connect(MqttConnectOptions options) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttToken connect(Object userContext, IMqttActionListener callback) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttToken connect(MqttConnectOptions options, Object userContext, IMqttActionListener callback) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttToken disconnect() {
+        connected = false;
+        return completed();
+    }
+
+    @Override
+    public IMqttToken disconnect(long quiesceTimeout) {
+        return disconnect();
+    }
+
+    @Override
+    public IMqttToken disconnect(Object userContext, IMqttActionListener callback) {
+        return disconnect();
+    }
+
+    @Override
+    public IMqttToken disconnect(long quiesceTimeout, Object userContext, IMqttActionListener callback) {
+        return disconnect();
+    }
+
+    @Override
+    public void disconnectForcibly() {
+        connected = false;
+    }
+
+    @Override
+    public void disconnectForcibly(long disconnectTimeout) {
+        connected = false;
+    }
+
+    @Override
+    public void disconnectForcibly(long quiesceTimeout, long disconnectTimeout) {
+        connected = false;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public String getClientId() {
+        return "mock";
+    }
+
+    @Override
+    public String getServerURI() {
+        return "tcp://mock:1883";
+    }
+
+    @Override
+    public IMqttDeliveryToken publish(String topic, byte[] payload, int qos, boolean retained) {
+        publishes.add(new Published(topic, payload));
+        return (IMqttDeliveryToken) completed();
+    }
+
+    @Override
+    public IMqttDeliveryToken publish(String topic, byte[] payload, int qos, boolean retained, Object userContext, IMqttActionListener callback) {
+        publishes.add(new Published(topic, payload));
+        callback.onSuccess(null);
+        return null;
+    }
+
+    @Override
+    public IMqttDeliveryToken publish(String topic, MqttMessage message) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttDeliveryToken publish(String topic, MqttMessage message, Object userContext, IMqttActionListener callback) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttToken subscribe(String topicFilter, int qos) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttToken subscribe(String topicFilter, int qos, Object userContext, IMqttActionListener callback) {
+        subscriptions.add(topicFilter);
+        callback.onSuccess(null);
+        return null;
+    }
+
+    @Override
+    public IMqttToken subscribe(String[] topicFilters, int[] qos) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttToken subscribe(String[] topicFilters, int[] qos, Object userContext, IMqttActionListener callback) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttToken subscribe(String topicFilter, int qos, Object userContext, IMqttActionListener callback, IMqttMessageListener messageListener) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttToken subscribe(String topicFilter, int qos, IMqttMessageListener messageListener) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttToken subscribe(String[] topicFilters, int[] qos, IMqttMessageListener[] messageListeners) {
+        for (int index = 0; index < topicFilters.length; index++) {
+            subscriptions.add(topicFilters[index]);
+            listeners.put(topicFilters[index], messageListeners[index]);
+        }
+        return completed();
+    }
+
+    @Override
+    public IMqttToken subscribe(String[] topicFilters, int[] qos, Object userContext, IMqttActionListener callback, IMqttMessageListener[] messageListeners) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttToken unsubscribe(String topicFilter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IMqttToken unsubscribe(String[] topicFilters) {
+        for (final String topicFilter : topicFilters) {
+            subscriptions.remove(topicFilter);
+            listeners.remove(topicFilter);
+        }
+        return completed();
+    }
+
+    @Override
+    public IMqttToken unsubscribe(String topicFilter, Object userContext, IMqttActionListener callback) {
+        subscriptions.remove(topicFilter);
+        listeners.remove(topicFilter);
+        callback.onSuccess(null);
+        return null;
+    }
+
+    @Override
+    public IMqttToken unsubscribe(String[] topicFilters, Object userContext, IMqttActionListener callback) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeMessage(IMqttDeliveryToken token) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setCallback(MqttCallback callback) {
+        this.callback = callback;
+    }
+
+    @Override
+    public IMqttDeliveryToken[] getPendingDeliveryTokens() {
+        return new IMqttDeliveryToken[0];
+    }
+
+    @Override
+    public void setManualAcks(boolean manualAcks) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void reconnect() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void messageArrivedComplete(int messageId, int qos) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setBufferOpts(DisconnectedBufferOptions bufferOpts) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getBufferedMessageCount() {
+        return 0;
+    }
+
+    @Override
+    public MqttMessage getBufferedMessage(int bufferIndex) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteBufferedMessage(int bufferIndex) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getInFlightMessageCount() {
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        connected = false;
+    }
+
+    /**
+     * 已发布的消息
+     *
+     * @param topic   主题
+     * @param payload 消息内容
+     */
+    public record Published(String topic, byte[] payload) {
+
+    }
+
+}